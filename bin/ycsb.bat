@@ -70,13 +70,18 @@ SET YCSB_COMMAND=-t
 SET YCSB_CLASS=com.yahoo.ycsb.Client
 GOTO gotCommand
 :noRun
+IF NOT "plan" == "%1" GOTO noPlan
+SET YCSB_COMMAND=
+SET YCSB_CLASS=com.yahoo.ycsb.Client
+GOTO gotCommand
+:noPlan
 IF NOT "shell" == "%1" GOTO noShell
 SET YCSB_COMMAND=
 SET YCSB_CLASS=com.yahoo.ycsb.CommandLine
 GOTO gotCommand
 :noShell
 ECHO [ERROR] Found unknown command '%1'
-ECHO [ERROR] Expected one of 'load', 'run', or 'shell'. Exiting.
+ECHO [ERROR] Expected one of 'load', 'run', 'plan', or 'shell'. Exiting.
 GOTO exit
 :gotCommand
 
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * A pool of random bytes, generated once, that field values are sliced out of at random offsets by
+ * {@link PooledByteIterator}s. Generating a value then takes a single random number and array copies, instead of a
+ * random number every few bytes as with {@link RandomByteIterator}.
+ * <p>
+ * The bytes are either random printable characters, or {@link #compressible(int, double, int) compressible} data
+ * made of random segments repeated, for storage engines that compress their blocks.
+ * <p>
+ * The pool is never written after it is generated, so it is shared by all the client threads.
+ */
+public final class BytePool {
+  // The length of the pieces of compressible data, each a random segment repeated, as in LevelDB's db_bench.
+  private static final int PIECE_LENGTH = 100;
+  // The number of bytes compressed to measure the compression ratio of a pool, in blocks like storage engines.
+  private static final int SAMPLE_LENGTH = 1 << 20;
+  private static final int SAMPLE_BLOCK_LENGTH = 1 << 16;
+
+  private final byte[] bytes;
+
+  /**
+   * Create a pool of random printable characters.
+   *
+   * @param size The number of bytes in the pool.
+   */
+  public BytePool(int size) {
+    checkSize(size);
+    bytes = new byte[size];
+    final Random random = Utils.random();
+    for (int i = 0; i < size; i++) {
+      // Printable ASCII characters, from ' ' to '~'.
+      bytes[i] = (byte) (' ' + random.nextInt(95));
+    }
+  }
+
+  private BytePool(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  private static void checkSize(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("The size of a byte pool must be positive: " + size);
+    }
+  }
+
+  /**
+   * Create a pool of compressible data: each piece of 100 bytes is a random segment of 100/ratio bytes, repeated.
+   *
+   * @param size        The number of bytes in the pool.
+   * @param ratio       The target compression ratio, 1 or more.
+   * @param entropyBits The entropy of the random bytes, from 1 to 8 bits. The random bytes are printable ASCII
+   *                    characters when it is 6 bits or less.
+   */
+  public static BytePool compressible(int size, double ratio, int entropyBits) {
+    checkSize(size);
+    if (!(ratio >= 1)) {
+      throw new IllegalArgumentException("The compression ratio must be 1 or more: " + ratio);
+    }
+    if (entropyBits < 1 || entropyBits > 8) {
+      throw new IllegalArgumentException("The entropy of random bytes must be between 1 and 8 bits: " + entropyBits);
+    }
+    final byte[] bytes = new byte[size];
+    final Random random = Utils.random();
+    final int segment = Math.max(1, (int) Math.round(PIECE_LENGTH / ratio));
+    final int offset = entropyBits <= 6 ? ' ' : 0;
+    for (int piece = 0; piece < size; piece += PIECE_LENGTH) {
+      final int end = Math.min(size, piece + PIECE_LENGTH);
+      final int segmentEnd = Math.min(end, piece + segment);
+      for (int i = piece; i < segmentEnd; i++) {
+        bytes[i] = (byte) (offset + random.nextInt(1 << entropyBits));
+      }
+      for (int i = segmentEnd; i < end; i++) {
+        bytes[i] = bytes[i - segment];
+      }
+    }
+    return new BytePool(bytes);
+  }
+
+  /**
+   * @return The number of bytes in the pool.
+   */
+  public int size() {
+    return bytes.length;
+  }
+
+  byte[] bytes() {
+    return bytes;
+  }
+
+  /**
+   * @return The compression ratio achieved by deflate (at its fastest level) on the first megabyte of the pool,
+   * compressed in blocks of 64 KB.
+   */
+  public double compressionRatio() {
+    final int length = Math.min(bytes.length, SAMPLE_LENGTH);
+    final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    final byte[] output = new byte[SAMPLE_BLOCK_LENGTH * 2];
+    long compressed = 0;
+    try {
+      for (int block = 0; block < length; block += SAMPLE_BLOCK_LENGTH) {
+        deflater.reset();
+        deflater.setInput(bytes, block, Math.min(SAMPLE_BLOCK_LENGTH, length - block));
+        deflater.finish();
+        while (!deflater.finished()) {
+          compressed += deflater.deflate(output);
+        }
+      }
+    } finally {
+      deflater.end();
+    }
+    return (double) length / compressed;
+  }
+
+  /**
+   * @return A value of the given length, starting at a random offset in the pool. Values longer than the pool wrap
+   * around it.
+   */
+  public PooledByteIterator newValue(long length) {
+    final int start;
+    if (length <= bytes.length) {
+      start = Utils.random().nextInt(bytes.length - (int) length + 1);
+    } else {
+      start = Utils.random().nextInt(bytes.length);
+    }
+    return new PooledByteIterator(this, start, length);
+  }
+}
@@ -17,13 +17,17 @@
 
 package com.yahoo.ycsb;
 
+import com.yahoo.ycsb.generator.Zeta;
 import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.MetricsServer;
+import com.yahoo.ycsb.measurements.OperationCounters;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
 import org.apache.htrace.core.HTraceConfiguration;
 import org.apache.htrace.core.TraceScope;
 import org.apache.htrace.core.Tracer;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -32,17 +36,16 @@ import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.LockSupport;
 
 /**
  * A thread to periodically show the status of the experiment to reassure you that progress is being made.
  */
 class StatusThread extends Thread {
-  // Counts down each of the clients completing
-  private final CountDownLatch completeLatch;
+  // Each of the clients arrives and deregisters as they complete
+  private final Phaser completePhaser;
 
   // Stores the measurements for the run
   private final Measurements measurements;
@@ -50,6 +53,10 @@ class StatusThread extends Thread {
   // Whether or not to track the JVM stats per run
   private final boolean trackJVMStats;
 
+  // The sampler of the client host resources, or null if they are not tracked.
+  private final HostSampler hostSampler;
+  private long lastHostSampleNs;
+
   // The clients that are running.
   private final List<ClientThread> clients;
 
@@ -69,25 +76,28 @@ class StatusThread extends Thread {
   private long lastGCCount = 0;
   private long lastGCTime = 0;
 
+  // The operation counts at the start of the current interval.
+  private SortedMap<String, OperationCounters.Counts> lastCounts = new TreeMap<>();
+
   /**
    * Creates a new StatusThread without JVM stat tracking.
    *
-   * @param completeLatch         The latch that each client thread will {@link CountDownLatch#countDown()}
+   * @param completePhaser        The phaser that each client thread will {@link Phaser#arriveAndDeregister()}
    *                              as they complete.
    * @param clients               The clients to collect metrics from.
    * @param label                 The label for the status.
    * @param standardstatus        If true the status is printed to stdout in addition to stderr.
    * @param statusIntervalSeconds The number of seconds between status updates.
    */
-  public StatusThread(CountDownLatch completeLatch, List<ClientThread> clients,
+  public StatusThread(Phaser completePhaser, List<ClientThread> clients,
                       String label, boolean standardstatus, int statusIntervalSeconds) {
-    this(completeLatch, clients, label, standardstatus, statusIntervalSeconds, false);
+    this(completePhaser, clients, label, standardstatus, statusIntervalSeconds, false);
   }
 
   /**
    * Creates a new StatusThread.
    *
-   * @param completeLatch         The latch that each client thread will {@link CountDownLatch#countDown()}
+   * @param completePhaser        The phaser that each client thread will {@link Phaser#arriveAndDeregister()}
    *                              as they complete.
    * @param clients               The clients to collect metrics from.
    * @param label                 The label for the status.
@@ -95,16 +105,40 @@ class StatusThread extends Thread {
    * @param statusIntervalSeconds The number of seconds between status updates.
    * @param trackJVMStats         Whether or not to track JVM stats.
    */
-  public StatusThread(CountDownLatch completeLatch, List<ClientThread> clients,
+  public StatusThread(Phaser completePhaser, List<ClientThread> clients,
                       String label, boolean standardstatus, int statusIntervalSeconds,
                       boolean trackJVMStats) {
-    this.completeLatch = completeLatch;
+    this(completePhaser, clients, label, standardstatus, statusIntervalSeconds, trackJVMStats, false);
+  }
+
+  /**
+   * Creates a new StatusThread.
+   *
+   * @param completePhaser        The phaser that each client thread will {@link Phaser#arriveAndDeregister()}
+   *                              as they complete.
+   * @param clients               The clients to collect metrics from.
+   * @param label                 The label for the status.
+   * @param standardstatus        If true the status is printed to stdout in addition to stderr.
+   * @param statusIntervalSeconds The number of seconds between status updates.
+   * @param trackJVMStats         Whether or not to track JVM stats.
+   * @param trackHostStats        Whether or not to track the resources of the client host.
+   */
+  public StatusThread(Phaser completePhaser, List<ClientThread> clients,
+                      String label, boolean standardstatus, int statusIntervalSeconds,
+                      boolean trackJVMStats, boolean trackHostStats) {
+    this.completePhaser = completePhaser;
     this.clients = clients;
     this.label = label;
     this.standardstatus = standardstatus;
     sleeptimeNs = TimeUnit.SECONDS.toNanos(statusIntervalSeconds);
     measurements = Measurements.getMeasurements();
     this.trackJVMStats = trackJVMStats;
+    if (trackHostStats && !HostSampler.isSupported()) {
+      System.err.println("Host resources can only be tracked on Linux, "
+          + Measurements.MEASUREMENT_TRACK_HOST_PROPERTY + " is ignored.");
+    }
+    hostSampler = trackHostStats && HostSampler.isSupported()
+        ? new HostSampler(new File("/proc"), new File("/sys")) : null;
   }
 
   /**
@@ -128,6 +162,9 @@ class StatusThread extends Thread {
       if (trackJVMStats) {
         measureJVM();
       }
+      if (hostSampler != null) {
+        measureHost();
+      }
 
       alldone = waitForClientsUntil(deadline);
 
@@ -139,6 +176,9 @@ class StatusThread extends Thread {
     if (trackJVMStats) {
       measureJVM();
     }
+    if (hostSampler != null) {
+      measureHost();
+    }
     // Print the final stats.
     computeStats(startTimeMs, startIntervalMs, System.currentTimeMillis(), lastTotalOps);
   }
@@ -158,6 +198,7 @@ class StatusThread extends Thread {
 
     long totalops = 0;
     long todoops = 0;
+    final SortedMap<String, OperationCounters.Counts> counts = measurements.getOperationCounters().snapshot();
 
     // Calculate the total number of operations completed.
     for (ClientThread t : clients) {
@@ -177,11 +218,15 @@ class StatusThread extends Thread {
     String labelString = this.label + format.format(new Date());
 
     StringBuilder msg = new StringBuilder(labelString).append(" ").append(interval / 1000).append(" sec: ");
+    if (measurements.isWarmingUp()) {
+      msg.append("(warm-up) ");
+    }
     msg.append(totalops).append(" operations; ");
 
     if (totalops != 0) {
       msg.append(d.format(curthroughput)).append(" current ops/sec; ");
     }
+    appendOperationThroughput(msg, d, counts, endIntervalMs - startIntervalMs);
     if (todoops != 0) {
       msg.append("est completion in ").append(RemainingFormatter.format(estremaining));
     }
@@ -196,6 +241,38 @@ class StatusThread extends Thread {
     return totalops;
   }
 
+  /**
+   * Appends the throughput of each operation type during the interval, e.g. "READ=520.5 UPDATE=498 ops/sec".
+   * Failed operations are included, and shown separately when there are some. The payload throughput
+   * follows, if payload bytes are counted.
+   */
+  private void appendOperationThroughput(StringBuilder msg, DecimalFormat d,
+                                         SortedMap<String, OperationCounters.Counts> counts, long intervalMs) {
+    if (counts.isEmpty() || intervalMs <= 0) {
+      lastCounts = counts;
+      return;
+    }
+    long bytesSent = 0;
+    long bytesReceived = 0;
+    for (Map.Entry<String, OperationCounters.Counts> entry : counts.entrySet()) {
+      final OperationCounters.Counts interval = entry.getValue().minus(lastCounts.get(entry.getKey()));
+      msg.append(entry.getKey()).append('=').append(d.format(1000.0 * interval.getTotal() / intervalMs));
+      if (interval.getFailed() > 0) {
+        msg.append(" (").append(d.format(1000.0 * interval.getFailed() / intervalMs)).append(" failed)");
+      }
+      msg.append(' ');
+      bytesSent += interval.getBytesSent();
+      bytesReceived += interval.getBytesReceived();
+    }
+    msg.append("ops/sec; ");
+    if (bytesSent > 0 || bytesReceived > 0) {
+      msg.append(d.format(OperationCounters.megabytesPerSecond(bytesSent, intervalMs))).append(" MB/sec sent, ")
+          .append(d.format(OperationCounters.megabytesPerSecond(bytesReceived, intervalMs)))
+          .append(" MB/sec received; ");
+    }
+    lastCounts = counts;
+  }
+
   /**
    * Waits for all of the client to finish or the deadline to expire.
    *
@@ -208,7 +285,10 @@ class StatusThread extends Thread {
 
     while (!alldone && now < deadline) {
       try {
-        alldone = completeLatch.await(deadline - now, TimeUnit.NANOSECONDS);
+        completePhaser.awaitAdvanceInterruptibly(0, deadline - now, TimeUnit.NANOSECONDS);
+        alldone = true;
+      } catch (TimeoutException te) {
+        alldone = false;
       } catch (InterruptedException ie) {
         // If we are interrupted the thread is being asked to shutdown.
         // Return true to indicate that and reset the interrupt state
@@ -233,7 +313,7 @@ class StatusThread extends Thread {
     if (threads > maxThreads) {
       maxThreads = threads;
     }
-    measurements.measure("THREAD_COUNT", threads);
+    measurements.measureGauge("THREAD_COUNT", threads);
 
     // TODO - once measurements allow for other number types, switch to using
     // the raw bytes. Otherwise we can track in MB to avoid negative values 
@@ -245,14 +325,14 @@ class StatusThread extends Thread {
     if (usedMem > maxUsedMem) {
       maxUsedMem = usedMem;
     }
-    measurements.measure("USED_MEM_MB", usedMem);
+    measurements.measureGauge("USED_MEM_MB", usedMem);
 
     // Some JVMs may not implement this feature so if the value is less than
     // zero, just ommit it.
     final double systemLoad = Utils.getSystemLoadAverage();
     if (systemLoad >= 0) {
       // TODO - store the double if measurements allows for them
-      measurements.measure("SYS_LOAD_AVG", (int) systemLoad);
+      measurements.measureGauge("SYS_LOAD_AVG", (int) systemLoad);
       if (systemLoad > maxLoadAvg) {
         maxLoadAvg = systemLoad;
       }
@@ -262,13 +342,31 @@ class StatusThread extends Thread {
     }
 
     final long gcs = Utils.getGCTotalCollectionCount();
-    measurements.measure("GCS", (int) (gcs - lastGCCount));
+    measurements.measureGauge("GCS", gcs - lastGCCount);
     final long gcTime = Utils.getGCTotalTime();
-    measurements.measure("GCS_TIME", (int) (gcTime - lastGCTime));
+    measurements.measureGauge("GCS_TIME", gcTime - lastGCTime);
     lastGCCount = gcs;
     lastGCTime = gcTime;
   }
 
+  /**
+   * Samples the resources of the client host, and warns if the host itself is likely to be the bottleneck.
+   */
+  private void measureHost() {
+    final long now = System.nanoTime();
+    try {
+      final List<String> saturated = hostSampler.sample(measurements,
+          TimeUnit.NANOSECONDS.toMillis(now - lastHostSampleNs));
+      if (!saturated.isEmpty()) {
+        System.err.println("[WARNING] The client host may be the bottleneck of the run: "
+            + String.join(", ", saturated));
+      }
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Could not sample the client host resources: " + e);
+    }
+    lastHostSampleNs = now;
+  }
+
   /**
    * @return The maximum threads running during the test.
    */
@@ -356,168 +454,6 @@ final class RemainingFormatter {
   }
 }
 
-/**
- * A thread for executing transactions or data inserts to the database.
- */
-class ClientThread implements Runnable {
-  // Counts down each of the clients completing.
-  private final CountDownLatch completeLatch;
-
-  private static boolean spinSleep;
-  private DB db;
-  private boolean dotransactions;
-  private Workload workload;
-  private int opcount;
-  private double targetOpsPerMs;
-
-  private int opsdone;
-  private int threadid;
-  private int threadcount;
-  private Object workloadstate;
-  private Properties props;
-  private long targetOpsTickNs;
-  private final Measurements measurements;
-
-  /**
-   * Constructor.
-   *
-   * @param db                   the DB implementation to use
-   * @param dotransactions       true to do transactions, false to insert data
-   * @param workload             the workload to use
-   * @param props                the properties defining the experiment
-   * @param opcount              the number of operations (transactions or inserts) to do
-   * @param targetperthreadperms target number of operations per thread per ms
-   * @param completeLatch        The latch tracking the completion of all clients.
-   */
-  public ClientThread(DB db, boolean dotransactions, Workload workload, Properties props, int opcount,
-                      double targetperthreadperms, CountDownLatch completeLatch) {
-    this.db = db;
-    this.dotransactions = dotransactions;
-    this.workload = workload;
-    this.opcount = opcount;
-    opsdone = 0;
-    if (targetperthreadperms > 0) {
-      targetOpsPerMs = targetperthreadperms;
-      targetOpsTickNs = (long) (1000000 / targetOpsPerMs);
-    }
-    this.props = props;
-    measurements = Measurements.getMeasurements();
-    spinSleep = Boolean.valueOf(this.props.getProperty("spin.sleep", "false"));
-    this.completeLatch = completeLatch;
-  }
-
-  public void setThreadId(final int threadId) {
-    threadid = threadId;
-  }
-  
-  public void setThreadCount(final int threadCount) {
-    threadcount = threadCount;
-  }
-  
-  public int getOpsDone() {
-    return opsdone;
-  }
-
-  @Override
-  public void run() {
-    try {
-      db.init();
-    } catch (DBException e) {
-      e.printStackTrace();
-      e.printStackTrace(System.out);
-      return;
-    }
-
-    try {
-      workloadstate = workload.initThread(props, threadid, threadcount);
-    } catch (WorkloadException e) {
-      e.printStackTrace();
-      e.printStackTrace(System.out);
-      return;
-    }
-
-    //NOTE: Switching to using nanoTime and parkNanos for time management here such that the measurements
-    // and the client thread have the same view on time.
-
-    //spread the thread operations out so they don't all hit the DB at the same time
-    // GH issue 4 - throws exception if _target>1 because random.nextInt argument must be >0
-    // and the sleep() doesn't make sense for granularities < 1 ms anyway
-    if ((targetOpsPerMs > 0) && (targetOpsPerMs <= 1.0)) {
-      long randomMinorDelay = ThreadLocalRandom.current().nextInt((int) targetOpsTickNs);
-      sleepUntil(System.nanoTime() + randomMinorDelay);
-    }
-    try {
-      if (dotransactions) {
-        long startTimeNanos = System.nanoTime();
-
-        while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
-
-          if (!workload.doTransaction(db, workloadstate)) {
-            break;
-          }
-
-          opsdone++;
-
-          throttleNanos(startTimeNanos);
-        }
-      } else {
-        long startTimeNanos = System.nanoTime();
-
-        while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
-
-          if (!workload.doInsert(db, workloadstate)) {
-            break;
-          }
-
-          opsdone++;
-
-          throttleNanos(startTimeNanos);
-        }
-      }
-    } catch (Exception e) {
-      e.printStackTrace();
-      e.printStackTrace(System.out);
-      System.exit(0);
-    }
-
-    try {
-      measurements.setIntendedStartTimeNs(0);
-      db.cleanup();
-    } catch (DBException e) {
-      e.printStackTrace();
-      e.printStackTrace(System.out);
-    } finally {
-      completeLatch.countDown();
-    }
-  }
-
-  private static void sleepUntil(long deadline) {
-    while (System.nanoTime() < deadline) {
-      if (!spinSleep) {
-        LockSupport.parkNanos(deadline - System.nanoTime());
-      }
-    }
-  }
-
-  private void throttleNanos(long startTimeNanos) {
-    //throttle the operations
-    if (targetOpsPerMs > 0) {
-      // delay until next tick
-      long deadline = startTimeNanos + opsdone * targetOpsTickNs;
-      sleepUntil(deadline);
-      measurements.setIntendedStartTimeNs(deadline);
-    }
-  }
-
-  /**
-   * The total amount of work this thread is still expected to do.
-   */
-  int getOpsTodo() {
-    int todo = opcount - opsdone;
-    return todo < 0 ? 0 : todo;
-  }
-}
-
 /**
  * Main class for executing YCSB.
  */
@@ -592,16 +528,33 @@ public final class Client {
    */
   public static final String STATUS_PROPERTY = "status";
 
+  /**
+   * The number of seconds between two status reports.
+   */
+  public static final String STATUS_INTERVAL_PROPERTY = "status.interval";
+  public static final String STATUS_INTERVAL_PROPERTY_DEFAULT = "10";
+
   /**
    * Use label for status (e.g. to label one experiment out of a whole batch).
    */
   public static final String LABEL_PROPERTY = "label";
 
+  /**
+   * The seed of the random numbers. When set, each client thread draws from its own stream split from the seed, so
+   * that runs with the same seed and thread count issue the same operations per thread. Unset by default.
+   */
+  public static final String RANDOM_SEED_PROPERTY = "randomseed";
+
   /**
    * An optional thread used to track progress and measure JVM stats.
    */
   private static StatusThread statusthread = null;
 
+  /**
+   * An optional thread used to end the warm-up phase.
+   */
+  private static WarmupThread warmupthread = null;
+
   // HTrace integration related constants.
 
   /**
@@ -630,6 +583,8 @@ public final class Client {
     System.out.println("  -p name=value:  specify a property to be passed to the DB and workloads;");
     System.out.println("          multiple properties can be specified, and override any");
     System.out.println("          values in the propertyfile");
+    System.out.println("  -plan planfile: execute the phases listed in the given run plan, one after the");
+    System.out.println("           other, in the same client process (see workloads/runplan_template)");
     System.out.println("  -s:  show status during run (default: no status)");
     System.out.println("  -l label:  use label for status (e.g. to label one experiment out of a whole batch)");
     System.out.println("");
@@ -657,10 +612,16 @@ public final class Client {
    * Exports the measurements to either sysout or a file using the exporter
    * loaded from conf.
    *
+   * @param props       The properties of the run.
+   * @param opcount     The number of operations completed by the clients.
+   * @param startTimeMs The time at which the client threads were started.
+   * @param endTimeMs   The time at which the last client thread completed.
+   * @param gcsAtStart  The GC stats when the client threads were started, if previous phases ran
+   *                    in this JVM, or null.
    * @throws IOException Either failed to write to output stream or failed to close it.
    */
-  private static void exportMeasurements(Properties props, int opcount, long runtime)
-      throws IOException {
+  private static void exportMeasurements(Properties props, long opcount, long startTimeMs, long endTimeMs,
+                                         Map<String, Long[]> gcsAtStart) throws IOException {
     MeasurementsExporter exporter = null;
     try {
       // if no destination file is provided the results will be written to stdout
@@ -685,14 +646,28 @@ public final class Client {
         exporter = new TextMeasurementsExporter(out);
       }
 
+      long runtime = endTimeMs - startTimeMs;
+      if (warmupthread != null && warmupthread.isComplete()) {
+        // Only report the measured window as the overall run.
+        exporter.write("WARMUP", "RunTime(ms)", warmupthread.getEndTimeMs() - startTimeMs);
+        exporter.write("WARMUP", "Operations", warmupthread.getOpsAtEnd());
+        opcount -= warmupthread.getOpsAtEnd();
+        runtime = endTimeMs - warmupthread.getEndTimeMs();
+      }
+
       exporter.write("OVERALL", "RunTime(ms)", runtime);
       double throughput = 1000.0 * (opcount) / (runtime);
       exporter.write("OVERALL", "Throughput(ops/sec)", throughput);
+      Measurements.getMeasurements().getOperationCounters().exportMeasurements(exporter, runtime);
 
       final Map<String, Long[]> gcs = Utils.getGCStatst();
       long totalGCCount = 0;
       long totalGCTime = 0;
       for (final Entry<String, Long[]> entry : gcs.entrySet()) {
+        final Long[] before = gcsAtStart == null ? null : gcsAtStart.get(entry.getKey());
+        if (before != null) {
+          entry.setValue(new Long[]{entry.getValue()[0] - before[0], entry.getValue()[1] - before[1]});
+        }
         exporter.write("TOTAL_GCS_" + entry.getKey(), "Count", entry.getValue()[0]);
         exporter.write("TOTAL_GC_TIME_" + entry.getKey(), "Time(ms)", entry.getValue()[1]);
         exporter.write("TOTAL_GC_TIME_%_" + entry.getKey(), "Time(%)",
@@ -725,14 +700,85 @@ public final class Client {
   public static void main(String[] args) {
     Properties props = parseArguments(args);
 
-    boolean status = Boolean.valueOf(props.getProperty(STATUS_PROPERTY, String.valueOf(false)));
+    List<RunPlan.Phase> phases = null;
+    try {
+      phases = RunPlan.getPhases(props);
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Invalid run plan " + props.getProperty(RunPlan.RUN_PLAN_PROPERTY) + ": " + e.getMessage());
+      System.exit(0);
+    }
+
+    Measurements.setProperties(props);
+    try {
+      Zeta.configure(props);
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+      System.exit(0);
+    }
+    if (props.containsKey(RANDOM_SEED_PROPERTY)) {
+      try {
+        Utils.setRandomSeed(Long.parseLong(props.getProperty(RANDOM_SEED_PROPERTY)));
+      } catch (NumberFormatException e) {
+        System.out.println("Invalid " + RANDOM_SEED_PROPERTY + ": " + props.getProperty(RANDOM_SEED_PROPERTY));
+        System.exit(0);
+      }
+    }
+
+    MetricsServer metricsServer = null;
+    try {
+      metricsServer = MetricsServer.start(props, Measurements.getMeasurements());
+      if (metricsServer != null) {
+        System.err.println("Serving metrics on port " + metricsServer.getPort() + MetricsServer.PATH);
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      System.err.println("Could not start the metrics server: " + e.getMessage());
+    }
+
+    List<DB> dbs = Collections.emptyList();
+    for (int i = 0; i < phases.size(); i++) {
+      final RunPlan.Phase phase = phases.get(i);
+      final Properties nextprops = i + 1 < phases.size() ? phases.get(i + 1).getProperties() : null;
+      if (i > 0) {
+        // Each phase reports its own measurements.
+        Measurements.getMeasurements().reset();
+        System.err.println();
+      }
+      if (!phase.getName().isEmpty()) {
+        System.err.println("Starting phase " + phase.getName() + " (" + (i + 1) + "/" + phases.size() + ").");
+      }
+      dbs = runPhase(phase.getName(), phase.getProperties(), dbs,
+          RunPlan.getReusedDbCount(phase.getProperties(), nextprops));
+    }
+
+    if (metricsServer != null) {
+      metricsServer.stop();
+    }
+    System.exit(0);
+  }
+
+  /**
+   * Runs a single phase: the load or the transaction phase of a workload.
+   *
+   * @param phasename   The name of the phase in the run plan, or the empty string.
+   * @param props       The properties of the phase.
+   * @param dbs         The initialized DB instances handed over by the previous phase.
+   * @param reusedDbs   The number of DB instances to hand over to the next phase.
+   * @return The initialized DB instances handed over to the next phase.
+   */
+  private static List<DB> runPhase(String phasename, Properties props, List<DB> dbs, int reusedDbs) {
+    // The status thread also takes the interval histograms served by the metrics endpoint.
+    boolean status = Boolean.valueOf(props.getProperty(STATUS_PROPERTY, String.valueOf(false)))
+        || props.getProperty(MetricsServer.METRICS_PORT_PROPERTY) != null;
     String label = props.getProperty(LABEL_PROPERTY, "");
+    if (!phasename.isEmpty()) {
+      label += phasename + " ";
+    }
 
     long maxExecutionTime = Integer.parseInt(props.getProperty(MAX_EXECUTION_TIME, "0"));
 
     //get number of threads, target and db
-    int threadcount = Integer.parseInt(props.getProperty(THREAD_COUNT_PROPERTY, "1"));
-    String dbname = props.getProperty(DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
+    int threadcount = getThreadCount(props);
+    String dbname = getDbName(props);
     int target = Integer.parseInt(props.getProperty(TARGET_PROPERTY, "0"));
 
     //compute the target throughput
@@ -745,8 +791,6 @@ public final class Client {
     Thread warningthread = setupWarningThread();
     warningthread.start();
 
-    Measurements.setProperties(props);
-
     Workload workload = getWorkload(props);
 
     final Tracer tracer = getTracer(props, workload);
@@ -754,56 +798,59 @@ public final class Client {
     initWorkload(props, warningthread, workload, tracer);
 
     System.err.println("Starting test.");
-    final CountDownLatch completeLatch = new CountDownLatch(threadcount);
+    final Phaser completePhaser = new Phaser(threadcount);
+
+    final ClientControl control = new ClientControl(props, workload, tracer, completePhaser,
+        initDb(props, targetperthreadperms, workload, tracer, completePhaser, dbs, reusedDbs), target);
+    final List<ClientThread> clients = control.getClients();
 
-    final List<ClientThread> clients = initDb(dbname, props, threadcount, targetperthreadperms,
-        workload, tracer, completeLatch);
+    warmupthread = null;
+    if (props.getProperty(WarmupThread.WARMUP_PROPERTY) != null) {
+      warmupthread = new WarmupThread(props, clients, completePhaser);
+    }
 
+    statusthread = null;
     if (status) {
       boolean standardstatus = false;
       if (props.getProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "").compareTo("timeseries") == 0) {
         standardstatus = true;
       }
-      int statusIntervalSeconds = Integer.parseInt(props.getProperty("status.interval", "10"));
+      int statusIntervalSeconds = Integer.parseInt(props.getProperty(STATUS_INTERVAL_PROPERTY,
+          STATUS_INTERVAL_PROPERTY_DEFAULT));
       boolean trackJVMStats = props.getProperty(Measurements.MEASUREMENT_TRACK_JVM_PROPERTY,
           Measurements.MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT).equals("true");
-      statusthread = new StatusThread(completeLatch, clients, label, standardstatus, statusIntervalSeconds,
-          trackJVMStats);
+      boolean trackHostStats = Boolean.parseBoolean(props.getProperty(Measurements.MEASUREMENT_TRACK_HOST_PROPERTY,
+          Measurements.MEASUREMENT_TRACK_HOST_PROPERTY_DEFAULT));
+      statusthread = new StatusThread(completePhaser, clients, label, standardstatus, statusIntervalSeconds,
+          trackJVMStats, trackHostStats);
       statusthread.start();
     }
 
     Thread terminator = null;
+    Map<String, Long[]> gcsAtStart;
     long st;
     long en;
-    int opsDone;
+    long opsDone;
 
     try (final TraceScope span = tracer.newScope(CLIENT_WORKLOAD_SPAN)) {
 
-      final Map<Thread, ClientThread> threads = new HashMap<>(threadcount);
-      for (ClientThread client : clients) {
-        threads.put(new Thread(tracer.wrap(client, "ClientThread")), client);
-      }
-
-      st = System.currentTimeMillis();
+      gcsAtStart = Utils.getGCStatst();
+      st = control.start();
 
-      for (Thread t : threads.keySet()) {
-        t.start();
+      if (warmupthread != null) {
+        warmupthread.start();
       }
 
       if (maxExecutionTime > 0) {
-        terminator = new TerminatorThread(maxExecutionTime, threads.keySet(), workload);
+        terminator = new TerminatorThread(maxExecutionTime, control.getThreads(), workload);
         terminator.start();
       }
 
-      opsDone = 0;
+      control.joinThreads();
 
-      for (Map.Entry<Thread, ClientThread> entry : threads.entrySet()) {
-        try {
-          entry.getKey().join();
-          opsDone += entry.getValue().getOpsDone();
-        } catch (InterruptedException ignored) {
-          // ignored
-        }
+      opsDone = 0;
+      for (ClientThread client : clients) {
+        opsDone += client.getOpsDone();
       }
 
       en = System.currentTimeMillis();
@@ -816,6 +863,15 @@ public final class Client {
           terminator.interrupt();
         }
 
+        if (warmupthread != null) {
+          warmupthread.interrupt();
+          try {
+            warmupthread.join();
+          } catch (InterruptedException ignored) {
+            // ignored
+          }
+        }
+
         if (status) {
           // wake up status thread if it's asleep
           statusthread.interrupt();
@@ -837,7 +893,7 @@ public final class Client {
 
     try {
       try (final TraceScope span = tracer.newScope(CLIENT_EXPORT_MEASUREMENTS_SPAN)) {
-        exportMeasurements(props, opsDone, en - st);
+        exportMeasurements(props, opsDone, st, en, phasename.isEmpty() ? null : gcsAtStart);
       }
     } catch (IOException e) {
       System.err.println("Could not export measurements, error: " + e.getMessage());
@@ -845,39 +901,49 @@ public final class Client {
       System.exit(-1);
     }
 
-    System.exit(0);
+    final List<DB> handedover = new ArrayList<>(reusedDbs);
+    for (int i = 0; i < reusedDbs; i++) {
+      handedover.add(clients.get(i).getDb());
+    }
+    return handedover;
   }
 
-  private static List<ClientThread> initDb(String dbname, Properties props, int threadcount,
-                                           double targetperthreadperms, Workload workload, Tracer tracer,
-                                           CountDownLatch completeLatch) {
+  private static List<ClientThread> initDb(Properties props, double targetperthreadperms, Workload workload,
+                                           Tracer tracer, Phaser completePhaser, List<DB> dbs,
+                                           int reusedDbs) {
+    String dbname = getDbName(props);
+    int threadcount = getThreadCount(props);
     boolean initFailed = false;
     boolean dotransactions = Boolean.valueOf(props.getProperty(DO_TRANSACTIONS_PROPERTY, String.valueOf(true)));
 
     final List<ClientThread> clients = new ArrayList<>(threadcount);
     try (final TraceScope span = tracer.newScope(CLIENT_INIT_SPAN)) {
-      int opcount;
+      long opcount;
       if (dotransactions) {
-        opcount = Integer.parseInt(props.getProperty(OPERATION_COUNT_PROPERTY, "0"));
+        opcount = Long.parseLong(props.getProperty(OPERATION_COUNT_PROPERTY, "0"));
       } else {
         if (props.containsKey(INSERT_COUNT_PROPERTY)) {
-          opcount = Integer.parseInt(props.getProperty(INSERT_COUNT_PROPERTY, "0"));
+          opcount = Long.parseLong(props.getProperty(INSERT_COUNT_PROPERTY, "0"));
         } else {
-          opcount = Integer.parseInt(props.getProperty(RECORD_COUNT_PROPERTY, DEFAULT_RECORD_COUNT));
+          opcount = Long.parseLong(props.getProperty(RECORD_COUNT_PROPERTY, DEFAULT_RECORD_COUNT));
         }
       }
 
       for (int threadid = 0; threadid < threadcount; threadid++) {
         DB db;
-        try {
-          db = DBFactory.newDB(dbname, props, tracer);
-        } catch (UnknownDBException e) {
-          System.out.println("Unknown DB " + dbname);
-          initFailed = true;
-          break;
+        if (threadid < dbs.size()) {
+          db = dbs.get(threadid);
+        } else {
+          try {
+            db = DBFactory.newDB(dbname, props, tracer);
+          } catch (UnknownDBException e) {
+            System.out.println("Unknown DB " + dbname);
+            initFailed = true;
+            break;
+          }
         }
 
-        int threadopcount = opcount / threadcount;
+        long threadopcount = opcount / threadcount;
 
         // ensure correct number of operations, in case opcount is not a multiple of threadcount
         if (threadid < opcount % threadcount) {
@@ -885,9 +951,11 @@ public final class Client {
         }
 
         ClientThread t = new ClientThread(db, dotransactions, workload, props, threadopcount, targetperthreadperms,
-            completeLatch);
+            completePhaser);
         t.setThreadId(threadid);
         t.setThreadCount(threadcount);
+        t.setInitDb(threadid >= dbs.size());
+        t.setCleanupDb(threadid >= reusedDbs);
         clients.add(t);
       }
 
@@ -899,6 +967,14 @@ public final class Client {
     return clients;
   }
 
+  static int getThreadCount(Properties props) {
+    return Integer.parseInt(props.getProperty(THREAD_COUNT_PROPERTY, "1"));
+  }
+
+  static String getDbName(Properties props) {
+    return props.getProperty(DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
+  }
+
   private static Tracer getTracer(Properties props, Workload workload) {
     return new Tracer.Builder("YCSB " + workload.getClass().getSimpleName())
         .conf(getHTraceConfiguration(props))
@@ -971,6 +1047,24 @@ public final class Client {
     return null;
   }
 
+  private static void loadPropertyFile(String propfile, Properties fileprops) {
+    Properties myfileprops = new Properties();
+    try {
+      myfileprops.load(new FileInputStream(propfile));
+    } catch (IOException e) {
+      System.out.println("Unable to open the properties file " + propfile);
+      System.out.println(e.getMessage());
+      System.exit(0);
+    }
+
+    //Issue #5 - remove call to stringPropertyNames to make compilable under Java 1.5
+    for (Enumeration e = myfileprops.propertyNames(); e.hasMoreElements();) {
+      String prop = (String) e.nextElement();
+
+      fileprops.setProperty(prop, myfileprops.getProperty(prop));
+    }
+  }
+
   private static Properties parseArguments(String[] args) {
     Properties props = new Properties();
     System.err.print("Command line:");
@@ -1036,32 +1130,22 @@ public final class Client {
         }
         props.setProperty(LABEL_PROPERTY, args[argindex]);
         argindex++;
-      } else if (args[argindex].compareTo("-P") == 0) {
+      } else if (args[argindex].compareTo("-P") == 0 || args[argindex].compareTo("-plan") == 0) {
+        String option = args[argindex];
         argindex++;
         if (argindex >= args.length) {
           usageMessage();
-          System.out.println("Missing argument value for -P.");
+          System.out.println("Missing argument value for " + option + ".");
           System.exit(0);
         }
         String propfile = args[argindex];
         argindex++;
-
-        Properties myfileprops = new Properties();
-        try {
-          myfileprops.load(new FileInputStream(propfile));
-        } catch (IOException e) {
-          System.out.println("Unable to open the properties file " + propfile);
-          System.out.println(e.getMessage());
-          System.exit(0);
-        }
-
-        //Issue #5 - remove call to stringPropertyNames to make compilable under Java 1.5
-        for (Enumeration e = myfileprops.propertyNames(); e.hasMoreElements();) {
-          String prop = (String) e.nextElement();
-
-          fileprops.setProperty(prop, myfileprops.getProperty(prop));
+        if (option.equals("-plan")) {
+          // The run plan is a property file whose properties apply to every phase.
+          props.setProperty(RunPlan.RUN_PLAN_PROPERTY, propfile);
         }
 
+        loadPropertyFile(propfile, fileprops);
       } else if (args[argindex].compareTo("-p") == 0) {
         argindex++;
         if (argindex >= args.length) {
@@ -1114,7 +1198,8 @@ public final class Client {
 
     props = fileprops;
 
-    if (!checkRequiredProperties(props)) {
+    // The workload of each phase of a run plan is checked when the run plan is parsed.
+    if (props.getProperty(RunPlan.RUN_PLAN_PROPERTY) == null && !checkRequiredProperties(props)) {
       System.out.println("Failed check required properties.");
       System.exit(0);
     }
@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.apache.htrace.core.Tracer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Phaser;
+
+/**
+ * Controls the client threads of a running phase: starts them, and lets the target throughput and
+ * the number of threads be changed, or the run be paused, resumed or stopped, while it is running.
+ * <p>
+ * The controls are exposed through JMX when the "control.jmx" property is true. Connect with any JMX
+ * client (e.g. jconsole) to the client process; remote access needs the usual
+ * "com.sun.management.jmxremote" JVM options.
+ */
+public class ClientControl implements ClientControlMBean {
+  /**
+   * Whether or not to register the run control as a JMX MBean.
+   */
+  public static final String CONTROL_JMX_PROPERTY = "control.jmx";
+  public static final String CONTROL_JMX_PROPERTY_DEFAULT = "false";
+
+  /**
+   * The name of the run control MBean.
+   */
+  public static final String OBJECT_NAME = "com.yahoo.ycsb:type=ClientControl";
+
+  private final Properties props;
+  private final Workload workload;
+  private final Tracer tracer;
+  private final Phaser completePhaser;
+  private final Measurements measurements;
+  private final boolean dotransactions;
+  private final boolean bounded;
+
+  // The lists only grow, so that they can be iterated by other threads while threads are added.
+  private final List<ClientThread> clients;
+  private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+  private ObjectName objectName;
+  private int target;
+  private boolean paused;
+  private boolean closed;
+  private long startTimeMs;
+
+  /**
+   * Creates a new run control.
+   *
+   * @param props          The properties of the phase.
+   * @param workload       The workload of the phase.
+   * @param tracer         The tracer of the phase.
+   * @param completePhaser The phaser tracking the completion of all clients.
+   * @param clients        The clients to start.
+   * @param target         The initial target number of operations per second, or 0.
+   */
+  ClientControl(Properties props, Workload workload, Tracer tracer, Phaser completePhaser,
+                List<ClientThread> clients, int target) {
+    this.props = props;
+    this.workload = workload;
+    this.tracer = tracer;
+    this.completePhaser = completePhaser;
+    this.clients = new CopyOnWriteArrayList<>(clients);
+    this.target = Math.max(target, 0);
+    measurements = Measurements.getMeasurements();
+    dotransactions = Boolean.valueOf(props.getProperty(Client.DO_TRANSACTIONS_PROPERTY, String.valueOf(true)));
+    bounded = !dotransactions || Long.parseLong(props.getProperty(Client.OPERATION_COUNT_PROPERTY, "0")) > 0;
+  }
+
+  /**
+   * @return The clients, including those added while running.
+   */
+  List<ClientThread> getClients() {
+    return clients;
+  }
+
+  /**
+   * @return The client threads, including those added while running.
+   */
+  List<Thread> getThreads() {
+    return threads;
+  }
+
+  /**
+   * Starts the client threads, and registers the MBean if enabled.
+   *
+   * @return The time at which the client threads were started.
+   */
+  synchronized long start() {
+    for (ClientThread client : clients) {
+      threads.add(new Thread(tracer.wrap(client, "ClientThread")));
+    }
+    startTimeMs = System.currentTimeMillis();
+    for (Thread t : threads) {
+      t.start();
+    }
+
+    if (Boolean.parseBoolean(props.getProperty(CONTROL_JMX_PROPERTY, CONTROL_JMX_PROPERTY_DEFAULT))) {
+      try {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        objectName = new ObjectName(OBJECT_NAME);
+        server.registerMBean(this, objectName);
+        System.err.println("Run control registered as JMX MBean " + OBJECT_NAME);
+      } catch (JMException e) {
+        System.err.println("Could not register the run control MBean: " + e.getMessage());
+        objectName = null;
+      }
+    }
+    return startTimeMs;
+  }
+
+  /**
+   * Waits for all of the client threads to complete, including those added in the meantime, and
+   * unregisters the MBean. No thread can be added afterwards.
+   */
+  void joinThreads() {
+    int joined = 0;
+    while (true) {
+      final Thread t;
+      synchronized (this) {
+        if (joined == threads.size()) {
+          closed = true;
+          break;
+        }
+        t = threads.get(joined);
+      }
+      try {
+        t.join();
+        joined++;
+      } catch (InterruptedException ignored) {
+        // ignored
+      }
+    }
+
+    if (objectName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      } catch (JMException e) {
+        System.err.println("Could not unregister the run control MBean: " + e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public synchronized int getTarget() {
+    return target;
+  }
+
+  @Override
+  public synchronized void setTarget(int newTarget) {
+    if (newTarget < 0) {
+      throw new IllegalArgumentException("The target must be positive, or 0 for no target");
+    }
+    target = newTarget;
+    spreadTarget();
+    report("Target(ops/sec)", target);
+  }
+
+  @Override
+  public synchronized int getThreadCount() {
+    return getActiveClients().size();
+  }
+
+  @Override
+  public synchronized void addThreads(int count) {
+    if (bounded) {
+      throw new IllegalStateException("Threads can only be added to runs without an "
+          + Client.OPERATION_COUNT_PROPERTY);
+    }
+    if (closed) {
+      throw new IllegalStateException("The run is over");
+    }
+
+    for (int i = 0; i < count; i++) {
+      final DB db;
+      try {
+        db = DBFactory.newDB(Client.getDbName(props), props, tracer);
+      } catch (UnknownDBException e) {
+        throw new IllegalStateException("Unknown DB " + Client.getDbName(props), e);
+      }
+      if (completePhaser.register() < 0) {
+        throw new IllegalStateException("The run is over");
+      }
+
+      final ClientThread client = new ClientThread(db, dotransactions, workload, props, 0, -1, completePhaser);
+      client.setThreadId(clients.size());
+      client.setThreadCount(clients.size() + 1);
+      client.setPaused(paused);
+      clients.add(client);
+      final Thread t = new Thread(tracer.wrap(client, "ClientThread"));
+      threads.add(t);
+      t.start();
+    }
+    spreadTarget();
+    report("Threads", getActiveClients().size());
+  }
+
+  @Override
+  public synchronized void retireThreads(int count) {
+    final List<ClientThread> active = getActiveClients();
+    for (int i = 0; i < count && i < active.size(); i++) {
+      active.get(active.size() - 1 - i).retire();
+    }
+    spreadTarget();
+    report("Threads", getActiveClients().size());
+  }
+
+  @Override
+  public synchronized boolean isPaused() {
+    return paused;
+  }
+
+  @Override
+  public synchronized void pause() {
+    setPaused(true);
+  }
+
+  @Override
+  public synchronized void resume() {
+    setPaused(false);
+  }
+
+  private void setPaused(boolean pause) {
+    paused = pause;
+    for (ClientThread client : clients) {
+      client.setPaused(pause);
+    }
+    report("Paused", pause ? 1 : 0);
+  }
+
+  @Override
+  public long getOperations() {
+    long ops = 0;
+    for (ClientThread client : clients) {
+      ops += client.getOpsDone();
+    }
+    return ops;
+  }
+
+  @Override
+  public synchronized void requestStop() {
+    workload.requestStop();
+    report("StopRequested", 1);
+  }
+
+  private List<ClientThread> getActiveClients() {
+    final List<ClientThread> active = new ArrayList<>(clients.size());
+    for (int i = 0; i < clients.size(); i++) {
+      if (!clients.get(i).isRetired() && (i >= threads.size() || threads.get(i).isAlive())) {
+        active.add(clients.get(i));
+      }
+    }
+    return active;
+  }
+
+  /**
+   * Spreads the target evenly over the running client threads.
+   */
+  private void spreadTarget() {
+    final List<ClientThread> active = getActiveClients();
+    if (active.isEmpty()) {
+      return;
+    }
+    final double targetperthreadperms = target / (double) active.size() / 1000.0;
+    for (ClientThread client : active) {
+      client.setTargetPerThreadPerMs(targetperthreadperms);
+    }
+  }
+
+  private void report(String event, long value) {
+    final long elapsedMs = System.currentTimeMillis() - startTimeMs;
+    System.err.println("[CONTROL] " + elapsedMs + " ms: " + event + " = " + value);
+    measurements.reportControlEvent(elapsedMs + "ms " + event, value);
+  }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+/**
+ * The JMX interface controlling a running client, registered as {@value ClientControl#OBJECT_NAME}
+ * when the "control.jmx" property is true. Every change is reported to the measurements, so that it
+ * shows up in the exported results.
+ */
+public interface ClientControlMBean {
+  /**
+   * @return The target number of operations per second, or 0 if the run is not throttled.
+   */
+  int getTarget();
+
+  /**
+   * Changes the target number of operations per second, spread evenly over the running client
+   * threads.
+   *
+   * @param target The new target, or 0 to stop throttling.
+   */
+  void setTarget(int target);
+
+  /**
+   * @return The number of client threads still running.
+   */
+  int getThreadCount();
+
+  /**
+   * Starts new client threads. Only possible when the run is bounded by time rather than by an
+   * operation count.
+   *
+   * @param count The number of threads to start.
+   */
+  void addThreads(int count);
+
+  /**
+   * Stops client threads after their current operation.
+   *
+   * @param count The number of threads to stop.
+   */
+  void retireThreads(int count);
+
+  /**
+   * @return Whether the client threads are paused.
+   */
+  boolean isPaused();
+
+  /**
+   * Pauses the client threads after their current operation.
+   */
+  void pause();
+
+  /**
+   * Resumes the client threads.
+   */
+  void resume();
+
+  /**
+   * @return The number of operations completed so far.
+   */
+  long getOperations();
+
+  /**
+   * Requests the workload to stop, as if the maximum execution time had elapsed.
+   */
+  void requestStop();
+}
@@ -0,0 +1,362 @@
+/**
+ * Copyright (c) 2010-2016 Yahoo! Inc., 2017 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+import com.yahoo.ycsb.measurements.FlightRecorderEvents;
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A thread for executing transactions or data inserts to the database.
+ */
+class ClientThread implements Runnable {
+  // How often a paused thread checks whether it was resumed.
+  private static final long PAUSE_POLL_NS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  // Each of the clients arrives and deregisters as they complete.
+  private final Phaser completePhaser;
+
+  private static boolean spinSleep;
+  private DB db;
+  private boolean dotransactions;
+  private Workload workload;
+  private long opcount;
+  private double targetOpsPerMs;
+
+  // Only written by the client thread, and published with lazySet for the status thread to read.
+  private volatile long opsdone;
+  private static final AtomicLongFieldUpdater<ClientThread> OPSDONE =
+      AtomicLongFieldUpdater.newUpdater(ClientThread.class, "opsdone");
+  private int threadid;
+  private int threadcount;
+  private Object workloadstate;
+  private Properties props;
+  private volatile long targetOpsTickNs;
+  private final Measurements measurements;
+  private boolean initdb = true;
+  private boolean cleanupdb = true;
+
+  // Run control, see ClientControl. The control fields are only read by the client thread once it
+  // notices a new epoch, so the fast path costs a single volatile read per operation.
+  private volatile int controlEpoch;
+  private volatile boolean paused;
+  private volatile boolean retired;
+  private int seenControlEpoch;
+  private long tickNs;
+  private long throttleStartNs;
+  private long throttleStartOps;
+
+  // The DB, if wrapped by a DBWrapper, to tell the time spent in the DB from the time spent in the workload.
+  private final DBWrapper wrapper;
+  // Client overhead accounting, only when enabled and the DB is wrapped by a DBWrapper.
+  private final DBWrapper overheadDb;
+  // The JFR events emitter, or null if JFR events are not enabled.
+  private final FlightRecorderEvents events;
+  // Whether or not each transaction must be timed, for client overhead accounting or JFR events.
+  private final boolean timeTransactions;
+  private long overheadOps;
+  private long overheadNs;
+  private long allocatedBytesAtStart = -1;
+  // The random stream of this thread, split from the random seed, if any, in the order the threads are created.
+  private final Random random;
+
+  /**
+   * Constructor.
+   *
+   * @param db                   the DB implementation to use
+   * @param dotransactions       true to do transactions, false to insert data
+   * @param workload             the workload to use
+   * @param props                the properties defining the experiment
+   * @param opcount              the number of operations (transactions or inserts) to do
+   * @param targetperthreadperms target number of operations per thread per ms
+   * @param completePhaser       The phaser tracking the completion of all clients.
+   */
+  public ClientThread(DB db, boolean dotransactions, Workload workload, Properties props, long opcount,
+                      double targetperthreadperms, Phaser completePhaser) {
+    this.db = db;
+    this.dotransactions = dotransactions;
+    this.workload = workload;
+    this.opcount = opcount;
+    opsdone = 0;
+    if (targetperthreadperms > 0) {
+      targetOpsPerMs = targetperthreadperms;
+      targetOpsTickNs = (long) (1000000 / targetOpsPerMs);
+    }
+    this.props = props;
+    measurements = Measurements.getMeasurements();
+    spinSleep = Boolean.valueOf(this.props.getProperty("spin.sleep", "false"));
+    boolean trackOverhead = Boolean.parseBoolean(props.getProperty(Measurements.MEASUREMENT_CLIENT_OVERHEAD_PROPERTY,
+        Measurements.MEASUREMENT_CLIENT_OVERHEAD_PROPERTY_DEFAULT));
+    wrapper = db instanceof DBWrapper ? (DBWrapper) db : null;
+    overheadDb = trackOverhead ? wrapper : null;
+    events = measurements.getFlightRecorderEvents();
+    timeTransactions = overheadDb != null || events != null;
+    this.completePhaser = completePhaser;
+    random = Utils.newRandomStream();
+  }
+
+  public void setThreadId(final int threadId) {
+    threadid = threadId;
+  }
+  
+  public void setThreadCount(final int threadCount) {
+    threadcount = threadCount;
+  }
+  
+  /**
+   * Sets whether the DB must be initialized when the thread starts. False when the DB is handed
+   * over, already initialized, by the previous phase of a run plan.
+   */
+  public void setInitDb(final boolean initDb) {
+    initdb = initDb;
+  }
+
+  /**
+   * Sets whether the DB must be cleaned up when the thread completes. False when the DB is handed
+   * over to the next phase of a run plan.
+   */
+  public void setCleanupDb(final boolean cleanupDb) {
+    cleanupdb = cleanupDb;
+  }
+
+  public DB getDb() {
+    return db;
+  }
+
+  /**
+   * Changes the target number of operations per ms of this thread. The throttle is re-anchored at the
+   * time of the change, so the thread neither bursts to catch up nor idles to slow down.
+   *
+   * @param targetperthreadperms The new target, or a non-positive value for no target.
+   */
+  public void setTargetPerThreadPerMs(double targetperthreadperms) {
+    targetOpsTickNs = targetperthreadperms > 0 ? (long) (1000000 / targetperthreadperms) : 0;
+    controlEpoch++;
+  }
+
+  /**
+   * Pauses or resumes this thread after its current operation.
+   */
+  public void setPaused(boolean pause) {
+    paused = pause;
+    controlEpoch++;
+  }
+
+  /**
+   * Stops this thread after its current operation, whatever the work left to do.
+   */
+  public void retire() {
+    retired = true;
+    controlEpoch++;
+  }
+
+  public boolean isRetired() {
+    return retired;
+  }
+
+  public long getOpsDone() {
+    return opsdone;
+  }
+
+  @Override
+  public void run() {
+    Utils.setRandom(random);
+    if (initdb) {
+      try {
+        db.init();
+      } catch (DBException e) {
+        e.printStackTrace();
+        e.printStackTrace(System.out);
+        return;
+      }
+    }
+
+    try {
+      workloadstate = workload.initThread(props, threadid, threadcount);
+    } catch (WorkloadException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+      return;
+    }
+
+    //NOTE: Switching to using nanoTime and parkNanos for time management here such that the measurements
+    // and the client thread have the same view on time.
+
+    //spread the thread operations out so they don't all hit the DB at the same time
+    // GH issue 4 - throws exception if _target>1 because random.nextInt argument must be >0
+    // and the sleep() doesn't make sense for granularities < 1 ms anyway
+    if ((targetOpsPerMs > 0) && (targetOpsPerMs <= 1.0)) {
+      long randomMinorDelay = Utils.random().nextInt((int) targetOpsTickNs);
+      sleepUntil(System.nanoTime() + randomMinorDelay);
+    }
+    try {
+      tickNs = targetOpsTickNs;
+      throttleStartNs = System.nanoTime();
+      throttleStartOps = 0;
+      if (dotransactions) {
+        while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested() && checkControl()) {
+          final Object event = events != null ? events.beginTransaction() : null;
+          final long st = timeTransactions ? System.nanoTime() : 0;
+          final long dbst = timeTransactions && wrapper != null ? wrapper.getDbTimeNs() : 0;
+
+          if (!workload.doTransaction(db, workloadstate)) {
+            break;
+          }
+
+          if (timeTransactions) {
+            measureTransaction(event, st, dbst);
+          }
+
+          OPSDONE.lazySet(this, opsdone + 1);
+
+          throttleNanos();
+        }
+      } else {
+        while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested() && checkControl()) {
+          final Object event = events != null ? events.beginTransaction() : null;
+          final long st = timeTransactions ? System.nanoTime() : 0;
+          final long dbst = timeTransactions && wrapper != null ? wrapper.getDbTimeNs() : 0;
+
+          if (!workload.doInsert(db, workloadstate)) {
+            break;
+          }
+
+          if (timeTransactions) {
+            measureTransaction(event, st, dbst);
+          }
+
+          OPSDONE.lazySet(this, opsdone + 1);
+
+          throttleNanos();
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+      System.exit(0);
+    }
+
+    if (overheadDb != null) {
+      measurements.reportClientOverhead(overheadOps, overheadNs, overheadOps - 1,
+          allocatedBytesAtStart < 0 ? -1 : Utils.getThreadAllocatedBytes() - allocatedBytesAtStart);
+    }
+
+    try {
+      measurements.setIntendedStartTimeNs(0);
+      if (cleanupdb) {
+        db.cleanup();
+      }
+    } catch (DBException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+    } finally {
+      completePhaser.arriveAndDeregister();
+    }
+  }
+
+  /**
+   * Measures the transaction that just completed, for client overhead accounting and JFR events.
+   *
+   * @param event       The JFR event of the transaction, or null.
+   * @param startTimeNs The time at which the transaction started.
+   * @param dbTimeNs    The time spent in the DB before the transaction started.
+   */
+  private void measureTransaction(Object event, long startTimeNs, long dbTimeNs) {
+    final long ns = System.nanoTime() - startTimeNs;
+    final long dbNs = wrapper != null ? wrapper.getDbTimeNs() - dbTimeNs : 0;
+    if (event != null) {
+      events.commitTransaction(event, workload.getClass().getSimpleName(), ns, dbNs);
+    }
+    if (overheadDb != null) {
+      measureOverhead(ns - dbNs);
+    }
+  }
+
+  /**
+   * Measures the time spent in the workload, outside of the DB, by the operation that just completed.
+   *
+   * @param ns The time spent outside of the DB.
+   */
+  private void measureOverhead(long ns) {
+    measurements.measureClientOverheadNanos(ns);
+    if (!measurements.isWarmingUp()) {
+      if (overheadOps == 0) {
+        // Count the allocations from the end of the first operation of the measured window.
+        allocatedBytesAtStart = Utils.getThreadAllocatedBytes();
+      }
+      overheadOps++;
+      overheadNs += ns;
+    }
+  }
+
+  /**
+   * Applies the changes made through the run control since the previous operation, if any.
+   *
+   * @return False if the thread was retired and must stop.
+   */
+  private boolean checkControl() {
+    if (controlEpoch == seenControlEpoch) {
+      return true;
+    }
+    seenControlEpoch = controlEpoch;
+    while (paused && !retired && !workload.isStopRequested()) {
+      LockSupport.parkNanos(PAUSE_POLL_NS);
+      seenControlEpoch = controlEpoch;
+    }
+    // Restart the throttle from now, after a pause or a change of target.
+    tickNs = targetOpsTickNs;
+    throttleStartNs = System.nanoTime();
+    throttleStartOps = opsdone;
+    measurements.setIntendedStartTimeNs(tickNs > 0 ? throttleStartNs : 0);
+    return !retired;
+  }
+
+  private static void sleepUntil(long deadline) {
+    while (System.nanoTime() < deadline) {
+      if (!spinSleep) {
+        LockSupport.parkNanos(deadline - System.nanoTime());
+      }
+    }
+  }
+
+  private void throttleNanos() {
+    //throttle the operations
+    if (tickNs > 0) {
+      // delay until next tick
+      long deadline = throttleStartNs + (opsdone - throttleStartOps) * tickNs;
+      sleepUntil(deadline);
+      measurements.setIntendedStartTimeNs(deadline);
+    }
+  }
+
+  /**
+   * The total amount of work this thread is still expected to do.
+   */
+  long getOpsTodo() {
+    if (retired) {
+      return 0;
+    }
+    long todo = opcount - opsdone;
+    return todo < 0 ? 0 : todo;
+  }
+}
@@ -18,6 +18,9 @@
 package com.yahoo.ycsb;
 
 import java.util.Map;
+import com.yahoo.ycsb.measurements.FlightRecorderEvents;
+import com.yahoo.ycsb.measurements.HotKeyTracker;
+import com.yahoo.ycsb.measurements.MeasurementHandle;
 import com.yahoo.ycsb.measurements.Measurements;
 import org.apache.htrace.core.TraceScope;
 import org.apache.htrace.core.Tracer;
@@ -29,9 +32,74 @@ import java.util.*;
  * Also reports latency separately between OK and failed operations.
  */
 public class DBWrapper extends DB {
+  /**
+   * The measurement handles of an operation, resolved once so that measuring an operation does not
+   * need to build and look up its measurement names.
+   */
+  private final class OperationHandles {
+    private final String op;
+    private final MeasurementHandle ok;
+    private final MeasurementHandle failed;
+    // Only used by the (single) client thread using this instance.
+    private final Map<String, MeasurementHandle> byError = new HashMap<>();
+    private final MeasurementHandle[] bySize = new MeasurementHandle[PAYLOAD_BUCKETS.length + 1];
+
+    private OperationHandles(String op) {
+      this.op = op;
+      ok = measurements.getHandle(op);
+      failed = measurements.getHandle(op + "-FAILED");
+    }
+
+    private MeasurementHandle get(Status result) {
+      if (result != null && result.isOk()) {
+        return ok;
+      }
+      if (result == null || !(reportLatencyForEachError || latencyTrackedErrors.contains(result.getName()))) {
+        return failed;
+      }
+      MeasurementHandle handle = byError.get(result.getName());
+      if (handle == null) {
+        handle = measurements.getHandle(op + "-" + result.getName());
+        byError.put(result.getName(), handle);
+      }
+      return handle;
+    }
+
+    /**
+     * @return The handle of the successful operations of the payload size bucket of the given size, e.g.
+     * "READ-UPTO-4KB" for payloads of 1 to 4KB, or "READ-OVER-1MB".
+     */
+    private MeasurementHandle get(long payloadBytes) {
+      int bucket = 0;
+      while (bucket < PAYLOAD_BUCKETS.length && payloadBytes > PAYLOAD_BUCKETS[bucket]) {
+        bucket++;
+      }
+      MeasurementHandle handle = bySize[bucket];
+      if (handle == null) {
+        handle = measurements.getHandle(bucket < PAYLOAD_BUCKETS.length
+            ? op + "-UPTO-" + PAYLOAD_BUCKET_NAMES[bucket]
+            : op + "-OVER-" + PAYLOAD_BUCKET_NAMES[bucket - 1]);
+        bySize[bucket] = handle;
+      }
+      return handle;
+    }
+  }
+
+  // The upper bounds of the payload size buckets, when payload accounting is enabled.
+  private static final long[] PAYLOAD_BUCKETS = {256, 1 << 10, 4 << 10, 16 << 10, 64 << 10, 256 << 10, 1 << 20};
+  private static final String[] PAYLOAD_BUCKET_NAMES = {"256B", "1KB", "4KB", "16KB", "64KB", "256KB", "1MB"};
+
   private final DB db;
   private final Measurements measurements;
   private final Tracer tracer;
+  // The heaviest keys accessed through this instance, or null if not tracked.
+  private final HotKeyTracker hotKeys;
+  private final boolean trackPayload;
+  // The JFR events emitter, or null if JFR events are not enabled.
+  private final FlightRecorderEvents events;
+
+  // The time spent in the wrapped DB by the (single) client thread using this instance.
+  private long dbTimeNs = 0;
 
   private boolean reportLatencyForEachError = false;
   private Set<String> latencyTrackedErrors = new HashSet<String>();
@@ -49,10 +117,20 @@ public class DBWrapper extends DB {
   private final String scopeStringScan;
   private final String scopeStringUpdate;
 
+  private final OperationHandles cleanupHandles;
+  private final OperationHandles deleteHandles;
+  private final OperationHandles insertHandles;
+  private final OperationHandles readHandles;
+  private final OperationHandles scanHandles;
+  private final OperationHandles updateHandles;
+
   public DBWrapper(final DB db, final Tracer tracer) {
     this.db = db;
     measurements = Measurements.getMeasurements();
     this.tracer = tracer;
+    hotKeys = measurements.newHotKeyTracker();
+    trackPayload = measurements.isTrackingPayload();
+    events = measurements.getFlightRecorderEvents();
     final String simple = db.getClass().getSimpleName();
     scopeStringCleanup = simple + "#cleanup";
     scopeStringDelete = simple + "#delete";
@@ -61,6 +139,12 @@ public class DBWrapper extends DB {
     scopeStringRead = simple + "#read";
     scopeStringScan = simple + "#scan";
     scopeStringUpdate = simple + "#update";
+    cleanupHandles = new OperationHandles("CLEANUP");
+    deleteHandles = new OperationHandles("DELETE");
+    insertHandles = new OperationHandles("INSERT");
+    readHandles = new OperationHandles("READ");
+    scanHandles = new OperationHandles("SCAN");
+    updateHandles = new OperationHandles("UPDATE");
   }
 
   /**
@@ -77,6 +161,14 @@ public class DBWrapper extends DB {
     return db.getProperties();
   }
 
+  /**
+   * @return The total time (ns) spent in the wrapped DB so far. Only meant to be read by the client
+   * thread using this instance, to tell the time spent in the workload from the time spent in the DB.
+   */
+  public long getDbTimeNs() {
+    return dbTimeNs;
+  }
+
   /**
    * Initialize any state for this DB.
    * Called once per DB instance; there is one DB instance per client thread.
@@ -113,7 +205,7 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       db.cleanup();
       long en = System.nanoTime();
-      measure("CLEANUP", Status.OK, ist, st, en);
+      measure(cleanupHandles, null, Status.OK, ist, st, en);
     }
   }
 
@@ -130,12 +222,20 @@ public class DBWrapper extends DB {
   public Status read(String table, String key, Set<String> fields,
                      Map<String, ByteIterator> result) {
     try (final TraceScope span = tracer.newScope(scopeStringRead)) {
+      final Object event = events == null ? null : events.beginOperation();
       long ist = measurements.getIntendedtartTimeNs();
       long st = System.nanoTime();
       Status res = db.read(table, key, fields, result);
       long en = System.nanoTime();
-      measure("READ", res, ist, st, en);
-      measurements.reportStatus("READ", res);
+      measure(readHandles, key, res, ist, st, en);
+      measurements.reportStatus(readHandles.ok, res);
+      final long received = trackPayload ? bytes(result) : 0;
+      if (trackPayload) {
+        measurePayload(readHandles, res, st, en, 0, received);
+      }
+      if (event != null) {
+        events.commitOperation(event, readHandles.op, table, key, res, en - st, received);
+      }
       return res;
     }
   }
@@ -154,31 +254,60 @@ public class DBWrapper extends DB {
   public Status scan(String table, String startkey, int recordcount,
                      Set<String> fields, Vector<HashMap<String, ByteIterator>> result) {
     try (final TraceScope span = tracer.newScope(scopeStringScan)) {
+      final Object event = events == null ? null : events.beginOperation();
       long ist = measurements.getIntendedtartTimeNs();
       long st = System.nanoTime();
       Status res = db.scan(table, startkey, recordcount, fields, result);
       long en = System.nanoTime();
-      measure("SCAN", res, ist, st, en);
-      measurements.reportStatus("SCAN", res);
+      measure(scanHandles, startkey, res, ist, st, en);
+      measurements.reportStatus(scanHandles.ok, res);
+      long received = 0;
+      if (trackPayload) {
+        for (HashMap<String, ByteIterator> record : result) {
+          received += bytes(record);
+        }
+        measurePayload(scanHandles, res, st, en, 0, received);
+      }
+      if (event != null) {
+        events.commitOperation(event, scanHandles.op, table, startkey, res, en - st, received);
+      }
       return res;
     }
   }
 
-  private void measure(String op, Status result, long intendedStartTimeNanos,
+  private void measure(OperationHandles handles, String key, Status result, long intendedStartTimeNanos,
                        long startTimeNanos, long endTimeNanos) {
-    String measurementName = op;
-    if (result == null || !result.isOk()) {
-      if (this.reportLatencyForEachError ||
-          this.latencyTrackedErrors.contains(result.getName())) {
-        measurementName = op + "-" + result.getName();
-      } else {
-        measurementName = op + "-FAILED";
+    dbTimeNs += endTimeNanos - startTimeNanos;
+    final MeasurementHandle handle = handles.get(result);
+    measurements.measureOperationNanos(handle, endTimeNanos - startTimeNanos);
+    measurements.measureOperationIntendedNanos(handle, endTimeNanos - intendedStartTimeNanos);
+    if (hotKeys != null && key != null) {
+      measurements.measureKey(hotKeys, key, endTimeNanos - startTimeNanos, result);
+    }
+  }
+
+  /**
+   * Count the payload bytes of an operation, and measure its latency by payload size if it succeeded.
+   */
+  private void measurePayload(OperationHandles handles, Status result, long startTimeNanos, long endTimeNanos,
+                              long bytesSent, long bytesReceived) {
+    measurements.reportPayload(handles.ok, bytesSent, bytesReceived);
+    if (result != null && result.isOk()) {
+      measurements.measureNanos(handles.get(bytesSent + bytesReceived), endTimeNanos - startTimeNanos);
+    }
+  }
+
+  /**
+   * @return The number of bytes of the values of a record.
+   */
+  private static long bytes(Map<String, ByteIterator> values) {
+    long bytes = 0;
+    for (ByteIterator value : values.values()) {
+      if (value != null) {
+        bytes += value.bytesLeft();
       }
     }
-    measurements.measure(measurementName,
-        (int) ((endTimeNanos - startTimeNanos) / 1000));
-    measurements.measureIntended(measurementName,
-        (int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
+    return bytes;
   }
 
   /**
@@ -193,12 +322,21 @@ public class DBWrapper extends DB {
   public Status update(String table, String key,
                        Map<String, ByteIterator> values) {
     try (final TraceScope span = tracer.newScope(scopeStringUpdate)) {
+      // Values are consumed by the DB, so their size is taken beforehand.
+      final long sent = trackPayload ? bytes(values) : 0;
+      final Object event = events == null ? null : events.beginOperation();
       long ist = measurements.getIntendedtartTimeNs();
       long st = System.nanoTime();
       Status res = db.update(table, key, values);
       long en = System.nanoTime();
-      measure("UPDATE", res, ist, st, en);
-      measurements.reportStatus("UPDATE", res);
+      measure(updateHandles, key, res, ist, st, en);
+      measurements.reportStatus(updateHandles.ok, res);
+      if (trackPayload) {
+        measurePayload(updateHandles, res, st, en, sent, 0);
+      }
+      if (event != null) {
+        events.commitOperation(event, updateHandles.op, table, key, res, en - st, sent);
+      }
       return res;
     }
   }
@@ -216,12 +354,21 @@ public class DBWrapper extends DB {
   public Status insert(String table, String key,
                        Map<String, ByteIterator> values) {
     try (final TraceScope span = tracer.newScope(scopeStringInsert)) {
+      // Values are consumed by the DB, so their size is taken beforehand.
+      final long sent = trackPayload ? bytes(values) : 0;
+      final Object event = events == null ? null : events.beginOperation();
       long ist = measurements.getIntendedtartTimeNs();
       long st = System.nanoTime();
       Status res = db.insert(table, key, values);
       long en = System.nanoTime();
-      measure("INSERT", res, ist, st, en);
-      measurements.reportStatus("INSERT", res);
+      measure(insertHandles, key, res, ist, st, en);
+      measurements.reportStatus(insertHandles.ok, res);
+      if (trackPayload) {
+        measurePayload(insertHandles, res, st, en, sent, 0);
+      }
+      if (event != null) {
+        events.commitOperation(event, insertHandles.op, table, key, res, en - st, sent);
+      }
       return res;
     }
   }
@@ -235,12 +382,16 @@ public class DBWrapper extends DB {
    */
   public Status delete(String table, String key) {
     try (final TraceScope span = tracer.newScope(scopeStringDelete)) {
+      final Object event = events == null ? null : events.beginOperation();
       long ist = measurements.getIntendedtartTimeNs();
       long st = System.nanoTime();
       Status res = db.delete(table, key);
       long en = System.nanoTime();
-      measure("DELETE", res, ist, st, en);
-      measurements.reportStatus("DELETE", res);
+      measure(deleteHandles, key, res, ist, st, en);
+      measurements.reportStatus(deleteHandles.ok, res);
+      if (event != null) {
+        events.commitOperation(event, deleteHandles.op, table, key, res, en - st, 0);
+      }
       return res;
     }
   }
@@ -22,7 +22,6 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.Vector;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -44,7 +43,7 @@ public class GoodBadUglyDB extends DB {
   }
 
   private void delay() {
-    final Random random = ThreadLocalRandom.current();
+    final Random random = Utils.random();
     double p = random.nextDouble();
     int mod;
     if (p < 0.9) {
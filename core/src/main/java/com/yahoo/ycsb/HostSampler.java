@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Samples the resources of the client host from the Linux /proc file system at every status interval,
+ * and records their use during the interval as measurements, next to the latencies:
+ * <ul>
+ * <li>HOST_CPU_BUSY_PCT, HOST_CPU_SOFTIRQ_PCT and HOST_CPU&lt;n&gt;_BUSY_PCT: the CPU use, overall and
+ * by core;</li>
+ * <li>HOST_NET_RX_KB, HOST_NET_TX_KB, HOST_NET_RX_PACKETS and HOST_NET_TX_PACKETS: the network traffic
+ * of all the interfaces but the loopback;</li>
+ * <li>HOST_DISK_READ_KB, HOST_DISK_WRITE_KB, HOST_DISK_READS and HOST_DISK_WRITES: the I/O of the
+ * block devices;</li>
+ * <li>HOST_CTXT_VOLUNTARY and HOST_CTXT_INVOLUNTARY: the context switches of the client process.</li>
+ * </ul>
+ * Each sample also checks whether the client host itself is likely to be the bottleneck of the run,
+ * i.e. whether its CPU, one of its cores or one of its network interfaces is saturated.
+ */
+final class HostSampler {
+  // The use of the CPU or a core, in percent, above which the client host is considered saturated.
+  private static final int CPU_SATURATION_PCT = 90;
+  private static final int CORE_SATURATION_PCT = 95;
+  // The use of a network interface, in percent of its link speed, above which it is considered saturated.
+  private static final int NIC_SATURATION_PCT = 90;
+  private static final int SECTOR_BYTES = 512;
+
+  private final File proc;
+  private final File sys;
+
+  // The counters of the previous sample, by name, e.g. "cpu3.busy" or "eth0.rxbytes".
+  private Map<String, Long> last;
+
+  /**
+   * @param proc The root of the proc file system, e.g. /proc.
+   * @param sys  The root of the sys file system, e.g. /sys, for the link speeds and block devices.
+   */
+  HostSampler(File proc, File sys) {
+    this.proc = proc;
+    this.sys = sys;
+  }
+
+  /**
+   * @return Whether or not the host resources can be sampled, i.e. whether the host runs Linux.
+   */
+  static boolean isSupported() {
+    return new File("/proc/stat").canRead();
+  }
+
+  /**
+   * Sample the host resources, and record their use since the previous sample.
+   *
+   * @param measurements The measurements to record to.
+   * @param intervalMs   The time since the previous sample.
+   * @return The reasons why the client host is likely to be the bottleneck, if any.
+   */
+  List<String> sample(Measurements measurements, long intervalMs) throws IOException {
+    final Map<String, Long> current = new HashMap<>();
+    final List<String> cores = readCpu(current);
+    final List<String> interfaces = readNetwork(current);
+    readDisks(current);
+    readContextSwitches(current);
+
+    final List<String> warnings = new ArrayList<>();
+    final Map<String, Long> previous = last;
+    last = current;
+    if (previous == null || intervalMs <= 0) {
+      return warnings;
+    }
+
+    final int busy = percent(delta(current, previous, "cpu.busy"), delta(current, previous, "cpu.total"));
+    measurements.measureGauge("HOST_CPU_BUSY_PCT", busy);
+    measurements.measureGauge("HOST_CPU_SOFTIRQ_PCT",
+        percent(delta(current, previous, "cpu.softirq"), delta(current, previous, "cpu.total")));
+    if (busy >= CPU_SATURATION_PCT) {
+      warnings.add("CPU " + busy + "% busy");
+    }
+    for (String core : cores) {
+      final int coreBusy = percent(delta(current, previous, core + ".busy"), delta(current, previous, core + ".total"));
+      measurements.measureGauge("HOST_" + core.toUpperCase() + "_BUSY_PCT", coreBusy);
+      if (coreBusy >= CORE_SATURATION_PCT && busy < CPU_SATURATION_PCT) {
+        warnings.add(core + " " + coreBusy + "% busy");
+      }
+    }
+
+    long rxBytes = 0;
+    long txBytes = 0;
+    long rxPackets = 0;
+    long txPackets = 0;
+    for (String nic : interfaces) {
+      final long rx = delta(current, previous, nic + ".rxbytes");
+      final long tx = delta(current, previous, nic + ".txbytes");
+      rxBytes += rx;
+      txBytes += tx;
+      rxPackets += delta(current, previous, nic + ".rxpackets");
+      txPackets += delta(current, previous, nic + ".txpackets");
+      final long speedMbps = readLong(new File(sys, "class/net/" + nic + "/speed"));
+      if (speedMbps > 0) {
+        // Bytes over the interval, against the link speed in Mb/s.
+        final long capacityBytes = speedMbps * 1000000 / 8 * intervalMs / 1000;
+        final int use = percent(Math.max(rx, tx), capacityBytes);
+        if (use >= NIC_SATURATION_PCT) {
+          warnings.add(nic + " " + use + "% of " + speedMbps + "Mb/s");
+        }
+      }
+    }
+    measurements.measureGauge("HOST_NET_RX_KB", rxBytes / 1024);
+    measurements.measureGauge("HOST_NET_TX_KB", txBytes / 1024);
+    measurements.measureGauge("HOST_NET_RX_PACKETS", rxPackets);
+    measurements.measureGauge("HOST_NET_TX_PACKETS", txPackets);
+
+    measurements.measureGauge("HOST_DISK_READ_KB",
+        delta(current, previous, "disk.readsectors") * SECTOR_BYTES / 1024);
+    measurements.measureGauge("HOST_DISK_WRITE_KB",
+        delta(current, previous, "disk.writesectors") * SECTOR_BYTES / 1024);
+    measurements.measureGauge("HOST_DISK_READS", delta(current, previous, "disk.reads"));
+    measurements.measureGauge("HOST_DISK_WRITES", delta(current, previous, "disk.writes"));
+
+    measurements.measureGauge("HOST_CTXT_VOLUNTARY", delta(current, previous, "ctxt.voluntary"));
+    measurements.measureGauge("HOST_CTXT_INVOLUNTARY", delta(current, previous, "ctxt.involuntary"));
+    return warnings;
+  }
+
+  /**
+   * @return The increase of a counter since the previous sample. Counters may decrease, e.g. when
+   * threads exit, in which case the increase is 0.
+   */
+  private static long delta(Map<String, Long> current, Map<String, Long> previous, String name) {
+    final Long now = current.get(name);
+    final Long before = previous.get(name);
+    if (now == null || before == null) {
+      return 0;
+    }
+    return Math.max(0, now - before);
+  }
+
+  private static int percent(long part, long total) {
+    return total <= 0 ? 0 : (int) Math.min(100, 100 * part / total);
+  }
+
+  /**
+   * Read the time spent by the CPU and each core, from /proc/stat.
+   *
+   * @return The names of the cores, e.g. "cpu0".
+   */
+  private List<String> readCpu(Map<String, Long> counters) throws IOException {
+    final List<String> cores = new ArrayList<>();
+    for (String line : readLines(new File(proc, "stat"))) {
+      if (!line.startsWith("cpu")) {
+        continue;
+      }
+      // cpu user nice system idle iowait irq softirq steal ...
+      final String[] fields = line.trim().split("\\s+");
+      long total = 0;
+      for (int i = 1; i < fields.length && i <= 8; i++) {
+        total += Long.parseLong(fields[i]);
+      }
+      final long idle = Long.parseLong(fields[4]) + (fields.length > 5 ? Long.parseLong(fields[5]) : 0);
+      counters.put(fields[0] + ".total", total);
+      counters.put(fields[0] + ".busy", total - idle);
+      if (fields.length > 7) {
+        counters.put(fields[0] + ".softirq", Long.parseLong(fields[7]));
+      }
+      if (!"cpu".equals(fields[0])) {
+        cores.add(fields[0]);
+      }
+    }
+    return cores;
+  }
+
+  /**
+   * Read the traffic of the network interfaces but the loopback, from /proc/net/dev.
+   *
+   * @return The names of the interfaces.
+   */
+  private List<String> readNetwork(Map<String, Long> counters) throws IOException {
+    final List<String> interfaces = new ArrayList<>();
+    for (String line : readLines(new File(proc, "net/dev"))) {
+      final int colon = line.indexOf(':');
+      if (colon < 0) {
+        continue;
+      }
+      final String nic = line.substring(0, colon).trim();
+      if ("lo".equals(nic)) {
+        continue;
+      }
+      // rxbytes rxpackets errs drop fifo frame compressed multicast txbytes txpackets ...
+      final String[] fields = line.substring(colon + 1).trim().split("\\s+");
+      counters.put(nic + ".rxbytes", Long.parseLong(fields[0]));
+      counters.put(nic + ".rxpackets", Long.parseLong(fields[1]));
+      counters.put(nic + ".txbytes", Long.parseLong(fields[8]));
+      counters.put(nic + ".txpackets", Long.parseLong(fields[9]));
+      interfaces.add(nic);
+    }
+    return interfaces;
+  }
+
+  /**
+   * Read the I/O of the block devices, but not of their partitions, from /proc/diskstats.
+   */
+  private void readDisks(Map<String, Long> counters) throws IOException {
+    long reads = 0;
+    long readSectors = 0;
+    long writes = 0;
+    long writeSectors = 0;
+    for (String line : readLines(new File(proc, "diskstats"))) {
+      // major minor name reads merged sectors ms writes merged sectors ...
+      final String[] fields = line.trim().split("\\s+");
+      if (fields.length < 10 || fields[2].startsWith("loop") || fields[2].startsWith("ram")
+          || !new File(sys, "block/" + fields[2]).exists()) {
+        continue;
+      }
+      reads += Long.parseLong(fields[3]);
+      readSectors += Long.parseLong(fields[5]);
+      writes += Long.parseLong(fields[7]);
+      writeSectors += Long.parseLong(fields[9]);
+    }
+    counters.put("disk.reads", reads);
+    counters.put("disk.readsectors", readSectors);
+    counters.put("disk.writes", writes);
+    counters.put("disk.writesectors", writeSectors);
+  }
+
+  /**
+   * Read the context switches of the threads of the client process, from their status in /proc/self/task.
+   */
+  private void readContextSwitches(Map<String, Long> counters) throws IOException {
+    long voluntary = 0;
+    long involuntary = 0;
+    final File[] tasks = new File(proc, "self/task").listFiles();
+    if (tasks != null) {
+      for (File task : tasks) {
+        for (String line : readLines(new File(task, "status"))) {
+          if (line.startsWith("voluntary_ctxt_switches:")) {
+            voluntary += Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+          } else if (line.startsWith("nonvoluntary_ctxt_switches:")) {
+            involuntary += Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+          }
+        }
+      }
+    }
+    counters.put("ctxt.voluntary", voluntary);
+    counters.put("ctxt.involuntary", involuntary);
+  }
+
+  /**
+   * @return The lines of a file, or none if it does not exist, e.g. the status of a thread that exited.
+   */
+  private static List<String> readLines(File file) throws IOException {
+    if (!file.exists()) {
+      return new ArrayList<>();
+    }
+    try {
+      return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return new ArrayList<>();
+    }
+  }
+
+  /**
+   * @return The number in a file, or -1 if it could not be read, e.g. the speed of a virtual interface.
+   */
+  private static long readLong(File file) {
+    try {
+      final List<String> lines = readLines(file);
+      return lines.isEmpty() ? -1 : Long.parseLong(lines.get(0).trim());
+    } catch (IOException | NumberFormatException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A ByteIterator over a slice of a {@link BytePool}, whose bytes are copied with {@link System#arraycopy} rather
+ * than generated. DB bindings that write ByteBuffers can also get the value with {@link #asByteBuffer()} without
+ * copying it.
+ */
+public class PooledByteIterator extends ByteIterator {
+  private final byte[] pool;
+  private final int start;
+  private final long len;
+  private long off;
+
+  PooledByteIterator(BytePool pool, int start, long len) {
+    this.pool = pool.bytes();
+    this.start = start;
+    this.len = len;
+    this.off = 0;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return off < len;
+  }
+
+  @Override
+  public byte nextByte() {
+    final byte b = pool[position()];
+    off++;
+    return b;
+  }
+
+  // The offset in the pool of the next byte.
+  private int position() {
+    return (int) ((start + off) % pool.length);
+  }
+
+  @Override
+  public int nextBuf(byte[] buffer, int bufOffset) {
+    int copied = (int) Math.min(len - off, buffer.length - bufOffset);
+    int to = bufOffset;
+    while (copied > 0) {
+      final int from = position();
+      final int chunk = Math.min(copied, pool.length - from);
+      System.arraycopy(pool, from, buffer, to, chunk);
+      off += chunk;
+      to += chunk;
+      copied -= chunk;
+    }
+    return to;
+  }
+
+  @Override
+  public long bytesLeft() {
+    return len - off;
+  }
+
+  @Override
+  public void reset() {
+    off = 0;
+  }
+
+  /**
+   * Consumes the remaining bytes, and returns them as a read-only ByteBuffer. The buffer is a view of the pool,
+   * without copying, unless the value is longer than the pool and wraps around it.
+   */
+  public ByteBuffer asByteBuffer() {
+    final long left = len - off;
+    final int from = position();
+    if (from + left <= pool.length) {
+      off = len;
+      return ByteBuffer.wrap(pool, from, (int) left).slice().asReadOnlyBuffer();
+    }
+    return ByteBuffer.wrap(toArray()).asReadOnlyBuffer();
+  }
+}
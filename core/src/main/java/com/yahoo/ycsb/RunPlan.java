@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * An ordered list of phases (e.g. load, warm-up and several workloads) executed one after the other
+ * by a single client process.
+ * <p>
+ * A run plan is a property file given with the "-plan" option. Its properties apply to every phase,
+ * in addition to those given on the command line. The "phases" property lists the phases in order,
+ * and the properties of a single phase are prefixed with "phase.&lt;name&gt;.", e.g.
+ * <pre>
+ * phases=load,run
+ * phase.load.dotransactions=false
+ * phase.load.threadcount=16
+ * phase.run.propertyfiles=workloads/workloada
+ * phase.run.operationcount=1000000
+ * phase.run.target=5000
+ * </pre>
+ * The files listed in "phase.&lt;name&gt;.propertyfiles" are loaded in order, and are overridden by
+ * the properties of the plan and of the command line, which are in turn overridden by the other
+ * properties of the phase.
+ * <p>
+ * Consecutive phases using the same DB class share their DB instances, so connections are kept
+ * open between them. The measurement settings (e.g. "measurementtype") are those of the plan and
+ * apply to every phase.
+ */
+final class RunPlan {
+  /**
+   * The path of the run plan file.
+   */
+  public static final String RUN_PLAN_PROPERTY = "runplan";
+
+  /**
+   * The comma separated, ordered list of phase names.
+   */
+  public static final String PHASES_PROPERTY = "phases";
+
+  /**
+   * The prefix of the properties specific to a single phase.
+   */
+  public static final String PHASE_PROPERTY_PREFIX = "phase.";
+
+  /**
+   * The comma separated list of property files loaded for a single phase, e.g. "phase.run.propertyfiles".
+   */
+  public static final String PHASE_PROPERTY_FILES_PROPERTY = "propertyfiles";
+
+  /**
+   * Whether or not DB instances are reused by the next phase when it uses the same DB class.
+   */
+  public static final String REUSE_DB_PROPERTY = "runplan.reusedb";
+  public static final String REUSE_DB_PROPERTY_DEFAULT = "true";
+
+  /**
+   * A single phase of a run plan.
+   */
+  static final class Phase {
+    private final String name;
+    private final Properties props;
+
+    Phase(String name, Properties props) {
+      this.name = name;
+      this.props = props;
+    }
+
+    /**
+     * @return The name of the phase, or the empty string if the run is not a run plan.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return The properties of the phase.
+     */
+    public Properties getProperties() {
+      return props;
+    }
+  }
+
+  private RunPlan() {
+    // not used
+  }
+
+  /**
+   * Returns the phases to execute. A run without a run plan is a single phase with an empty name.
+   *
+   * @param props The properties of the run, including those of the run plan file.
+   * @return The phases to execute, in order.
+   * @throws IOException              if a property file of a phase cannot be read.
+   * @throws IllegalArgumentException if the run plan is invalid.
+   */
+  static List<Phase> getPhases(Properties props) throws IOException {
+    if (props.getProperty(RUN_PLAN_PROPERTY) == null) {
+      return Collections.singletonList(new Phase("", props));
+    }
+
+    final String phasesStr = props.getProperty(PHASES_PROPERTY, "").trim();
+    if (phasesStr.isEmpty()) {
+      throw new IllegalArgumentException("Missing property " + PHASES_PROPERTY + " in run plan "
+          + props.getProperty(RUN_PLAN_PROPERTY));
+    }
+
+    final List<Phase> phases = new ArrayList<>();
+    for (String name : phasesStr.split(",")) {
+      name = name.trim();
+      for (Phase phase : phases) {
+        if (phase.getName().equals(name)) {
+          throw new IllegalArgumentException("Phase " + name + " is listed twice in " + PHASES_PROPERTY);
+        }
+      }
+      phases.add(new Phase(name, getPhaseProperties(props, name)));
+    }
+    return phases;
+  }
+
+  private static Properties getPhaseProperties(Properties props, String name) throws IOException {
+    final String prefix = PHASE_PROPERTY_PREFIX + name + ".";
+
+    // The files of the phase come first, and are overridden by the properties of the plan and of the
+    // command line, as -p overrides -P, then by the properties of the phase.
+    Properties phaseprops = new Properties();
+    String files = props.getProperty(prefix + PHASE_PROPERTY_FILES_PROPERTY);
+    if (files != null) {
+      for (String file : files.split(",")) {
+        Properties fileprops = new Properties();
+        try (InputStream in = new FileInputStream(file.trim())) {
+          fileprops.load(in);
+        }
+        phaseprops.putAll(fileprops);
+      }
+    }
+
+    for (String key : props.stringPropertyNames()) {
+      if (!key.startsWith(PHASE_PROPERTY_PREFIX)) {
+        phaseprops.setProperty(key, props.getProperty(key));
+      }
+    }
+
+    boolean hasExportFile = false;
+    for (String key : props.stringPropertyNames()) {
+      if (key.startsWith(prefix) && !key.equals(prefix + PHASE_PROPERTY_FILES_PROPERTY)) {
+        String phasekey = key.substring(prefix.length());
+        phaseprops.setProperty(phasekey, props.getProperty(key));
+        hasExportFile |= phasekey.equals(Client.EXPORT_FILE_PROPERTY);
+      }
+    }
+
+    // Keep the phases from overwriting each other's results.
+    String exportFile = props.getProperty(Client.EXPORT_FILE_PROPERTY);
+    if (exportFile != null && !hasExportFile) {
+      phaseprops.setProperty(Client.EXPORT_FILE_PROPERTY, exportFile + "." + name);
+    }
+
+    if (phaseprops.getProperty(Client.WORKLOAD_PROPERTY) == null) {
+      throw new IllegalArgumentException("Missing property " + Client.WORKLOAD_PROPERTY + " for phase " + name);
+    }
+    return phaseprops;
+  }
+
+  /**
+   * Returns the number of DB instances of a phase that the next phase reuses, i.e. that must not be
+   * cleaned up at the end of the phase.
+   *
+   * @param props     The properties of the phase.
+   * @param nextprops The properties of the next phase, or null if it is the last phase.
+   * @return The number of DB instances to hand over to the next phase.
+   */
+  static int getReusedDbCount(Properties props, Properties nextprops) {
+    if (nextprops == null
+        || !Boolean.parseBoolean(nextprops.getProperty(REUSE_DB_PROPERTY, REUSE_DB_PROPERTY_DEFAULT))
+        || !Client.getDbName(props).equals(Client.getDbName(nextprops))) {
+      return 0;
+    }
+    return Math.min(Client.getThreadCount(props), Client.getThreadCount(nextprops));
+  }
+}
@@ -20,9 +20,12 @@ package com.yahoo.ycsb;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -33,6 +36,102 @@ public final class Utils {
     // not used
   }
 
+  // The root of the random streams of the threads when a seed is set, null otherwise.
+  private static SplittableRandom seededRoot = null;
+  private static volatile boolean seeded = false;
+  private static final ThreadLocal<Random> SEEDED_RANDOM = ThreadLocal.withInitial(Utils::newRandomStream);
+
+  /**
+   * Returns the random number generator of the calling thread, to be used by all the generators, workloads and
+   * DBs. It is {@link ThreadLocalRandom} unless a seed was set with {@link #setRandomSeed(long)}, in which case each
+   * thread has its own stream, split from the seed, so that runs with the same seed are reproducible per thread.
+   * <p>
+   * The generator is only to be used by the calling thread, and must not be cached across threads.
+   */
+  public static Random random() {
+    return seeded ? SEEDED_RANDOM.get() : ThreadLocalRandom.current();
+  }
+
+  /**
+   * Seeds the random streams of the threads. The calling thread gets the first stream split from the seed; other
+   * threads either install the stream they are handed with {@link #setRandom(Random)} or get the next one the first
+   * time they call {@link #random()}.
+   */
+  public static synchronized void setRandomSeed(long seed) {
+    seededRoot = new SplittableRandom(seed);
+    seeded = true;
+    SEEDED_RANDOM.set(newRandomStream());
+  }
+
+  /**
+   * Goes back to unseeded random numbers, e.g. between tests.
+   */
+  public static synchronized void clearRandomSeed() {
+    seeded = false;
+    seededRoot = null;
+    SEEDED_RANDOM.remove();
+  }
+
+  /**
+   * Returns a new random stream, split from the seed, for a thread to install with {@link #setRandom(Random)}.
+   * Streams handed out in the same order, e.g. by the main thread to the client threads, are the same across runs
+   * with the same seed. Returns {@link ThreadLocalRandom} when no seed is set.
+   */
+  public static synchronized Random newRandomStream() {
+    return seededRoot == null ? ThreadLocalRandom.current() : new SplittableRandomAdapter(seededRoot.split());
+  }
+
+  /**
+   * Installs the random stream of the calling thread, as returned by {@link #newRandomStream()}.
+   */
+  public static void setRandom(Random random) {
+    SEEDED_RANDOM.set(random);
+  }
+
+  /**
+   * A {@link Random} drawing from a {@link SplittableRandom}, without the synchronization of Random.
+   */
+  private static final class SplittableRandomAdapter extends Random {
+    private static final long serialVersionUID = 1L;
+
+    private final SplittableRandom random;
+
+    SplittableRandomAdapter(SplittableRandom random) {
+      super(0L);
+      this.random = random;
+    }
+
+    @Override
+    protected int next(int bits) {
+      return (int) (random.nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt() {
+      return random.nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+      return random.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+      return random.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+      return random.nextDouble();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+      return random.nextBoolean();
+    }
+  }
+
   /**
    * Hash an integer value.
    */
@@ -158,6 +257,20 @@ public final class Utils {
     return osBean.getSystemLoadAverage();
   }
 
+  /** @return The number of bytes allocated so far by the current thread if supported by the JDK.
+   * If it's not supported, the value will be negative. */
+  public static long getThreadAllocatedBytes() {
+    final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    final com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+    if (!sunThreadBean.isThreadAllocatedMemorySupported() || !sunThreadBean.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    return sunThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
   /** @return The total number of garbage collections executed for all
    * memory pools. */
   public static long getGCTotalCollectionCount() {
@@ -222,7 +335,7 @@ public final class Utils {
    */
   public static <T> T [] shuffleArray(final T[] array) {
     for (int i = array.length -1; i > 0; i--) {
-      final int idx = ThreadLocalRandom.current().nextInt(i + 1);
+      final int idx = random().nextInt(i + 1);
       final T temp = array[idx];
       array[idx] = array[i];
       array[i] = temp;
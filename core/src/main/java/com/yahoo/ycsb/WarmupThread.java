@@ -0,0 +1,311 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread that ends the warm-up phase of a run. While the warm-up phase lasts, measurements are
+ * routed away from the measured window (see {@link Measurements#startWarmup()}) so that JIT
+ * compilation, connection establishment and cold caches do not pollute the reported latencies.
+ * <p>
+ * The length of the warm-up phase is given by the "warmup" property, which is either:
+ * <ul>
+ * <li>a duration, e.g. "30" or "30s" (seconds), "500ms", "5m" or "1h",</li>
+ * <li>an operation count, e.g. "100000ops", or</li>
+ * <li>"auto", in which case the warm-up ends once the interval throughput and the interval average
+ * latency have both settled, i.e. their coefficient of variation over the last
+ * "warmup.auto.window" intervals is below "warmup.auto.tolerance".</li>
+ * </ul>
+ */
+class WarmupThread extends Thread {
+  /**
+   * The length of the warm-up phase. Unset means no warm-up phase.
+   */
+  public static final String WARMUP_PROPERTY = "warmup";
+
+  /**
+   * The number of seconds between two samples when detecting steady state. Defaults to the
+   * status interval.
+   */
+  public static final String WARMUP_AUTO_INTERVAL_PROPERTY = "warmup.auto.interval";
+
+  /**
+   * The number of consecutive intervals that must be stable to consider the run in steady state.
+   */
+  public static final String WARMUP_AUTO_WINDOW_PROPERTY = "warmup.auto.window";
+  public static final String WARMUP_AUTO_WINDOW_PROPERTY_DEFAULT = "3";
+
+  /**
+   * The maximum coefficient of variation of throughput and latency within the window.
+   */
+  public static final String WARMUP_AUTO_TOLERANCE_PROPERTY = "warmup.auto.tolerance";
+  public static final String WARMUP_AUTO_TOLERANCE_PROPERTY_DEFAULT = "0.1";
+
+  /**
+   * The maximum number of seconds to wait for steady state before giving up on detection.
+   */
+  public static final String WARMUP_AUTO_MAX_PROPERTY = "warmup.auto.max";
+  public static final String WARMUP_AUTO_MAX_PROPERTY_DEFAULT = "300";
+
+  /** How often to check the operation count when warming up for a fixed number of operations. */
+  private static final long OPS_POLL_INTERVAL_NS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private enum Mode {
+    DURATION,
+    OPERATIONS,
+    AUTO
+  }
+
+  private final Phaser completePhaser;
+  private final Collection<ClientThread> clients;
+  private final Measurements measurements;
+
+  private final Mode mode;
+  private long durationNs;
+  private long operations;
+  private long intervalNs;
+  private int window;
+  private double tolerance;
+  private long maxNs;
+
+  private volatile boolean complete = false;
+  private volatile long endTimeMs;
+  private volatile long opsAtEnd;
+
+  /**
+   * Creates a new WarmupThread. Measurements are routed to the warm-up window as soon as the
+   * thread is constructed, so construct it before starting the client threads.
+   *
+   * @param props         The properties of the run.
+   * @param clients       The clients to collect operation counts from.
+   * @param completePhaser The phaser that each client thread will {@link Phaser#arriveAndDeregister()}
+   *                       as they complete.
+   * @throws IllegalArgumentException if the warmup property cannot be parsed.
+   */
+  public WarmupThread(Properties props, Collection<ClientThread> clients, Phaser completePhaser) {
+    super("WarmupThread");
+    this.clients = clients;
+    this.completePhaser = completePhaser;
+    this.measurements = Measurements.getMeasurements();
+
+    String value = props.getProperty(WARMUP_PROPERTY).trim().toLowerCase();
+    if (value.equals("auto")) {
+      mode = Mode.AUTO;
+      intervalNs = TimeUnit.SECONDS.toNanos(Long.parseLong(props.getProperty(WARMUP_AUTO_INTERVAL_PROPERTY,
+          props.getProperty(Client.STATUS_INTERVAL_PROPERTY, Client.STATUS_INTERVAL_PROPERTY_DEFAULT))));
+      window = Integer.parseInt(props.getProperty(WARMUP_AUTO_WINDOW_PROPERTY,
+          WARMUP_AUTO_WINDOW_PROPERTY_DEFAULT));
+      tolerance = Double.parseDouble(props.getProperty(WARMUP_AUTO_TOLERANCE_PROPERTY,
+          WARMUP_AUTO_TOLERANCE_PROPERTY_DEFAULT));
+      maxNs = TimeUnit.SECONDS.toNanos(Long.parseLong(props.getProperty(WARMUP_AUTO_MAX_PROPERTY,
+          WARMUP_AUTO_MAX_PROPERTY_DEFAULT)));
+      if (intervalNs <= 0 || window < 2) {
+        throw new IllegalArgumentException(WARMUP_AUTO_INTERVAL_PROPERTY + " must be positive and "
+            + WARMUP_AUTO_WINDOW_PROPERTY + " at least 2");
+      }
+    } else if (value.endsWith("ops")) {
+      mode = Mode.OPERATIONS;
+      operations = Long.parseLong(value.substring(0, value.length() - 3).trim());
+    } else {
+      mode = Mode.DURATION;
+      durationNs = parseDurationNs(value);
+    }
+
+    measurements.startWarmup();
+  }
+
+  /**
+   * Parses a duration such as "30", "30s", "500ms", "5m" or "1h". A plain number is in seconds.
+   */
+  static long parseDurationNs(String value) {
+    try {
+      if (value.endsWith("ms")) {
+        return TimeUnit.MILLISECONDS.toNanos(Long.parseLong(value.substring(0, value.length() - 2).trim()));
+      } else if (value.endsWith("s")) {
+        return TimeUnit.SECONDS.toNanos(Long.parseLong(value.substring(0, value.length() - 1).trim()));
+      } else if (value.endsWith("m")) {
+        return TimeUnit.MINUTES.toNanos(Long.parseLong(value.substring(0, value.length() - 1).trim()));
+      } else if (value.endsWith("h")) {
+        return TimeUnit.HOURS.toNanos(Long.parseLong(value.substring(0, value.length() - 1).trim()));
+      }
+      return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("unknown " + WARMUP_PROPERTY + "=" + value, e);
+    }
+  }
+
+  @Override
+  public void run() {
+    final long startNs = System.nanoTime();
+    boolean alldone;
+    switch (mode) {
+    case DURATION:
+      alldone = waitForClientsUntil(startNs + durationNs);
+      break;
+    case OPERATIONS:
+      alldone = false;
+      while (!alldone && getOpsDone() < operations) {
+        alldone = waitForClientsUntil(System.nanoTime() + OPS_POLL_INTERVAL_NS);
+      }
+      break;
+    case AUTO:
+      alldone = waitForSteadyState(startNs);
+      break;
+    default:
+      throw new AssertionError("Impossible to be here. Dead code reached. Bugs?");
+    }
+
+    if (alldone) {
+      System.err.println("[WARN] The run completed before the warm-up phase ended; "
+          + "no operation latencies were recorded in the measured window.");
+      return;
+    }
+
+    opsAtEnd = getOpsDone();
+    endTimeMs = System.currentTimeMillis();
+    measurements.endWarmup();
+    complete = true;
+    System.err.println("Warm-up complete after " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs)
+        + " ms and " + opsAtEnd + " operations; starting the measured window.");
+  }
+
+  /**
+   * Samples the interval throughput and average latency until both have been stable for the
+   * configured number of intervals, or the maximum warm-up time expired.
+   *
+   * @return True if all of the clients completed before steady state was reached.
+   */
+  private boolean waitForSteadyState(final long startNs) {
+    final Deque<Double> throughputs = new ArrayDeque<>(window);
+    final Deque<Double> latencies = new ArrayDeque<>(window);
+    long deadline = startNs + intervalNs;
+    long lastOps = getOpsDone();
+    long lastNs = startNs;
+    measurements.getWarmupIntervalLatency();
+
+    while (!waitForClientsUntil(deadline)) {
+      final long now = System.nanoTime();
+      final long ops = getOpsDone();
+      addSample(throughputs, (ops - lastOps) / ((double) (now - lastNs) / TimeUnit.SECONDS.toNanos(1)));
+      addSample(latencies, measurements.getWarmupIntervalLatency());
+      lastOps = ops;
+      lastNs = now;
+
+      if (throughputs.size() == window && isStable(throughputs) && isStable(latencies)) {
+        return false;
+      }
+      if (now - startNs >= maxNs) {
+        System.err.println("[WARN] No steady state detected within " + TimeUnit.NANOSECONDS.toSeconds(maxNs)
+            + " seconds; ending the warm-up phase anyway.");
+        return false;
+      }
+      deadline += intervalNs;
+    }
+    return true;
+  }
+
+  private void addSample(Deque<Double> samples, double sample) {
+    if (samples.size() == window) {
+      samples.removeFirst();
+    }
+    samples.addLast(sample);
+  }
+
+  /**
+   * @return True if the coefficient of variation of the samples is within the tolerance.
+   */
+  private boolean isStable(Collection<Double> samples) {
+    double sum = 0;
+    for (double sample : samples) {
+      sum += sample;
+    }
+    final double mean = sum / samples.size();
+    if (mean <= 0) {
+      return false;
+    }
+    double squares = 0;
+    for (double sample : samples) {
+      squares += (sample - mean) * (sample - mean);
+    }
+    return Math.sqrt(squares / samples.size()) / mean <= tolerance;
+  }
+
+  /**
+   * Waits for all of the client to finish or the deadline to expire.
+   *
+   * @param deadline The deadline, as given by {@link System#nanoTime()}.
+   * @return True if all of the clients completed or the thread was interrupted.
+   */
+  private boolean waitForClientsUntil(long deadline) {
+    boolean alldone = false;
+    long now = System.nanoTime();
+
+    while (!alldone && now < deadline) {
+      try {
+        completePhaser.awaitAdvanceInterruptibly(0, deadline - now, TimeUnit.NANOSECONDS);
+        alldone = true;
+      } catch (TimeoutException te) {
+        alldone = false;
+      } catch (InterruptedException ie) {
+        // We are being asked to shutdown, the run is over.
+        Thread.currentThread().interrupt();
+        alldone = true;
+      }
+      now = System.nanoTime();
+    }
+
+    return alldone;
+  }
+
+  private long getOpsDone() {
+    long ops = 0;
+    for (ClientThread t : clients) {
+      ops += t.getOpsDone();
+    }
+    return ops;
+  }
+
+  /**
+   * @return Whether the warm-up phase ended before the run completed.
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * @return The wall clock time (ms) at which the measured window started.
+   */
+  public long getEndTimeMs() {
+    return endTimeMs;
+  }
+
+  /**
+   * @return The number of operations executed during the warm-up phase.
+   */
+  public long getOpsAtEnd() {
+    return opsAtEnd;
+  }
+}
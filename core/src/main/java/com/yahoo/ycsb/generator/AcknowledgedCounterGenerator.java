@@ -16,31 +16,41 @@
  */
 package com.yahoo.ycsb.generator;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * A CounterGenerator that reports generated integers via lastInt()
  * only after they have been acknowledged.
+ * <p>
+ * Acknowledged values above the limit are marked in a bitmap of
+ * {@link AtomicLongArray} segments, which are added as values are
+ * acknowledged and dropped once the limit goes past them, so that any
+ * number of values may be pending. Each acknowledging thread advances the
+ * limit over the contiguous acknowledged values with compare-and-set, so
+ * the limit follows the acknowledgments without any lock.
  */
 public class AcknowledgedCounterGenerator extends CounterGenerator {
-  /** The size of the window of pending id ack's. 2^20 = {@value} */
+  /** The number of ids in each segment of the window of pending id ack's. 2^20 = {@value} */
   static final int WINDOW_SIZE = Integer.rotateLeft(1, 20);
 
-  /** The mask to use to turn an id into a slot in {@link #window}. */
+  /** The shift to use to turn an id into the index of its segment. */
+  private static final int WINDOW_SHIFT = 20;
+
+  /** The mask to use to turn an id into a bit in its segment. */
   private static final int WINDOW_MASK = WINDOW_SIZE - 1;
 
-  private final ReentrantLock lock;
-  private final boolean[] window;
-  private volatile long limit;
+  private final ConcurrentHashMap<Long, AtomicLongArray> segments;
+  private final AtomicLong limit;
 
   /**
    * Create a counter that starts at countstart.
    */
   public AcknowledgedCounterGenerator(long countstart) {
     super(countstart);
-    lock = new ReentrantLock();
-    window = new boolean[WINDOW_SIZE];
-    limit = countstart - 1;
+    segments = new ConcurrentHashMap<>();
+    limit = new AtomicLong(countstart - 1);
   }
 
   /**
@@ -49,39 +59,82 @@ public class AcknowledgedCounterGenerator extends CounterGenerator {
    */
   @Override
   public Long lastValue() {
-    return limit;
+    return limit.get();
   }
 
   /**
    * Make a generated counter value available via lastInt().
    */
   public void acknowledge(long value) {
-    final int currentSlot = (int)(value & WINDOW_MASK);
-    if (window[currentSlot]) {
-      throw new RuntimeException("Too many unacknowledged insertion keys.");
+    // The limit cannot go past a value before it is acknowledged, so the
+    // segment of a value above the limit is never dropped.
+    if (value <= limit.get()) {
+      throw new IllegalStateException("Insertion key " + value + " was already acknowledged.");
+    }
+    final long index = value >> WINDOW_SHIFT;
+    AtomicLongArray segment = segments.get(index);
+    if (segment == null) {
+      final AtomicLongArray added = new AtomicLongArray(WINDOW_SIZE / Long.SIZE);
+      segment = segments.putIfAbsent(index, added);
+      if (segment == null) {
+        segment = added;
+      }
     }
 
-    window[currentSlot] = true;
+    final int word = (int) ((value & WINDOW_MASK) >>> 6);
+    final long bit = 1L << (value & 63);
+    long bits;
+    do {
+      bits = segment.get(word);
+      if ((bits & bit) != 0) {
+        throw new IllegalStateException("Insertion key " + value + " was already acknowledged.");
+      }
+    } while (!segment.compareAndSet(word, bits, bits | bit));
 
-    if (lock.tryLock()) {
-      // move a contiguous sequence from the window
-      // over to the "limit" variable
-      try {
-        // Only loop through the entire window at most once.
-        long beforeFirstSlot = (limit & WINDOW_MASK);
-        long index;
-        for (index = limit + 1; index != beforeFirstSlot; ++index) {
-          int slot = (int)(index & WINDOW_MASK);
-          if (!window[slot]) {
-            break;
-          }
+    advance();
+  }
 
-          window[slot] = false;
+  /**
+   * Move the limit over the contiguous sequence of acknowledged values
+   * above it. A thread only stops when the value after the limit is not
+   * acknowledged yet, after its own value was marked: the thread
+   * acknowledging that value will then see both and move the limit.
+   */
+  private void advance() {
+    while (true) {
+      final long last = limit.get();
+      final long end = acknowledgedUpTo(last);
+      if (end == last) {
+        // Another thread may have moved the limit, and dropped segments,
+        // in the meantime.
+        if (limit.get() == last) {
+          return;
         }
+      } else if (limit.compareAndSet(last, end)) {
+        for (long index = (last + 1) >> WINDOW_SHIFT; index < (end + 1) >> WINDOW_SHIFT; index++) {
+          segments.remove(index);
+        }
+      }
+    }
+  }
 
-        limit = index - 1;
-      } finally {
-        lock.unlock();
+  /**
+   * @return The end of the contiguous sequence of acknowledged values
+   * after the given one.
+   */
+  private long acknowledgedUpTo(long last) {
+    long next = last + 1;
+    while (true) {
+      final AtomicLongArray segment = segments.get(next >> WINDOW_SHIFT);
+      if (segment == null) {
+        return next - 1;
+      }
+      final int offset = (int) (next & 63);
+      final long acknowledged = segment.get((int) ((next & WINDOW_MASK) >>> 6)) >>> offset;
+      final int run = Long.numberOfTrailingZeros(~acknowledged);
+      next += run;
+      if (run < Long.SIZE - offset) {
+        return next - 1;
       }
     }
   }
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import com.yahoo.ycsb.Utils;
+
+/**
+ * An alias table (Vose, "A linear algorithm for generating random numbers with a given distribution", IEEE TSE,
+ * 1991), to choose indexes with given weights in constant time. Each slot is chosen with probability 1/n, and then
+ * yields its own index with probability probabilities[slot], or its alias otherwise.
+ * <p>
+ * The table is immutable, so that threads sample it concurrently without synchronization.
+ */
+final class AliasTable {
+  private final double[] probabilities;
+  private final int[] aliases;
+
+  /**
+   * @param weights The weights of the indexes, which must sum to more than 0.
+   */
+  AliasTable(double[] weights) {
+    final int n = weights.length;
+    probabilities = new double[n];
+    aliases = new int[n];
+
+    double sum = 0;
+    for (double weight : weights) {
+      sum += weight;
+    }
+    if (!(sum > 0)) {
+      throw new IllegalStateException("The weights of the values must sum to more than 0: " + sum);
+    }
+
+    // Scale the weights so that they average 1, and pair each slot below 1 with a slot above 1 filling it up.
+    // The scaled weights are kept in the probabilities, and the stacks of small and large slots share one array:
+    // small slots from its start, large slots from its end.
+    final int[] work = new int[n];
+    int smallCount = 0;
+    int largeStart = n;
+    for (int i = 0; i < n; i++) {
+      probabilities[i] = weights[i] * n / sum;
+      if (probabilities[i] < 1) {
+        work[smallCount++] = i;
+      } else {
+        work[--largeStart] = i;
+      }
+    }
+    while (smallCount > 0 && largeStart < n) {
+      final int less = work[--smallCount];
+      final int more = work[largeStart++];
+      aliases[less] = more;
+      probabilities[more] = (probabilities[more] + probabilities[less]) - 1;
+      if (probabilities[more] < 1) {
+        work[smallCount++] = more;
+      } else {
+        work[--largeStart] = more;
+      }
+    }
+    // The remaining slots are full, up to rounding errors.
+    while (largeStart < n) {
+      probabilities[work[largeStart++]] = 1;
+    }
+    while (smallCount > 0) {
+      probabilities[work[--smallCount]] = 1;
+    }
+  }
+
+  /**
+   * @return The number of indexes.
+   */
+  int size() {
+    return probabilities.length;
+  }
+
+  /**
+   * @return A random index, chosen with probability proportional to its weight.
+   */
+  int nextIndex() {
+    final double u = Utils.random().nextDouble() * probabilities.length;
+    final int slot = (int) u;
+    return u - slot < probabilities[slot] ? slot : aliases[slot];
+  }
+}
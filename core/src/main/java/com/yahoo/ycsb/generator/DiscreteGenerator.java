@@ -18,13 +18,17 @@
 package com.yahoo.ycsb.generator;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * Generates a distribution by choosing from a discrete set of values.
+ * <p>
+ * Values are chosen in constant time, whatever the number of values, with the alias method (Vose, "A linear
+ * algorithm for generating random numbers with a given distribution", IEEE TSE, 1991). The alias table is built
+ * when the first value is generated, and rebuilt if values are added afterwards; it is immutable, so that threads
+ * generate values concurrently without synchronization.
  */
 public class DiscreteGenerator extends Generator<String> {
   private static class Pair {
@@ -37,8 +41,28 @@ public class DiscreteGenerator extends Generator<String> {
     }
   }
 
-  private final Collection<Pair> values = new ArrayList<>();
+  /**
+   * The values and their alias table.
+   */
+  private static final class Table {
+    private final String[] tableValues;
+    private final AliasTable aliasTable;
+
+    private Table(List<Pair> pairs) {
+      tableValues = new String[pairs.size()];
+      final double[] weights = new double[pairs.size()];
+      for (int i = 0; i < weights.length; i++) {
+        tableValues[i] = pairs.get(i).value;
+        weights[i] = pairs.get(i).weight;
+      }
+      aliasTable = new AliasTable(weights);
+    }
+  }
+
+  private final List<Pair> values = new ArrayList<>();
   private String lastvalue;
+  // The alias table of the values, built on demand.
+  private volatile Table table;
 
   public DiscreteGenerator() {
     lastvalue = null;
@@ -49,25 +73,13 @@ public class DiscreteGenerator extends Generator<String> {
    */
   @Override
   public String nextValue() {
-    double sum = 0;
-
-    for (Pair p : values) {
-      sum += p.weight;
+    Table t = table;
+    if (t == null) {
+      // Concurrent builds are identical, so whichever is published last is fine.
+      t = new Table(values);
+      table = t;
     }
-
-    double val = ThreadLocalRandom.current().nextDouble();
-
-    for (Pair p : values) {
-      double pw = p.weight / sum;
-      if (val < pw) {
-        return p.value;
-      }
-
-      val -= pw;
-    }
-
-    throw new AssertionError("oops. should not get here.");
-
+    return t.tableValues[t.aliasTable.nextIndex()];
   }
 
   /**
@@ -85,6 +97,7 @@ public class DiscreteGenerator extends Generator<String> {
 
   public void addValue(double weight, String value) {
     values.add(new Pair(weight, value));
+    table = null;
   }
 
 }
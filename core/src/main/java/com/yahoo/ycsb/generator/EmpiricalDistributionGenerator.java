@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import com.yahoo.ycsb.Utils;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Generate integers following an empirical distribution, e.g. the access counts of the keys of a production system.
+ * The distribution is given as (rank, weight) pairs, in a file with a pair per line, the rank and the weight
+ * separated by spaces, a tab or a comma (blank lines and lines starting with '#' are ignored). Each rank is drawn
+ * with a probability proportional to its weight.
+ * <p>
+ * The pairs are kept in primitive arrays, so that millions of them fit in memory, and ranks are drawn either in
+ * constant time with an alias table (12 bytes per pair), or in logarithmic time by binary search over the
+ * cumulative weights (8 bytes per pair), plus 8 bytes per pair for the ranks unless they are 0, 1, 2... Ranks
+ * are mapped to the items from lowerBound to upperBound, either in order (modulo the number of items), or scattered
+ * over the items with a hash, as in {@link ScrambledZipfianGenerator}.
+ */
+public class EmpiricalDistributionGenerator extends NumberGenerator {
+  /**
+   * How ranks are drawn.
+   */
+  public enum Sampling {
+    ALIAS,
+    BINARY_SEARCH
+  }
+
+  private final long lowerBound;
+  private final long itemcount;
+  private final boolean scramble;
+  // The ranks of the pairs, or null if they are 0, 1, 2... in order.
+  private final long[] ranks;
+  private final AliasTable aliasTable;
+  private final double[] cumulativeWeights;
+  private final double mean;
+
+  /**
+   * Create a generator of the distribution in a file.
+   *
+   * @param lowerBound The lower bound of the distribution.
+   * @param upperBound The upper bound of the distribution.
+   * @param file       The file of (rank, weight) pairs.
+   * @param sampling   How ranks are drawn.
+   * @param scramble   Whether to scatter the ranks over the items.
+   * @throws IOException Thrown if the file cannot be read or is malformed.
+   */
+  public EmpiricalDistributionGenerator(long lowerBound, long upperBound, String file, Sampling sampling,
+                                        boolean scramble) throws IOException {
+    this(lowerBound, upperBound, new Pairs(file), sampling, scramble);
+  }
+
+  /**
+   * Create a generator of the given distribution.
+   *
+   * @param lowerBound The lower bound of the distribution.
+   * @param upperBound The upper bound of the distribution.
+   * @param ranks      The ranks, or null for 0, 1, 2...
+   * @param weights    The weights of the ranks.
+   * @param sampling   How ranks are drawn.
+   * @param scramble   Whether to scatter the ranks over the items.
+   */
+  public EmpiricalDistributionGenerator(long lowerBound, long upperBound, long[] ranks, double[] weights,
+                                        Sampling sampling, boolean scramble) {
+    this(lowerBound, upperBound, new Pairs(ranks, weights), sampling, scramble);
+  }
+
+  private EmpiricalDistributionGenerator(long lowerBound, long upperBound, Pairs pairs, Sampling sampling,
+                                         boolean scramble) {
+    if (lowerBound > upperBound) {
+      throw new IllegalArgumentException("Upper bound " + upperBound + " smaller than lower bound " + lowerBound);
+    }
+    if (pairs.count == 0) {
+      throw new IllegalArgumentException("The empirical distribution is empty");
+    }
+    this.lowerBound = lowerBound;
+    this.itemcount = upperBound - lowerBound + 1;
+    this.scramble = scramble;
+    this.ranks = pairs.ordered() ? null : Arrays.copyOf(pairs.ranks, pairs.count);
+    final double[] weights = Arrays.copyOf(pairs.weights, pairs.count);
+
+    double total = 0;
+    double weightedSum = 0;
+    for (int i = 0; i < weights.length; i++) {
+      if (!(weights[i] >= 0)) {
+        throw new IllegalArgumentException("Invalid weight " + weights[i] + " of rank " + rank(i));
+      }
+      total += weights[i];
+      weightedSum += weights[i] * item(rank(i));
+    }
+    mean = scramble ? lowerBound + (itemcount - 1) / 2.0 : weightedSum / total;
+
+    if (sampling == Sampling.ALIAS) {
+      aliasTable = new AliasTable(weights);
+      cumulativeWeights = null;
+    } else {
+      if (!(total > 0)) {
+        throw new IllegalStateException("The weights of the values must sum to more than 0: " + total);
+      }
+      aliasTable = null;
+      // The weights become their cumulative sums, in place.
+      for (int i = 1; i < weights.length; i++) {
+        weights[i] += weights[i - 1];
+      }
+      cumulativeWeights = weights;
+    }
+  }
+
+  private long rank(int index) {
+    return ranks == null ? index : ranks[index];
+  }
+
+  private long item(long rank) {
+    return lowerBound + Math.floorMod(scramble ? Utils.fnvhash64(rank) : rank, itemcount);
+  }
+
+  @Override
+  public Long nextValue() {
+    final int index = aliasTable != null ? aliasTable.nextIndex() : searchIndex();
+    final long value = item(rank(index));
+    setLastValue(value);
+    return value;
+  }
+
+  /**
+   * @return The first index whose cumulative weight is above a random point, i.e. an index drawn with a
+   * probability proportional to its weight.
+   */
+  private int searchIndex() {
+    final double point = Utils.random().nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+    int low = 0;
+    int high = cumulativeWeights.length - 1;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (cumulativeWeights[middle] > point) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  public double mean() {
+    return mean;
+  }
+
+  /**
+   * (rank, weight) pairs, in growable primitive arrays.
+   */
+  private static final class Pairs {
+    private long[] ranks;
+    private double[] weights;
+    private int count;
+
+    private Pairs(long[] ranks, double[] weights) {
+      if (ranks != null && ranks.length != weights.length) {
+        throw new IllegalArgumentException("Each rank needs a weight");
+      }
+      this.weights = weights;
+      this.count = weights.length;
+      this.ranks = ranks;
+      if (ranks == null) {
+        this.ranks = new long[count];
+        for (int i = 0; i < count; i++) {
+          this.ranks[i] = i;
+        }
+      }
+    }
+
+    private Pairs(String file) throws IOException {
+      ranks = new long[1024];
+      weights = new double[1024];
+      try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+          lineNumber++;
+          line = line.trim();
+          if (line.isEmpty() || line.charAt(0) == '#') {
+            continue;
+          }
+          int end = 0;
+          while (end < line.length() && !isSeparator(line.charAt(end))) {
+            end++;
+          }
+          int start = end;
+          while (start < line.length() && isSeparator(line.charAt(start))) {
+            start++;
+          }
+          try {
+            add(Long.parseLong(line.substring(0, end)), Double.parseDouble(line.substring(start)));
+          } catch (NumberFormatException e) {
+            throw new IOException("Invalid (rank, weight) pair at line " + lineNumber + " of " + file + ": " + line);
+          }
+        }
+      }
+    }
+
+    private static boolean isSeparator(char c) {
+      return c == ' ' || c == '\t' || c == ',';
+    }
+
+    private void add(long rank, double weight) {
+      if (count == ranks.length) {
+        ranks = Arrays.copyOf(ranks, count * 2);
+        weights = Arrays.copyOf(weights, count * 2);
+      }
+      ranks[count] = rank;
+      weights[count] = weight;
+      count++;
+    }
+
+    /**
+     * @return Whether the ranks are 0, 1, 2... in order.
+     */
+    private boolean ordered() {
+      for (int i = 0; i < count; i++) {
+        if (ranks[i] != i) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import com.yahoo.ycsb.Utils;
+
+import java.util.Random;
+
+/**
+ * Generate integers with hot spots that move over time, modelling a working set that shifts, e.g. over a day. Each
+ * hot spot covers a fraction of the items and receives a fraction of the operations, uniformly; the other operations
+ * access the whole range uniformly. The hot spots start evenly spread over the range, and move with the time elapsed
+ * since the generator was created:
+ * <ul>
+ * <li>{@link Movement#SLIDE}: they slide over the whole range, wrapping around, once per period;
+ * <li>{@link Movement#JUMP}: they jump to new random positions at the start of every period;
+ * <li>{@link Movement#PERIODIC}: they sweep the whole range and come back, like a cosine, once per period.
+ * </ul>
+ * The positions only depend on the time, so all the client threads see the same hot spots without sharing any state.
+ */
+public class MovingHotspotGenerator extends NumberGenerator {
+  /**
+   * How the hot spots move.
+   */
+  public enum Movement {
+    SLIDE,
+    JUMP,
+    PERIODIC
+  }
+
+  private final long lowerBound;
+  private final long interval;
+  private final long[] hotIntervals;
+  private final long[] starts;
+  private final double[] cumulativeOpnFractions;
+  private final Movement movement;
+  private final double periodSeconds;
+  private final long startNanos;
+
+  /**
+   * Create a generator of moving hot spots.
+   *
+   * @param lowerBound      The lower bound of the distribution.
+   * @param upperBound      The upper bound of the distribution.
+   * @param hotsetFractions The fraction of the items covered by each hot spot.
+   * @param hotOpnFractions The fraction of the operations accessing each hot spot, summing to 1 or less.
+   * @param movement        How the hot spots move.
+   * @param periodSeconds   The period of the movement, in seconds.
+   */
+  public MovingHotspotGenerator(long lowerBound, long upperBound, double[] hotsetFractions,
+                                double[] hotOpnFractions, Movement movement, double periodSeconds) {
+    if (lowerBound > upperBound) {
+      throw new IllegalArgumentException("Upper bound " + upperBound + " smaller than lower bound " + lowerBound);
+    }
+    if (hotsetFractions.length == 0 || hotsetFractions.length != hotOpnFractions.length) {
+      throw new IllegalArgumentException("Each hot spot needs a fraction of the items and of the operations");
+    }
+    if (!(periodSeconds > 0)) {
+      throw new IllegalArgumentException("The period of moving hot spots must be positive: " + periodSeconds);
+    }
+    this.lowerBound = lowerBound;
+    this.interval = upperBound - lowerBound + 1;
+    this.movement = movement;
+    this.periodSeconds = periodSeconds;
+    final int count = hotsetFractions.length;
+    hotIntervals = new long[count];
+    starts = new long[count];
+    cumulativeOpnFractions = new double[count];
+    double cumulative = 0;
+    for (int i = 0; i < count; i++) {
+      if (!(hotsetFractions[i] > 0 && hotsetFractions[i] <= 1)) {
+        throw new IllegalArgumentException("Hot set fraction out of range: " + hotsetFractions[i]);
+      }
+      if (!(hotOpnFractions[i] >= 0)) {
+        throw new IllegalArgumentException("Hot operation fraction out of range: " + hotOpnFractions[i]);
+      }
+      hotIntervals[i] = Math.max(1, (long) (interval * hotsetFractions[i]));
+      starts[i] = (long) ((double) interval * i / count);
+      cumulative += hotOpnFractions[i];
+      cumulativeOpnFractions[i] = cumulative;
+    }
+    if (cumulative > 1 + 1e-9) {
+      throw new IllegalArgumentException("Hot operation fractions sum to more than 1: " + cumulative);
+    }
+    startNanos = System.nanoTime();
+  }
+
+  @Override
+  public Long nextValue() {
+    final long value = valueAt((System.nanoTime() - startNanos) / 1e9);
+    setLastValue(value);
+    return value;
+  }
+
+  /**
+   * @return A value of the distribution at the given time since the generator was created.
+   */
+  long valueAt(double elapsedSeconds) {
+    final Random random = Utils.random();
+    final double r = random.nextDouble();
+    for (int i = 0; i < hotIntervals.length; i++) {
+      if (r < cumulativeOpnFractions[i]) {
+        final long offset = hotspotStart(i, elapsedSeconds) + Math.floorMod(random.nextLong(), hotIntervals[i]);
+        return lowerBound + offset % interval;
+      }
+    }
+    return lowerBound + Math.floorMod(random.nextLong(), interval);
+  }
+
+  /**
+   * @return The offset of the first item of a hot spot from the lower bound, at the given time.
+   */
+  long hotspotStart(int hotspot, double elapsedSeconds) {
+    final double periods = elapsedSeconds / periodSeconds;
+    final long shift;
+    switch (movement) {
+    case SLIDE:
+      shift = (long) ((periods - Math.floor(periods)) * interval);
+      break;
+    case JUMP:
+      // A pseudo-random position per period and hot spot, the same for all threads.
+      shift = Math.floorMod(Utils.fnvhash64((long) Math.floor(periods) * 31 + hotspot), interval);
+      break;
+    case PERIODIC:
+      shift = (long) ((1 - Math.cos(2 * Math.PI * periods)) / 2 * (interval - 1));
+      break;
+    default:
+      throw new IllegalStateException("unknown movement " + movement);
+    }
+    return (starts[hotspot] + shift) % interval;
+  }
+
+  @Override
+  public double mean() {
+    throw new UnsupportedOperationException("Can't compute mean of non-stationary distribution!");
+  }
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import com.yahoo.ycsb.Utils;
+
+import java.util.Random;
+
+/**
+ * A generator of a zipfian distribution, like {@link ZipfianGenerator}, that samples items by rejection-inversion
+ * (W. Hörmann and G. Derflinger, "Rejection-inversion to generate variates from monotone discrete distributions",
+ * ACM TOMACS, 1996) instead of the algorithm of Gray et al.
+ * <p>
+ * The probability of the item of rank k (the k-th item from min) is proportional to 1/k^s, for any exponent s &gt; 0,
+ * including s &gt;= 1 which {@link ZipfianGenerator} does not support. No zeta constant is needed: sampling takes a
+ * constant expected time (less than 1.1 tries on average), whatever the number of items, and creating the generator
+ * is immediate. The number of items can change at each call of {@link #nextLong(long)} without updating any shared
+ * state, so that many threads can sample from a growing item space, e.g. in {@link SkewedLatestGenerator}, without
+ * contending on a lock.
+ */
+public class RejectionInversionZipfianGenerator extends NumberGenerator {
+  /**
+   * Number of items.
+   */
+  private final long items;
+
+  /**
+   * Min item to generate.
+   */
+  private final long base;
+
+  /**
+   * The exponent of the distribution.
+   */
+  private final double exponent;
+
+  /**
+   * Computed parameters for generating the distribution, which do not depend on the number of items.
+   */
+  private final double hIntegralX1, s;
+
+  /**
+   * H(items + 1/2), which depends on the number of items, for the number of items given at construction.
+   */
+  private final double hIntegralItems;
+
+  /**
+   * Create a zipfian generator for the specified number of items.
+   *
+   * @param items The number of items in the distribution.
+   */
+  public RejectionInversionZipfianGenerator(long items) {
+    this(0, items - 1);
+  }
+
+  /**
+   * Create a zipfian generator for items between min and max.
+   *
+   * @param min The smallest integer to generate in the sequence.
+   * @param max The largest integer to generate in the sequence.
+   */
+  public RejectionInversionZipfianGenerator(long min, long max) {
+    this(min, max, ZipfianGenerator.ZIPFIAN_CONSTANT);
+  }
+
+  /**
+   * Create a zipfian generator for items between min and max (inclusive) for the specified exponent.
+   *
+   * @param min      The smallest integer to generate in the sequence.
+   * @param max      The largest integer to generate in the sequence.
+   * @param exponent The exponent of the distribution, i.e. the zipfian constant, greater than 0.
+   */
+  public RejectionInversionZipfianGenerator(long min, long max, double exponent) {
+    if (!(exponent > 0)) {
+      throw new IllegalArgumentException("The zipfian exponent must be greater than 0: " + exponent);
+    }
+    items = max - min + 1;
+    base = min;
+    this.exponent = exponent;
+    hIntegralX1 = hIntegral(1.5) - 1;
+    s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    hIntegralItems = hIntegral(items + 0.5);
+    nextValue();
+  }
+
+  /**
+   * Generate the next item as a long. Safe to call concurrently, with different item counts.
+   *
+   * @param itemcount The number of items in the distribution.
+   * @return The next item in the sequence.
+   */
+  long nextLong(long itemcount) {
+    final double hIntegralN = itemcount == items ? hIntegralItems : hIntegral(itemcount + 0.5);
+    final Random random = Utils.random();
+    while (true) {
+      // Invert the integral of the hat function h, between 1/2 and n+1/2, and accept the rank k nearest to the
+      // inverse if the area under h around k is under the probability of k.
+      final double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+      final double x = hIntegralInverse(u);
+      long k = (long) (x + 0.5);
+      if (k < 1) {
+        k = 1;
+      } else if (k > itemcount) {
+        k = itemcount;
+      }
+      if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+        final long ret = base + k - 1;
+        setLastValue(ret);
+        return ret;
+      }
+    }
+  }
+
+  /**
+   * Return the next value, skewed by the Zipfian distribution. The min-th item is the most popular, the min+1th item
+   * the next most popular, etc.
+   */
+  @Override
+  public Long nextValue() {
+    return nextLong(items);
+  }
+
+  /**
+   * @return H(x), the integral of h(x) = 1/x^exponent, with H(1) = 0.
+   */
+  private double hIntegral(double x) {
+    final double logX = Math.log(x);
+    return helper2((1 - exponent) * logX) * logX;
+  }
+
+  /**
+   * @return h(x) = 1/x^exponent.
+   */
+  private double h(double x) {
+    return Math.exp(-exponent * Math.log(x));
+  }
+
+  /**
+   * @return The inverse of H.
+   */
+  private double hIntegralInverse(double x) {
+    double t = x * (1 - exponent);
+    if (t < -1) {
+      // Limit t to its domain, when rounding errors take it beyond.
+      t = -1;
+    }
+    return Math.exp(helper1(t) * x);
+  }
+
+  /**
+   * @return log(1+x)/x, accurately for x close to 0.
+   */
+  private static double helper1(double x) {
+    if (Math.abs(x) > 1e-8) {
+      return Math.log1p(x) / x;
+    }
+    return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+  }
+
+  /**
+   * @return (exp(x)-1)/x, accurately for x close to 0.
+   */
+  private static double helper2(double x) {
+    if (Math.abs(x) > 1e-8) {
+      return Math.expm1(x) / x;
+    }
+    return 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+  }
+
+  /**
+   * @return The mean of the distribution over the number of items given at construction:
+   * min - 1 + zeta(items, exponent - 1) / zeta(items, exponent), where the zeta sums are exact up to a thousand
+   * items, and approximated beyond with the Euler-Maclaurin formula (see {@link Zeta}).
+   */
+  @Override
+  public double mean() {
+    return base - 1 + Zeta.approximateSum(1, items, exponent - 1) / Zeta.approximateSum(1, items, exponent);
+  }
+}
@@ -34,7 +34,7 @@ public class ScrambledZipfianGenerator extends NumberGenerator {
   public static final double USED_ZIPFIAN_CONSTANT = 0.99;
   public static final long ITEM_COUNT = 10000000000L;
 
-  private ZipfianGenerator gen;
+  private final NumberGenerator gen;
   private final long min, max, itemcount;
 
   /******************************* Constructors **************************************/
@@ -92,6 +92,21 @@ zipfian constant
     }
   }
 
+  /**
+   * Create a zipfian generator for items between min and max (inclusive), scattering the items of the given zipfian
+   * generator, e.g. a {@link RejectionInversionZipfianGenerator} for zipfian constants of 1 or more.
+   *
+   * @param min     The smallest integer to generate in the sequence.
+   * @param max     The largest integer to generate in the sequence.
+   * @param zipfian The zipfian generator, of items from 0 to {@link #ITEM_COUNT}.
+   */
+  public ScrambledZipfianGenerator(long min, long max, NumberGenerator zipfian) {
+    this.min = min;
+    this.max = max;
+    itemcount = this.max - this.min + 1;
+    gen = zipfian;
+  }
+
   /**************************************************************************************************/
 
   /**
@@ -99,7 +114,7 @@ zipfian constant
    */
   @Override
   public Long nextValue() {
-    long ret = gen.nextValue();
+    long ret = gen.nextValue().longValue();
     ret = min + Utils.fnvhash64(ret) % itemcount;
     setLastValue(ret);
     return ret;
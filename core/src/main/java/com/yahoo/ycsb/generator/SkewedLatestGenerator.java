@@ -23,10 +23,29 @@ package com.yahoo.ycsb.generator;
 public class SkewedLatestGenerator extends NumberGenerator {
   private CounterGenerator basis;
   private final ZipfianGenerator zipfian;
+  private final RejectionInversionZipfianGenerator rejectionInversion;
 
   public SkewedLatestGenerator(CounterGenerator basis) {
+    this(basis, ZipfianGenerator.ZIPFIAN_CONSTANT, false);
+  }
+
+  /**
+   * @param basis              The generator of the items, the latest being the most popular.
+   * @param zipfianconstant    The zipfian constant of the skew.
+   * @param rejectionInversion Whether to sample the skew by rejection-inversion, so that the number of items grows
+   *                           with the basis without the client threads contending on the recomputation of the zeta
+   *                           constant, or with the algorithm of {@link ZipfianGenerator}.
+   */
+  public SkewedLatestGenerator(CounterGenerator basis, double zipfianconstant, boolean rejectionInversion) {
     this.basis = basis;
-    zipfian = new ZipfianGenerator(this.basis.lastValue());
+    if (rejectionInversion) {
+      zipfian = null;
+      this.rejectionInversion = new RejectionInversionZipfianGenerator(0, this.basis.lastValue() - 1,
+          zipfianconstant);
+    } else {
+      zipfian = new ZipfianGenerator(this.basis.lastValue(), zipfianconstant);
+      this.rejectionInversion = null;
+    }
     nextValue();
   }
 
@@ -37,7 +56,7 @@ public class SkewedLatestGenerator extends NumberGenerator {
   @Override
   public Long nextValue() {
     long max = basis.lastValue();
-    long next = max - zipfian.nextLong(max);
+    long next = max - (zipfian != null ? zipfian.nextLong(max) : rejectionInversion.nextLong(max));
     setLastValue(next);
     return next;
   }
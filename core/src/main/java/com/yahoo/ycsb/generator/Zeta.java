@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the zeta constants of zipfian distributions, i.e. the sums of 1/i^theta over the items i,
+ * which take a long time to compute item by item for billions of items.
+ * <p>
+ * In the "exact" mode (the default), the terms are summed in parallel, over ranges of items in the
+ * common fork/join pool, with Kahan-compensated sums. The zeta constants computed from scratch over
+ * many items can also be cached in files, keyed by the number of items and the zipfian constant, so
+ * that they are only computed once for all the runs on a machine.
+ * <p>
+ * In the "approximate" mode, the terms of the first items are summed, and the rest of the sum is
+ * computed by the Euler-Maclaurin formula, in constant time, with a relative error below 1e-15.
+ */
+public final class Zeta {
+  /**
+   * How zeta constants are computed: "exact" (summed item by item) or "approximate" (Euler-Maclaurin).
+   */
+  public static final String ZETA_PROPERTY = "zipfian.zeta";
+  public static final String ZETA_PROPERTY_DEFAULT = "exact";
+
+  /**
+   * The directory of the cache of exact zeta constants. Zeta constants are not cached when not set.
+   */
+  public static final String ZETA_CACHE_DIR_PROPERTY = "zipfian.zeta.cache_dir";
+
+  // The number of terms summed by each task.
+  private static final long PARALLEL_RANGE = 1 << 20;
+  // The number of terms summed item by item before the Euler-Maclaurin approximation.
+  private static final long EXACT_TERMS = 1000;
+
+  private static volatile boolean approximate = false;
+  private static volatile File cacheDir = null;
+
+  private Zeta() {
+    // not used
+  }
+
+  /**
+   * Configure how zeta constants are computed, for the whole client.
+   */
+  public static void configure(Properties props) {
+    final String mode = props.getProperty(ZETA_PROPERTY, ZETA_PROPERTY_DEFAULT);
+    switch (mode) {
+    case "exact":
+      approximate = false;
+      break;
+    case "approximate":
+      approximate = true;
+      break;
+    default:
+      throw new IllegalArgumentException("unknown " + ZETA_PROPERTY + "=" + mode);
+    }
+    final String dir = props.getProperty(ZETA_CACHE_DIR_PROPERTY);
+    cacheDir = dir == null ? null : new File(dir);
+  }
+
+  /**
+   * Compute the zeta constant of a distribution that has n items now but used to have st items.
+   *
+   * @param st         The number of items used to compute initialsum.
+   * @param n          The number of items to compute zeta over.
+   * @param theta      The zipfian constant.
+   * @param initialsum The value of zeta for st items.
+   * @return The value of zeta for n items.
+   */
+  static double zeta(long st, long n, double theta, double initialsum) {
+    if (n <= st) {
+      return initialsum;
+    }
+    if (approximate) {
+      return initialsum + approximateSum(st + 1, n, theta);
+    }
+    // Sums over fewer items than a single task are faster to compute than to read from the cache.
+    final File dir = cacheDir;
+    if (dir == null || st != 0 || initialsum != 0 || n < PARALLEL_RANGE) {
+      return initialsum + sum(st + 1, n, theta);
+    }
+    final File file = new File(dir, "zeta-" + n + "-" + theta);
+    final Double cached = readCache(file);
+    if (cached != null) {
+      return cached;
+    }
+    final double zeta = sum(1, n, theta);
+    writeCache(file, zeta);
+    return zeta;
+  }
+
+  /**
+   * @return The sum of 1/i^theta for i from first to last, item by item.
+   */
+  static double sum(long first, long last, double theta) {
+    if (last - first < PARALLEL_RANGE) {
+      return kahanSum(first, last, theta);
+    }
+    return ForkJoinPool.commonPool().invoke(new SumTask(first, last, theta));
+  }
+
+  private static double kahanSum(long first, long last, double theta) {
+    double sum = 0;
+    double compensation = 0;
+    for (long i = first; i <= last; i++) {
+      final double y = 1 / Math.pow(i, theta) - compensation;
+      final double t = sum + y;
+      compensation = (t - sum) - y;
+      sum = t;
+    }
+    return sum;
+  }
+
+  /**
+   * Sums a range of terms, split in halves until small enough.
+   */
+  private static final class SumTask extends RecursiveTask<Double> {
+    private static final long serialVersionUID = 1L;
+
+    private final long first;
+    private final long last;
+    private final double theta;
+
+    private SumTask(long first, long last, double theta) {
+      this.first = first;
+      this.last = last;
+      this.theta = theta;
+    }
+
+    @Override
+    protected Double compute() {
+      if (last - first < PARALLEL_RANGE) {
+        return kahanSum(first, last, theta);
+      }
+      final long middle = first + (last - first) / 2;
+      final SumTask low = new SumTask(first, middle, theta);
+      low.fork();
+      final double high = new SumTask(middle + 1, last, theta).compute();
+      // The partial sums are few, so their rounding errors are negligible.
+      return low.join() + high;
+    }
+  }
+
+  /**
+   * @return The sum of 1/i^theta for i from first to last, summing the first terms item by item and
+   * approximating the others with the Euler-Maclaurin formula.
+   */
+  static double approximateSum(long first, long last, double theta) {
+    if (last - first < EXACT_TERMS) {
+      return kahanSum(first, last, theta);
+    }
+    final long a = Math.max(first, EXACT_TERMS);
+    final double head = a > first ? kahanSum(first, a - 1, theta) : 0;
+    final double fa = Math.pow(a, -theta);
+    final double fb = Math.pow(last, -theta);
+    final double integral = theta == 1
+        ? Math.log((double) last / a)
+        : (Math.pow(last, 1 - theta) - Math.pow(a, 1 - theta)) / (1 - theta);
+    // The derivatives of f(x) = x^-theta: f'(x) = -theta x^(-theta-1), f'''(x) = -theta(theta+1)(theta+2)
+    // x^(-theta-3) and f'''''(x) = -theta(theta+1)(theta+2)(theta+3)(theta+4) x^(-theta-5).
+    final double d1 = -theta * (fb / last - fa / a);
+    final double c3 = -theta * (theta + 1) * (theta + 2);
+    final double d3 = c3 * (fb / Math.pow(last, 3) - fa / Math.pow(a, 3));
+    final double c5 = c3 * (theta + 3) * (theta + 4);
+    final double d5 = c5 * (fb / Math.pow(last, 5) - fa / Math.pow(a, 5));
+    // B2/2! = 1/12, B4/4! = -1/720, B6/6! = 1/30240.
+    return head + integral + (fa + fb) / 2 + d1 / 12 - d3 / 720 + d5 / 30240;
+  }
+
+  private static Double readCache(File file) {
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      final String bits = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+      return Double.longBitsToDouble(Long.parseUnsignedLong(bits, 16));
+    } catch (IOException | NumberFormatException e) {
+      System.err.println("Could not read the zeta cache " + file + ": " + e);
+      return null;
+    }
+  }
+
+  private static void writeCache(File file, double zeta) {
+    try {
+      Files.createDirectories(file.getParentFile().toPath());
+      // Write the exact bits to a temporary file first, so that concurrent clients never read a partial value.
+      final File tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+      Files.write(tmp.toPath(), Long.toHexString(Double.doubleToLongBits(zeta)).getBytes(StandardCharsets.UTF_8));
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      System.err.println("Could not write the zeta cache " + file + ": " + e);
+    }
+  }
+}
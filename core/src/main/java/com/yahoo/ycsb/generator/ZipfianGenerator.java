@@ -17,7 +17,7 @@
 
 package com.yahoo.ycsb.generator;
 
-import java.util.concurrent.ThreadLocalRandom;
+import com.yahoo.ycsb.Utils;
 
 /**
  * A generator of a zipfian distribution. It produces a sequence of items, such that some items are more popular than
@@ -30,9 +30,10 @@ import java.util.concurrent.ThreadLocalRandom;
  * popular, and so on (or min is the most popular, min+1 the next most popular, etc.) If you don't want this clustering,
  * and instead want the popular items scattered throughout the item space, then use ScrambledZipfianGenerator instead.
  *
- * Be aware: initializing this generator may take a long time if there are lots of items to choose from (e.g. over a
- * minute for 100 million objects). This is because certain mathematical values need to be computed to properly
- * generate a zipfian skew, and one of those values (zeta) is a sum sequence from 1 to n, where n is the itemcount.
+ * Be aware: initializing this generator may take a long time if there are lots of items to choose from (e.g. seconds
+ * for billions of objects, even computed in parallel). This is because certain mathematical values need to be computed
+ * to properly generate a zipfian skew, and one of those values (zeta) is a sum sequence from 1 to n, where n is the
+ * itemcount. See {@link Zeta} for caching zeta, or approximating it in constant time.
  * Note that if you increase the number of items in the set, we can compute a new zeta incrementally, so it should be
  * fast unless you have added millions of items. However, if you decrease the number of items, we recompute zeta from
  * scratch, so this can take a long time.
@@ -196,15 +197,7 @@ public class ZipfianGenerator extends NumberGenerator {
    * @param initialsum The value of zeta we are computing incrementally from.
    */
   static double zetastatic(long st, long n, double theta, double initialsum) {
-    double sum = initialsum;
-    for (long i = st; i < n; i++) {
-
-      sum += 1 / (Math.pow(i + 1, theta));
-    }
-
-    //System.out.println("countforzeta="+countforzeta);
-
-    return sum;
+    return Zeta.zeta(st, n, theta, initialsum);
   }
 
   /****************************************************************************************/
@@ -247,7 +240,7 @@ public class ZipfianGenerator extends NumberGenerator {
       }
     }
 
-    double u = ThreadLocalRandom.current().nextDouble();
+    double u = Utils.random().nextDouble();
     double uz = u * zetan;
 
     if (uz < 1.0) {
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.Status;
+import jdk.jfr.EventType;
+
+import java.util.Properties;
+
+/**
+ * Emits JDK Flight Recorder events for the operations and transactions slower than a threshold, so
+ * that tail latency outliers can be seen next to GC pauses, safepoints and socket I/O in a recording
+ * (e.g. started with -XX:StartFlightRecording).
+ * <p>
+ * An event is begun before every operation while a recording is enabled for it, and only committed, at
+ * the end of the operation, if it took longer than the threshold. No event is allocated while no
+ * recording is enabled for it. Events are plain objects to the callers, so that the JFR classes are only
+ * loaded when events are enabled, on JVMs that support them.
+ */
+public final class FlightRecorderEvents {
+  /**
+   * Whether or not to emit JFR events.
+   */
+  public static final String JFR_ENABLED_PROPERTY = "jfr.enabled";
+  public static final String JFR_ENABLED_PROPERTY_DEFAULT = "false";
+
+  /**
+   * The latency (us) above which operations and transactions are recorded as JFR events.
+   */
+  public static final String JFR_THRESHOLD_PROPERTY = "jfr.threshold";
+  public static final String JFR_THRESHOLD_PROPERTY_DEFAULT = "1000";
+
+  private final long thresholdNs;
+  private final EventType operationType;
+  private final EventType transactionType;
+
+  // The trace line of the current transaction of each thread, if any.
+  private final ThreadLocal<String[]> traceLine = new ThreadLocal<String[]>() {
+    @Override
+    protected String[] initialValue() {
+      return new String[1];
+    }
+  };
+
+  private FlightRecorderEvents(long thresholdNs, EventType operationType, EventType transactionType) {
+    this.thresholdNs = thresholdNs;
+    this.operationType = operationType;
+    this.transactionType = transactionType;
+  }
+
+  /**
+   * @return The events emitter, or null if JFR events are not enabled or not supported by the JVM.
+   */
+  static FlightRecorderEvents create(Properties props) {
+    if (!Boolean.parseBoolean(props.getProperty(JFR_ENABLED_PROPERTY, JFR_ENABLED_PROPERTY_DEFAULT))) {
+      return null;
+    }
+    final long thresholdNs = Long.parseLong(props.getProperty(JFR_THRESHOLD_PROPERTY,
+        JFR_THRESHOLD_PROPERTY_DEFAULT)) * 1000;
+    try {
+      // Make sure the events can be loaded and registered before enabling them.
+      return new FlightRecorderEvents(thresholdNs, EventType.getEventType(OperationEvent.class),
+          EventType.getEventType(TransactionEvent.class));
+    } catch (LinkageError | IllegalStateException e) {
+      System.err.println("JFR events are not supported by this JVM, " + JFR_ENABLED_PROPERTY + " is ignored: " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Begin the event of a DB operation.
+   *
+   * @return The event, to be ended by {@link #commitOperation}, or null if no recording is enabled for
+   * the operation events.
+   */
+  public Object beginOperation() {
+    if (!operationType.isEnabled()) {
+      return null;
+    }
+    final OperationEvent event = new OperationEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * End the event of a DB operation, and commit it if the operation was slower than the threshold.
+   *
+   * @param event        The event returned by {@link #beginOperation()}, not null.
+   * @param operation    The operation, e.g. "READ".
+   * @param table        The table of the operation.
+   * @param key          The key of the operation.
+   * @param status       The result of the operation.
+   * @param latencyNanos The latency of the operation.
+   * @param bytes        The bytes of the values sent or received, or 0 if not counted.
+   */
+  public void commitOperation(Object event, String operation, String table, String key, Status status,
+                              long latencyNanos, long bytes) {
+    final OperationEvent e = (OperationEvent) event;
+    e.end();
+    if (latencyNanos >= thresholdNs && e.shouldCommit()) {
+      e.set(operation, table, key, status == null ? null : status.getName(), bytes);
+      e.commit();
+    }
+  }
+
+  /**
+   * Begin the event of a transaction of the calling client thread.
+   *
+   * @return The event, to be ended by {@link #commitTransaction}, or null if no recording is enabled for
+   * the transaction events.
+   */
+  public Object beginTransaction() {
+    if (!transactionType.isEnabled()) {
+      return null;
+    }
+    traceLine.get()[0] = null;
+    final TransactionEvent event = new TransactionEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Set the trace line replayed by the current transaction of the calling client thread.
+   */
+  public void setTraceLine(String line) {
+    traceLine.get()[0] = line;
+  }
+
+  /**
+   * End the event of a transaction, and commit it if the transaction was slower than the threshold.
+   *
+   * @param event        The event returned by {@link #beginTransaction()}, not null.
+   * @param workload     The name of the workload.
+   * @param latencyNanos The latency of the transaction.
+   * @param dbNanos      The time spent in the DB by the transaction.
+   */
+  public void commitTransaction(Object event, String workload, long latencyNanos, long dbNanos) {
+    final TransactionEvent e = (TransactionEvent) event;
+    e.end();
+    if (latencyNanos >= thresholdNs && e.shouldCommit()) {
+      e.set(workload, traceLine.get()[0], latencyNanos - dbNanos, dbNanos);
+      e.commit();
+    }
+  }
+}
@@ -0,0 +1,362 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+import org.HdrHistogram.EncodableHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Merges and compares the interval histogram logs written by {@link OneMeasurementHdrHistogram} when
+ * "hdrhistogram.fileoutput" is true, e.g. the READ.hdr logs of several client processes.
+ * <p>
+ * The "merge" command adds up the interval histograms of all the logs into windows of a fixed
+ * length, by their start time, and exports the combined percentiles of each window and of the whole
+ * run. As the histograms are added rather than their percentiles averaged, the combined percentiles
+ * are exact up to the precision of the histograms.
+ * <p>
+ * The "compare" command merges the logs of a baseline and of a candidate run in the same way, and
+ * compares the distributions of a percentile over their windows with a Mann-Whitney U test: the
+ * verdict is REGRESSION or IMPROVEMENT when the candidate's percentile is significantly higher or
+ * lower, and NO_CHANGE otherwise.
+ * <p>
+ * The results are written through a {@link MeasurementsExporter}, the text one by default.
+ */
+public final class HdrLogTool {
+  private static final long INTERVAL_SECONDS_DEFAULT = 10;
+  private static final String PERCENTILES_DEFAULT = "50,90,99,99.9,99.99";
+  private static final double METRIC_PERCENTILE_DEFAULT = 99;
+  private static final double ALPHA_DEFAULT = 0.05;
+
+  /**
+   * The outcome of a comparison.
+   */
+  public enum Verdict {
+    REGRESSION,
+    IMPROVEMENT,
+    NO_CHANGE
+  }
+
+  private HdrLogTool() {
+    // not used
+  }
+
+  public static void usageMessage() {
+    System.out.println("Usage: java com.yahoo.ycsb.measurements.HdrLogTool merge [options] file...");
+    System.out.println("       java com.yahoo.ycsb.measurements.HdrLogTool compare [options] "
+        + "-baseline file[,file...] -candidate file[,file...]");
+    System.out.println("Options:");
+    System.out.println("  -interval n: the length of the merged windows, in seconds (default "
+        + INTERVAL_SECONDS_DEFAULT + ")");
+    System.out.println("  -percentiles list: the exported percentiles (default " + PERCENTILES_DEFAULT + ")");
+    System.out.println("  -metric p: the percentile compared between the runs (default " + METRIC_PERCENTILE_DEFAULT
+        + ")");
+    System.out.println("  -alpha a: the significance level of the comparison (default " + ALPHA_DEFAULT + ")");
+    System.out.println("  -exporter classname: the measurements exporter (default text)");
+    System.out.println("  -exportfile path: the file to export to (default stdout)");
+  }
+
+  public static void main(String[] args) {
+    if (args.length == 0 || (!"merge".equals(args[0]) && !"compare".equals(args[0]))) {
+      usageMessage();
+      System.exit(1);
+    }
+
+    long intervalSeconds = INTERVAL_SECONDS_DEFAULT;
+    double[] percentiles = parsePercentiles(PERCENTILES_DEFAULT);
+    double metric = METRIC_PERCENTILE_DEFAULT;
+    double alpha = ALPHA_DEFAULT;
+    String exporterClass = TextMeasurementsExporter.class.getName();
+    String exportFile = null;
+    final List<File> files = new ArrayList<>();
+    final List<File> baseline = new ArrayList<>();
+    final List<File> candidate = new ArrayList<>();
+    try {
+      for (int i = 1; i < args.length; i++) {
+        final boolean hasValue = i + 1 < args.length;
+        if ("-interval".equals(args[i]) && hasValue) {
+          intervalSeconds = Long.parseLong(args[++i]);
+        } else if ("-percentiles".equals(args[i]) && hasValue) {
+          percentiles = parsePercentiles(args[++i]);
+        } else if ("-metric".equals(args[i]) && hasValue) {
+          metric = Double.parseDouble(args[++i]);
+        } else if ("-alpha".equals(args[i]) && hasValue) {
+          alpha = Double.parseDouble(args[++i]);
+        } else if ("-exporter".equals(args[i]) && hasValue) {
+          exporterClass = args[++i];
+        } else if ("-exportfile".equals(args[i]) && hasValue) {
+          exportFile = args[++i];
+        } else if ("-baseline".equals(args[i]) && hasValue) {
+          baseline.addAll(parseFiles(args[++i]));
+        } else if ("-candidate".equals(args[i]) && hasValue) {
+          candidate.addAll(parseFiles(args[++i]));
+        } else if (args[i].startsWith("-")) {
+          throw new IllegalArgumentException("unknown option " + args[i]);
+        } else {
+          files.add(new File(args[i]));
+        }
+      }
+      if ("merge".equals(args[0]) ? files.isEmpty() : baseline.isEmpty() || candidate.isEmpty()) {
+        throw new IllegalArgumentException("missing log files");
+      }
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+      usageMessage();
+      System.exit(1);
+    }
+
+    final long intervalMs = intervalSeconds * 1000;
+    try (OutputStream out = exportFile == null ? System.out : new FileOutputStream(exportFile)) {
+      final MeasurementsExporter exporter = (MeasurementsExporter) Class.forName(exporterClass)
+          .getConstructor(OutputStream.class).newInstance(out);
+      try {
+        if ("merge".equals(args[0])) {
+          exportMerged(exporter, "MERGED", mergeByInterval(files, intervalMs), percentiles);
+        } else {
+          compare(exporter, mergeByInterval(baseline, intervalMs), mergeByInterval(candidate, intervalMs),
+              percentiles, metric, alpha);
+        }
+      } finally {
+        exporter.close();
+      }
+    } catch (Exception e) {
+      System.err.println("Could not process the histogram logs: " + e);
+      System.exit(1);
+    }
+    System.exit(0);
+  }
+
+  private static double[] parsePercentiles(String list) {
+    final String[] values = list.split(",");
+    final double[] percentiles = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      percentiles[i] = Double.parseDouble(values[i].trim());
+    }
+    return percentiles;
+  }
+
+  private static List<File> parseFiles(String list) {
+    final List<File> files = new ArrayList<>();
+    for (String name : list.split(",")) {
+      files.add(new File(name));
+    }
+    return files;
+  }
+
+  /**
+   * Read the interval histograms of the given logs, and add them up by window.
+   *
+   * @param files      The interval histogram logs.
+   * @param intervalMs The length of the windows.
+   * @return The merged histograms, by window start time (ms since the epoch).
+   * @throws IOException Thrown if a log could not be read.
+   */
+  public static SortedMap<Long, Histogram> mergeByInterval(List<File> files, long intervalMs) throws IOException {
+    final SortedMap<Long, Histogram> windows = new TreeMap<>();
+    for (File file : files) {
+      final HistogramLogReader reader = new HistogramLogReader(file);
+      EncodableHistogram interval;
+      while ((interval = reader.nextIntervalHistogram()) != null) {
+        if (!(interval instanceof Histogram)) {
+          throw new IOException(file + " holds histograms of doubles, which are not written by YCSB");
+        }
+        final long window = interval.getStartTimeStamp() / intervalMs * intervalMs;
+        Histogram merged = windows.get(window);
+        if (merged == null) {
+          merged = new Histogram(((Histogram) interval).getNumberOfSignificantValueDigits());
+          merged.setStartTimeStamp(window);
+          merged.setEndTimeStamp(window + intervalMs);
+          windows.put(window, merged);
+        }
+        merged.add((Histogram) interval);
+      }
+    }
+    return windows;
+  }
+
+  /**
+   * @return The sum of the given histograms.
+   */
+  static Histogram total(SortedMap<Long, Histogram> windows) {
+    final Histogram total = new Histogram(3);
+    for (Histogram window : windows.values()) {
+      total.add(window);
+    }
+    return total;
+  }
+
+  private static void exportMerged(MeasurementsExporter exporter, String name, SortedMap<Long, Histogram> windows,
+                                   double[] percentiles) throws IOException {
+    if (windows.isEmpty()) {
+      exporter.write(name, "Operations", 0);
+      return;
+    }
+    final long start = windows.firstKey();
+    for (Map.Entry<Long, Histogram> window : windows.entrySet()) {
+      exportHistogram(exporter, name + "-" + (window.getKey() - start) / 1000 + "s", window.getValue(), percentiles);
+    }
+    exportHistogram(exporter, name, total(windows), percentiles);
+  }
+
+  private static void exportHistogram(MeasurementsExporter exporter, String name, Histogram histogram,
+                                      double[] percentiles) throws IOException {
+    exporter.write(name, "Operations", histogram.getTotalCount());
+    exporter.write(name, "AverageLatency", histogram.getMean());
+    exporter.write(name, "MinLatency", histogram.getMinValue());
+    exporter.write(name, "MaxLatency", histogram.getMaxValue());
+    for (double percentile : percentiles) {
+      exporter.write(name, "p" + formatPercentile(percentile), histogram.getValueAtPercentile(percentile));
+    }
+  }
+
+  private static String formatPercentile(double percentile) {
+    return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+  }
+
+  private static void compare(MeasurementsExporter exporter, SortedMap<Long, Histogram> baseline,
+                              SortedMap<Long, Histogram> candidate, double[] percentiles, double metric,
+                              double alpha) throws IOException {
+    exportHistogram(exporter, "BASELINE", total(baseline), percentiles);
+    exportHistogram(exporter, "CANDIDATE", total(candidate), percentiles);
+
+    final double[] a = percentileByWindow(baseline, metric);
+    final double[] b = percentileByWindow(candidate, metric);
+    final double[] test = mannWhitney(a, b);
+    final Verdict verdict = verdict(test, alpha);
+    final String name = "COMPARE-p" + formatPercentile(metric);
+    exporter.write(name, "BaselineWindows", a.length);
+    exporter.write(name, "CandidateWindows", b.length);
+    exporter.write(name, "BaselineMedian", median(a));
+    exporter.write(name, "CandidateMedian", median(b));
+    exporter.write(name, "MannWhitneyU", test[0]);
+    exporter.write(name, "Z", test[1]);
+    exporter.write(name, "PValue", test[2]);
+    exporter.write(name, "Verdict=" + verdict, 1);
+  }
+
+  private static double[] percentileByWindow(SortedMap<Long, Histogram> windows, double percentile) {
+    final double[] values = new double[windows.size()];
+    int i = 0;
+    for (Histogram window : windows.values()) {
+      values[i++] = window.getValueAtPercentile(percentile);
+    }
+    return values;
+  }
+
+  private static double median(double[] values) {
+    if (values.length == 0) {
+      return Double.NaN;
+    }
+    final double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    final int mid = sorted.length / 2;
+    return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+  }
+
+  /**
+   * Two-sided Mann-Whitney U test, with the normal approximation corrected for ties and continuity.
+   *
+   * @param a The first sample, e.g. the baseline.
+   * @param b The second sample, e.g. the candidate.
+   * @return The U statistic of the first sample, the z-score (negative when the first sample tends to be
+   * lower than the second one) and the p-value.
+   */
+  static double[] mannWhitney(double[] a, double[] b) {
+    final int n1 = a.length;
+    final int n2 = b.length;
+    final int n = n1 + n2;
+    if (n1 == 0 || n2 == 0) {
+      return new double[]{Double.NaN, 0, 1};
+    }
+    final double[][] all = new double[n][];
+    for (int i = 0; i < n1; i++) {
+      all[i] = new double[]{a[i], 0};
+    }
+    for (int i = 0; i < n2; i++) {
+      all[n1 + i] = new double[]{b[i], 1};
+    }
+    Arrays.sort(all, (x, y) -> Double.compare(x[0], y[0]));
+
+    double rankSumA = 0;
+    double tieCorrection = 0;
+    int i = 0;
+    while (i < n) {
+      int j = i;
+      while (j + 1 < n && all[j + 1][0] == all[i][0]) {
+        j++;
+      }
+      // Tied values share the average of their ranks (1-based).
+      final double rank = (i + j) / 2.0 + 1;
+      for (int k = i; k <= j; k++) {
+        if (all[k][1] == 0) {
+          rankSumA += rank;
+        }
+      }
+      final double t = j - i + 1;
+      tieCorrection += t * t * t - t;
+      i = j + 1;
+    }
+
+    final double u = rankSumA - n1 * (n1 + 1) / 2.0;
+    final double mean = n1 * (double) n2 / 2.0;
+    final double variance = n1 * (double) n2 / 12.0 * ((n + 1) - tieCorrection / ((double) n * (n - 1)));
+    if (variance <= 0) {
+      return new double[]{u, 0, 1};
+    }
+    final double diff = u - mean;
+    final double z = (diff - Math.signum(diff) * 0.5) / Math.sqrt(variance);
+    final double p = Math.min(1, 2 * normalUpperTail(Math.abs(z)));
+    return new double[]{u, z, p};
+  }
+
+  /**
+   * @return The verdict of a Mann-Whitney test of a baseline against a candidate.
+   */
+  static Verdict verdict(double[] test, double alpha) {
+    if (test[2] >= alpha) {
+      return Verdict.NO_CHANGE;
+    }
+    // A negative z-score means the baseline's latencies tend to be lower than the candidate's.
+    return test[1] < 0 ? Verdict.REGRESSION : Verdict.IMPROVEMENT;
+  }
+
+  /**
+   * @return P(Z > z) for a standard normal Z, from the complementary error function approximation of
+   * Numerical Recipes (fractional error below 1.2e-7).
+   */
+  private static double normalUpperTail(double z) {
+    final double x = z / Math.sqrt(2);
+    final double t = 1 / (1 + 0.5 * Math.abs(x));
+    final double erfc = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+        + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+        + t * (-0.82215223 + t * 0.17087277)))))))));
+    return (x >= 0 ? erfc : 2 - erfc) / 2;
+  }
+}
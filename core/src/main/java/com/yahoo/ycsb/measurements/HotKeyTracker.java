@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the heaviest keys of a client thread, i.e. the most accessed ones or the ones accounting for
+ * the most latency, with the Space-Saving algorithm (Metwally et al., "Efficient computation of
+ * frequent and top-k elements in data streams"), along with a small latency histogram and an error
+ * count for each of them.
+ * <p>
+ * A tracker monitors a fixed number of keys, so that its memory is bounded whatever the key space.
+ * When a key that is not monitored is seen, it replaces the monitored key of least weight, and
+ * inherits its weight as an overestimation error. The weight of the keys that are heavier than the
+ * total weight divided by the capacity is never underestimated, and they are always monitored.
+ * <p>
+ * The latency histogram and the error count of a key cover the operations since it was last admitted.
+ * Each tracker is only written by its client thread; the trackers of all threads are merged at export.
+ */
+public final class HotKeyTracker {
+  /**
+   * How keys are weighted: "ops" tracks the most accessed keys, "latency" the keys that account for
+   * the most latency.
+   */
+  public enum Weight {
+    OPS,
+    LATENCY
+  }
+
+  // The precision of the per-key histograms, enough for their percentiles to be within 10%.
+  private static final int SIGNIFICANT_DIGITS = 1;
+
+  /**
+   * A monitored key.
+   */
+  private static final class Entry {
+    private String key;
+    private long weight;
+    private long error;
+    private long errors;
+    private int heapIndex;
+    private final Histogram histogram = new Histogram(SIGNIFICANT_DIGITS);
+  }
+
+  private final Weight weighting;
+  private final int capacity;
+  private final Map<String, Entry> entries;
+  // A min-heap of the monitored keys by weight, so that the lightest key is found in constant time.
+  private final Entry[] heap;
+  private int size = 0;
+
+  /**
+   * @param capacity  The number of keys monitored.
+   * @param weighting How keys are weighted.
+   */
+  HotKeyTracker(int capacity, Weight weighting) {
+    this.capacity = capacity;
+    this.weighting = weighting;
+    entries = new HashMap<>(capacity * 2);
+    heap = new Entry[capacity];
+  }
+
+  /**
+   * Record an operation on a key. Only called by the client thread owning this tracker.
+   *
+   * @param key     The key of the operation.
+   * @param latency The latency of the operation, in the unit of the measurements.
+   * @param ok      Whether or not the operation succeeded.
+   */
+  synchronized void record(String key, long latency, boolean ok) {
+    final long w = weighting == Weight.OPS ? 1 : Math.max(latency, 1);
+    Entry entry = entries.get(key);
+    boolean added = false;
+    if (entry == null) {
+      if (size < capacity) {
+        entry = new Entry();
+        entry.heapIndex = size;
+        heap[size++] = entry;
+        added = true;
+      } else {
+        entry = heap[0];
+        entries.remove(entry.key);
+        entry.error = entry.weight;
+        entry.errors = 0;
+        entry.histogram.reset();
+      }
+      entry.key = key;
+      entries.put(key, entry);
+    }
+    entry.weight += w;
+    if (!ok) {
+      entry.errors++;
+    }
+    entry.histogram.recordValue(Math.max(latency, 0));
+    // A weight only grows, so an existing key can only move down the heap, and a new one up.
+    if (added) {
+      siftUp(entry.heapIndex);
+    } else {
+      siftDown(entry.heapIndex);
+    }
+  }
+
+  /**
+   * Discard all the keys tracked so far.
+   */
+  synchronized void clear() {
+    entries.clear();
+    for (int i = 0; i < size; i++) {
+      heap[i] = null;
+    }
+    size = 0;
+  }
+
+  private void siftUp(int index) {
+    int i = index;
+    final Entry entry = heap[i];
+    while (i > 0) {
+      final int parent = (i - 1) / 2;
+      if (heap[parent].weight <= entry.weight) {
+        break;
+      }
+      heap[i] = heap[parent];
+      heap[i].heapIndex = i;
+      i = parent;
+    }
+    heap[i] = entry;
+    entry.heapIndex = i;
+  }
+
+  private void siftDown(int index) {
+    int i = index;
+    final Entry entry = heap[i];
+    while (true) {
+      final int left = 2 * i + 1;
+      if (left >= size) {
+        break;
+      }
+      final int right = left + 1;
+      final int child = right < size && heap[right].weight < heap[left].weight ? right : left;
+      if (heap[child].weight >= entry.weight) {
+        break;
+      }
+      heap[i] = heap[child];
+      heap[i].heapIndex = i;
+      i = child;
+    }
+    heap[i] = entry;
+    entry.heapIndex = i;
+  }
+
+  /**
+   * Merge the trackers of the client threads, and export their heaviest keys, in decreasing order of
+   * weight, as "HOTKEY-key" metrics.
+   *
+   * @param trackers  The trackers to merge.
+   * @param k         The number of keys to export.
+   * @param weighting How the trackers weight keys.
+   * @param unit      The unit of the latencies.
+   */
+  static void export(Collection<HotKeyTracker> trackers, int k, Weight weighting, String unit,
+                     MeasurementsExporter exporter) throws IOException {
+    final Map<String, Entry> merged = new HashMap<>();
+    for (HotKeyTracker tracker : trackers) {
+      synchronized (tracker) {
+        for (int i = 0; i < tracker.size; i++) {
+          final Entry entry = tracker.heap[i];
+          Entry m = merged.get(entry.key);
+          if (m == null) {
+            m = new Entry();
+            m.key = entry.key;
+            merged.put(entry.key, m);
+          }
+          m.weight += entry.weight;
+          m.error += entry.error;
+          m.errors += entry.errors;
+          m.histogram.add(entry.histogram);
+        }
+      }
+    }
+    // A key that is not monitored by a full tracker may have been seen up to its minimum weight times.
+    for (HotKeyTracker tracker : trackers) {
+      synchronized (tracker) {
+        if (tracker.size == tracker.capacity) {
+          for (Entry m : merged.values()) {
+            if (!tracker.entries.containsKey(m.key)) {
+              m.weight += tracker.heap[0].weight;
+              m.error += tracker.heap[0].weight;
+            }
+          }
+        }
+      }
+    }
+
+    final List<Entry> top = new ArrayList<>(merged.values());
+    top.sort((a, b) -> Long.compare(b.weight, a.weight));
+    for (Entry entry : top.subList(0, Math.min(k, top.size()))) {
+      final String metric = "HOTKEY-" + entry.key;
+      final Histogram histogram = entry.histogram;
+      exporter.write(metric, weighting == Weight.OPS ? "EstimatedOperations" : "EstimatedTotalLatency(" + unit + ")",
+          entry.weight);
+      exporter.write(metric, "MaxOverestimation", entry.error);
+      exporter.write(metric, "Operations", histogram.getTotalCount());
+      exporter.write(metric, "Errors", entry.errors);
+      exporter.write(metric, "AverageLatency(" + unit + ")", histogram.getMean());
+      exporter.write(metric, "95thPercentileLatency(" + unit + ")", histogram.getValueAtPercentile(95));
+      exporter.write(metric, "99thPercentileLatency(" + unit + ")", histogram.getValueAtPercentile(99));
+      exporter.write(metric, "MaxLatency(" + unit + ")", histogram.getMaxValue());
+    }
+  }
+}
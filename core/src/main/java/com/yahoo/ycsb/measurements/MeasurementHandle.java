@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A measurement name resolved once by {@link Measurements#getHandle(String)}, so that recording a
+ * value does not need to look the name up again. A handle holds a slot for each of the
+ * measurements of its name (actual and intended latency, in and out of the warm-up phase), which are
+ * created on first use and discarded by {@link Measurements#reset()}; handles stay valid across resets.
+ */
+public final class MeasurementHandle {
+  static final int MEASURED = 0;
+  static final int INTENDED = 1;
+  static final int WARMUP = 2;
+  static final int WARMUP_INTENDED = 3;
+  static final int SLOTS = 4;
+
+  private final String name;
+  private final AtomicReferenceArray<OneMeasurement> slots = new AtomicReferenceArray<>(SLOTS);
+  private volatile OperationCounters.Counter counter;
+
+  MeasurementHandle(String name) {
+    this.name = name;
+  }
+
+  /**
+   * @return The name of the measurement, e.g. "READ" or "READ-FAILED".
+   */
+  public String getName() {
+    return name;
+  }
+
+  OneMeasurement get(int slot) {
+    return slots.get(slot);
+  }
+
+  /**
+   * Sets the measurement of a slot, unless another thread set it first.
+   *
+   * @return The measurement of the slot.
+   */
+  OneMeasurement setIfAbsent(int slot, OneMeasurement measurement) {
+    return slots.compareAndSet(slot, null, measurement) ? measurement : slots.get(slot);
+  }
+
+  OperationCounters.Counter getCounter() {
+    return counter;
+  }
+
+  void setCounter(OperationCounters.Counter newCounter) {
+    counter = newCounter;
+  }
+
+  /**
+   * Discard the measurements of all the slots, and release their resources.
+   */
+  void clear() {
+    for (int i = 0; i < SLOTS; i++) {
+      final OneMeasurement measurement = slots.getAndSet(i, null);
+      if (measurement != null) {
+        measurement.close();
+      }
+    }
+    counter = null;
+  }
+}
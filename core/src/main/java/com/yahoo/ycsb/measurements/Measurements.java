@@ -21,8 +21,14 @@ import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Collects latency measurements, and reports them when requested.
@@ -46,9 +52,74 @@ public class Measurements {
   public static final String MEASUREMENT_INTERVAL = "measurement.interval";
   private static final String MEASUREMENT_INTERVAL_DEFAULT = "op";
 
+  /**
+   * The unit of the recorded latencies: "us" (microseconds) or "ns" (nanoseconds).
+   */
+  public static final String LATENCY_UNIT_PROPERTY = "measurement.latency.unit";
+  public static final String LATENCY_UNIT_PROPERTY_DEFAULT = "us";
+
   public static final String MEASUREMENT_TRACK_JVM_PROPERTY = "measurement.trackjvm";
   public static final String MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT = "false";
 
+  /**
+   * Whether or not to sample the resources of the client host (CPU, network, disk, context switches)
+   * from /proc at every status interval. Linux only.
+   */
+  public static final String MEASUREMENT_TRACK_HOST_PROPERTY = "measurement.trackhost";
+  public static final String MEASUREMENT_TRACK_HOST_PROPERTY_DEFAULT = "false";
+
+  /**
+   * Whether or not to measure the time spent by the client threads outside of the DB, i.e. generating
+   * keys and values in the workload, and the memory they allocate.
+   */
+  public static final String MEASUREMENT_CLIENT_OVERHEAD_PROPERTY = "measurement.clientoverhead";
+  public static final String MEASUREMENT_CLIENT_OVERHEAD_PROPERTY_DEFAULT = "false";
+
+  /**
+   * The name of the client overhead measurement.
+   */
+  public static final String CLIENT_OVERHEAD = "CLIENT_OVERHEAD";
+
+  /**
+   * Whether or not to count the payload bytes sent and received by each operation type, and to measure
+   * the latency of operations by payload size.
+   */
+  public static final String MEASUREMENT_PAYLOAD_PROPERTY = "measurement.payload";
+  public static final String MEASUREMENT_PAYLOAD_PROPERTY_DEFAULT = "false";
+
+  /**
+   * The number of hot keys to report, i.e. the keys that are the most accessed, or that account for the
+   * most latency (see {@link #MEASUREMENT_HOT_KEYS_WEIGHT_PROPERTY}). 0 disables hot key tracking.
+   */
+  public static final String MEASUREMENT_HOT_KEYS_PROPERTY = "measurement.hotkeys";
+  public static final String MEASUREMENT_HOT_KEYS_PROPERTY_DEFAULT = "0";
+
+  /**
+   * The number of keys monitored by the hot key tracker of each client thread. Keys that account for
+   * more than 1/capacity of the operations (or of the latency) of a thread are always tracked.
+   */
+  public static final String MEASUREMENT_HOT_KEYS_CAPACITY_PROPERTY = "measurement.hotkeys.capacity";
+  public static final String MEASUREMENT_HOT_KEYS_CAPACITY_PROPERTY_DEFAULT = "256";
+
+  /**
+   * How hot keys are ranked: "ops" (by number of operations) or "latency" (by total latency).
+   */
+  public static final String MEASUREMENT_HOT_KEYS_WEIGHT_PROPERTY = "measurement.hotkeys.weight";
+  public static final String MEASUREMENT_HOT_KEYS_WEIGHT_PROPERTY_DEFAULT = "ops";
+
+  /**
+   * Whether measurements recorded during the warm-up phase are exported (prefixed with "WARMUP-")
+   * or discarded.
+   */
+  public static final String WARMUP_EXPORT_PROPERTY = "warmup.export";
+  public static final String WARMUP_EXPORT_PROPERTY_DEFAULT = "false";
+
+  private static final String WARMUP_PREFIX = "WARMUP-";
+
+  // The order in which the measurements of each handle are exported.
+  private static final int[] EXPORT_ORDER = {MeasurementHandle.WARMUP, MeasurementHandle.WARMUP_INTENDED,
+      MeasurementHandle.MEASURED, MeasurementHandle.INTENDED};
+
   private static Measurements singleton = null;
   private static Properties measurementproperties = null;
 
@@ -66,21 +137,74 @@ public class Measurements {
     return singleton;
   }
 
-  private final ConcurrentHashMap<String, OneMeasurement> opToMesurementMap;
-  private final ConcurrentHashMap<String, OneMeasurement> opToIntendedMesurementMap;
+  // The measurements by name. Handles are never removed, so that callers can keep them across resets.
+  private final ConcurrentHashMap<String, MeasurementHandle> handles;
   private final MeasurementType measurementType;
   private final int measurementInterval;
+  private final boolean exportWarmup;
+  private final long nanosPerUnit;
+  private final boolean trackPayload;
+  private final FlightRecorderEvents flightRecorderEvents;
+  private final int hotKeys;
+  private final int hotKeysCapacity;
+  private final HotKeyTracker.Weight hotKeysWeight;
   private final Properties props;
 
+  // Whether or not measurements are currently routed to the warm-up window.
+  private volatile boolean warmingUp = false;
+  // DB operation latency accumulated during the current warm-up interval, used to detect steady state.
+  private final LongAdder warmupLatencySum = new LongAdder();
+  private final LongAdder warmupLatencyCount = new LongAdder();
+
+  // The number of completed operations, by operation type and outcome.
+  private final OperationCounters operationCounters = new OperationCounters();
+
+  // The measurement of the client overhead of each operation, when enabled.
+  private final MeasurementHandle clientOverhead;
+  // Client overhead totals, reported by each client thread as it completes.
+  private final LongAdder clientOverheadOps = new LongAdder();
+  private final LongAdder clientOverheadNs = new LongAdder();
+  private final LongAdder clientAllocatedBytes = new LongAdder();
+  private final LongAdder clientAllocationOps = new LongAdder();
+
+  // The hot key trackers of the client threads.
+  private final Queue<HotKeyTracker> hotKeyTrackers = new ConcurrentLinkedQueue<>();
+
+  // Changes made to the run while it is running, in order.
+  private final Queue<Map.Entry<String, Long>> controlEvents = new ConcurrentLinkedQueue<>();
+
   /**
    * Create a new object with the specified properties.
    */
   public Measurements(Properties props) {
-    opToMesurementMap = new ConcurrentHashMap<>();
-    opToIntendedMesurementMap = new ConcurrentHashMap<>();
+    handles = new ConcurrentHashMap<>();
+    clientOverhead = getHandle(CLIENT_OVERHEAD);
 
     this.props = props;
 
+    exportWarmup = Boolean.parseBoolean(props.getProperty(WARMUP_EXPORT_PROPERTY, WARMUP_EXPORT_PROPERTY_DEFAULT));
+
+    nanosPerUnit = "ns".equals(getLatencyUnit(props)) ? 1 : 1000;
+
+    flightRecorderEvents = FlightRecorderEvents.create(props);
+    trackPayload = Boolean.parseBoolean(props.getProperty(MEASUREMENT_PAYLOAD_PROPERTY,
+        MEASUREMENT_PAYLOAD_PROPERTY_DEFAULT));
+    hotKeys = Integer.parseInt(props.getProperty(MEASUREMENT_HOT_KEYS_PROPERTY, MEASUREMENT_HOT_KEYS_PROPERTY_DEFAULT));
+    hotKeysCapacity = Math.max(hotKeys, Integer.parseInt(props.getProperty(MEASUREMENT_HOT_KEYS_CAPACITY_PROPERTY,
+        MEASUREMENT_HOT_KEYS_CAPACITY_PROPERTY_DEFAULT)));
+    final String weight = props.getProperty(MEASUREMENT_HOT_KEYS_WEIGHT_PROPERTY,
+        MEASUREMENT_HOT_KEYS_WEIGHT_PROPERTY_DEFAULT);
+    switch (weight) {
+    case "ops":
+      hotKeysWeight = HotKeyTracker.Weight.OPS;
+      break;
+    case "latency":
+      hotKeysWeight = HotKeyTracker.Weight.LATENCY;
+      break;
+    default:
+      throw new IllegalArgumentException("unknown " + MEASUREMENT_HOT_KEYS_WEIGHT_PROPERTY + "=" + weight);
+    }
+
     String mTypeString = this.props.getProperty(MEASUREMENT_TYPE_PROPERTY, MEASUREMENT_TYPE_PROPERTY_DEFAULT);
     switch (mTypeString) {
     case "histogram":
@@ -121,6 +245,17 @@ public class Measurements {
     }
   }
 
+  /**
+   * @return The unit of the latencies recorded with the given properties, "us" or "ns".
+   */
+  public static String getLatencyUnit(Properties props) {
+    final String unit = props.getProperty(LATENCY_UNIT_PROPERTY, LATENCY_UNIT_PROPERTY_DEFAULT);
+    if (!"us".equals(unit) && !"ns".equals(unit)) {
+      throw new IllegalArgumentException("unknown " + LATENCY_UNIT_PROPERTY + "=" + unit);
+    }
+    return unit;
+  }
+
   private OneMeasurement constructOneMeasurement(String name) {
     switch (measurementType) {
     case HISTOGRAM:
@@ -176,17 +311,175 @@ public class Measurements {
     return tlIntendedStartTime.get().startTime();
   }
 
+  /**
+   * Discard all the measurements taken so far, e.g. between two phases of a run plan.
+   */
+  public synchronized void reset() {
+    warmingUp = false;
+    warmupLatencySum.reset();
+    warmupLatencyCount.reset();
+    for (MeasurementHandle handle : handles.values()) {
+      handle.clear();
+    }
+    controlEvents.clear();
+    for (HotKeyTracker tracker : hotKeyTrackers) {
+      tracker.clear();
+    }
+    operationCounters.reset();
+    clientOverheadOps.reset();
+    clientOverheadNs.reset();
+    clientAllocatedBytes.reset();
+    clientAllocationOps.reset();
+  }
+
+  /**
+   * Route all following measurements to the warm-up window, until {@link #endWarmup()} is called.
+   */
+  public void startWarmup() {
+    warmingUp = true;
+  }
+
+  /**
+   * End the warm-up phase. Following measurements are recorded in the measured window.
+   */
+  public void endWarmup() {
+    warmingUp = false;
+    operationCounters.setBaseline();
+  }
+
+  /**
+   * @return Whether measurements are currently routed to the warm-up window.
+   */
+  public boolean isWarmingUp() {
+    return warmingUp;
+  }
+
+  /**
+   * Return the average latency of the DB operations recorded during the warm-up phase since the previous
+   * call, or 0 if no operation completed in the meantime. Only the latencies reported with
+   * {@link #measureOperationNanos(MeasurementHandle, long)} or
+   * {@link #measureOperationIntendedNanos(MeasurementHandle, long)}, whichever is exported, are averaged, so
+   * that other values, e.g. JVM or host statistics, do not skew the steady state detection.
+   */
+  public double getWarmupIntervalLatency() {
+    final long count = warmupLatencyCount.sumThenReset();
+    final long sum = warmupLatencySum.sumThenReset();
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  /**
+   * @return The measurements by name, for readers of live metrics.
+   */
+  Collection<MeasurementHandle> getHandles() {
+    return handles.values();
+  }
+
+  /**
+   * @return The number of nanoseconds in the unit of the recorded latencies.
+   */
+  long getNanosPerUnit() {
+    return nanosPerUnit;
+  }
+
+  /**
+   * Resolve a measurement name once, so that values can then be recorded without looking it up again.
+   *
+   * @param name The name of the measurement, e.g. "READ" or "READ-FAILED".
+   * @return The handle of the measurement, valid for the lifetime of this object.
+   */
+  public MeasurementHandle getHandle(String name) {
+    MeasurementHandle handle = handles.get(name);
+    if (handle == null) {
+      handle = handles.computeIfAbsent(name, MeasurementHandle::new);
+    }
+    return handle;
+  }
+
+  private OneMeasurement getMeasurement(MeasurementHandle handle, int slot) {
+    OneMeasurement m = handle.get(slot);
+    if (m == null) {
+      final String name;
+      switch (slot) {
+      case MeasurementHandle.MEASURED:
+        name = handle.getName();
+        break;
+      case MeasurementHandle.INTENDED:
+        name = measurementInterval == 1 ? handle.getName() : "Intended-" + handle.getName();
+        break;
+      case MeasurementHandle.WARMUP:
+        name = WARMUP_PREFIX + handle.getName();
+        break;
+      default:
+        name = WARMUP_PREFIX + "Intended-" + handle.getName();
+        break;
+      }
+      m = handle.setIfAbsent(slot, constructOneMeasurement(name));
+    }
+    return m;
+  }
+
+  private void measureWarmup(MeasurementHandle handle, int slot, long latency, boolean sampleLatency) {
+    if (sampleLatency) {
+      warmupLatencySum.add(latency);
+      warmupLatencyCount.increment();
+    }
+    if (exportWarmup) {
+      getMeasurement(handle, slot).measure(latency);
+    }
+  }
+
   /**
    * Report a single value of a single metric. E.g. for read latency, operation="READ" and latency is the measured
-   * value.
+   * value, in the unit of the measurements (see {@link #LATENCY_UNIT_PROPERTY}). Latencies should rather be
+   * reported with {@link #measureNanos(String, long)}.
    */
   public void measure(String operation, int latency) {
+    measure(getHandle(operation), latency);
+  }
+
+  /**
+   * Report a single latency of a single metric, measured in nanoseconds, and recorded in the unit of the
+   * measurements.
+   */
+  public void measureNanos(String operation, long latencyNanos) {
+    measure(getHandle(operation), latencyNanos / nanosPerUnit);
+  }
+
+  /**
+   * Report a single latency of a single metric, measured in nanoseconds, and recorded in the unit of the
+   * measurements. The metric is resolved beforehand by {@link #getHandle(String)}.
+   */
+  public void measureNanos(MeasurementHandle handle, long latencyNanos) {
+    measure(handle, latencyNanos / nanosPerUnit);
+  }
+
+  /**
+   * Report a single value of a single metric, resolved beforehand by {@link #getHandle(String)}.
+   */
+  public void measure(MeasurementHandle handle, long latency) {
+    measure(handle, latency, false);
+  }
+
+  /**
+   * Report the latency of a single DB operation, measured in nanoseconds, and recorded in the unit of the
+   * measurements. Unlike the values reported with {@link #measureNanos(MeasurementHandle, long)}, the latencies of
+   * the DB operations are sampled during the warm-up phase to detect steady state (see
+   * {@link #getWarmupIntervalLatency()}).
+   */
+  public void measureOperationNanos(MeasurementHandle handle, long latencyNanos) {
+    measure(handle, latencyNanos / nanosPerUnit, true);
+  }
+
+  private void measure(MeasurementHandle handle, long latency, boolean operation) {
     if (measurementInterval == 1) {
       return;
     }
+    if (warmingUp) {
+      measureWarmup(handle, MeasurementHandle.WARMUP, latency, operation);
+      return;
+    }
     try {
-      OneMeasurement m = getOpMeasurement(operation);
-      m.measure(latency);
+      getMeasurement(handle, MeasurementHandle.MEASURED).measure(latency);
     } catch (java.lang.ArrayIndexOutOfBoundsException e) {
       // This seems like a terribly hacky way to cover up for a bug in the measurement code
       System.out.println("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing");
@@ -195,17 +488,85 @@ public class Measurements {
     }
   }
 
+  /**
+   * Report the client overhead of a single operation, i.e. the time its client thread spent outside of the DB,
+   * measured in nanoseconds, and recorded in the unit of the measurements as {@link #CLIENT_OVERHEAD}. Unlike the
+   * latencies of the operations, it is recorded whatever the measurement interval, and is not sampled to detect
+   * steady state during the warm-up phase.
+   */
+  public void measureClientOverheadNanos(long overheadNanos) {
+    final long overhead = overheadNanos / nanosPerUnit;
+    if (warmingUp) {
+      measureWarmup(clientOverhead, MeasurementHandle.WARMUP, overhead, false);
+      return;
+    }
+    getMeasurement(clientOverhead, MeasurementHandle.MEASURED).measure(overhead);
+  }
+
+  /**
+   * Report a single sample of a gauge, e.g. the memory used by the JVM or the use of a host resource over the last
+   * status interval, in the unit of the gauge. Unlike the latencies of the operations, the samples are recorded
+   * whatever the measurement interval, including during the warm-up phase, and are not sampled to detect steady
+   * state.
+   */
+  public void measureGauge(String name, long value) {
+    getMeasurement(getHandle(name), MeasurementHandle.MEASURED).measure(value);
+  }
+
   /**
    * Report a single value of a single metric. E.g. for read latency, operation="READ" and latency is the measured
-   * value.
+   * value, in the unit of the measurements.
    */
   public void measureIntended(String operation, int latency) {
+    measureIntended(getHandle(operation), latency);
+  }
+
+  /**
+   * Report a single intended latency of a single metric, measured in nanoseconds, and recorded in the
+   * unit of the measurements.
+   */
+  public void measureIntendedNanos(String operation, long latencyNanos) {
+    measureIntended(getHandle(operation), latencyNanos / nanosPerUnit);
+  }
+
+  /**
+   * Report a single intended latency of a single metric, measured in nanoseconds, and recorded in the
+   * unit of the measurements. The metric is resolved beforehand by {@link #getHandle(String)}.
+   */
+  public void measureIntendedNanos(MeasurementHandle handle, long latencyNanos) {
+    measureIntended(handle, latencyNanos / nanosPerUnit);
+  }
+
+  /**
+   * Report a single intended latency value of a single metric, resolved beforehand by
+   * {@link #getHandle(String)}.
+   */
+  public void measureIntended(MeasurementHandle handle, long latency) {
+    measureIntended(handle, latency, false);
+  }
+
+  /**
+   * Report the intended latency of a single DB operation, measured in nanoseconds, and recorded in the unit of the
+   * measurements. See {@link #measureOperationNanos(MeasurementHandle, long)}.
+   */
+  public void measureOperationIntendedNanos(MeasurementHandle handle, long latencyNanos) {
+    measureIntended(handle, latencyNanos / nanosPerUnit, true);
+  }
+
+  private void measureIntended(MeasurementHandle handle, long latency, boolean operation) {
     if (measurementInterval == 0) {
       return;
     }
+    if (warmingUp) {
+      if (measurementInterval == 1) {
+        measureWarmup(handle, MeasurementHandle.WARMUP, latency, operation);
+      } else {
+        measureWarmup(handle, MeasurementHandle.WARMUP_INTENDED, latency, false);
+      }
+      return;
+    }
     try {
-      OneMeasurement m = getOpIntendedMeasurement(operation);
-      m.measure(latency);
+      getMeasurement(handle, MeasurementHandle.INTENDED).measure(latency);
     } catch (java.lang.ArrayIndexOutOfBoundsException e) {
       // This seems like a terribly hacky way to cover up for a bug in the measurement code
       System.out.println("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing");
@@ -214,39 +575,120 @@ public class Measurements {
     }
   }
 
-  private OneMeasurement getOpMeasurement(String operation) {
-    OneMeasurement m = opToMesurementMap.get(operation);
-    if (m == null) {
-      m = constructOneMeasurement(operation);
-      OneMeasurement oldM = opToMesurementMap.putIfAbsent(operation, m);
-      if (oldM != null) {
-        m = oldM;
+  /**
+   * Report a return code for a single DB operation.
+   */
+  public void reportStatus(final String operation, final Status status) {
+    reportStatus(getHandle(operation), status);
+  }
+
+  /**
+   * Report a return code for a single DB operation, resolved beforehand by {@link #getHandle(String)}.
+   */
+  public void reportStatus(final MeasurementHandle handle, final Status status) {
+    getCounter(handle).count(status);
+    if (warmingUp) {
+      if (exportWarmup) {
+        getMeasurement(handle, MeasurementHandle.WARMUP).reportStatus(status);
       }
+      return;
     }
-    return m;
+    getMeasurement(handle, measurementInterval == 1 ? MeasurementHandle.INTENDED : MeasurementHandle.MEASURED)
+        .reportStatus(status);
   }
 
-  private OneMeasurement getOpIntendedMeasurement(String operation) {
-    OneMeasurement m = opToIntendedMesurementMap.get(operation);
-    if (m == null) {
-      final String name = measurementInterval == 1 ? operation : "Intended-" + operation;
-      m = constructOneMeasurement(name);
-      OneMeasurement oldM = opToIntendedMesurementMap.putIfAbsent(operation, m);
-      if (oldM != null) {
-        m = oldM;
-      }
+  private OperationCounters.Counter getCounter(MeasurementHandle handle) {
+    OperationCounters.Counter counter = handle.getCounter();
+    if (counter == null) {
+      counter = operationCounters.getCounter(handle.getName());
+      handle.setCounter(counter);
     }
-    return m;
+    return counter;
   }
 
   /**
-   * Report a return code for a single DB operation.
+   * @return Whether or not the payload bytes of the operations should be reported, with
+   * {@link #reportPayload(MeasurementHandle, long, long)}.
    */
-  public void reportStatus(final String operation, final Status status) {
-    OneMeasurement m = measurementInterval == 1 ?
-        getOpIntendedMeasurement(operation) :
-        getOpMeasurement(operation);
-    m.reportStatus(status);
+  public boolean isTrackingPayload() {
+    return trackPayload;
+  }
+
+  /**
+   * Report the payload bytes sent and received by a single DB operation, resolved beforehand by
+   * {@link #getHandle(String)}.
+   */
+  public void reportPayload(MeasurementHandle handle, long bytesSent, long bytesReceived) {
+    getCounter(handle).countBytes(bytesSent, bytesReceived);
+  }
+
+  /**
+   * @return The JFR events emitter, or null if JFR events are not enabled (see
+   * {@link FlightRecorderEvents#JFR_ENABLED_PROPERTY}).
+   */
+  public FlightRecorderEvents getFlightRecorderEvents() {
+    return flightRecorderEvents;
+  }
+
+  /**
+   * Create the hot key tracker of a client thread.
+   *
+   * @return The tracker, or null if hot keys are not tracked.
+   */
+  public HotKeyTracker newHotKeyTracker() {
+    if (hotKeys <= 0) {
+      return null;
+    }
+    final HotKeyTracker tracker = new HotKeyTracker(hotKeysCapacity, hotKeysWeight);
+    hotKeyTrackers.add(tracker);
+    return tracker;
+  }
+
+  /**
+   * Report the latency and the return code of an operation on a key to the hot key tracker of the
+   * calling client thread, created by {@link #newHotKeyTracker()}.
+   */
+  public void measureKey(HotKeyTracker tracker, String key, long latencyNanos, Status status) {
+    if (warmingUp) {
+      return;
+    }
+    tracker.record(key, latencyNanos / nanosPerUnit, status != null && status.isOk());
+  }
+
+  /**
+   * Report the client overhead totals of a client thread, over the operations of the measured window.
+   *
+   * @param ops            The number of operations.
+   * @param overheadNs     The time spent outside of the DB for these operations.
+   * @param allocationOps  The number of operations over which the allocated bytes were counted.
+   * @param allocatedBytes The number of bytes allocated by the thread over these operations, or a
+   *                       negative value if not supported by the JVM.
+   */
+  public void reportClientOverhead(long ops, long overheadNs, long allocationOps, long allocatedBytes) {
+    clientOverheadOps.add(ops);
+    clientOverheadNs.add(overheadNs);
+    if (allocatedBytes >= 0 && allocationOps > 0) {
+      clientAllocatedBytes.add(allocatedBytes);
+      clientAllocationOps.add(allocationOps);
+    }
+  }
+
+  /**
+   * @return The number of completed operations, by operation type and outcome.
+   */
+  public OperationCounters getOperationCounters() {
+    return operationCounters;
+  }
+
+  /**
+   * Report a change made to the run while it is running, e.g. a new target throughput. Control events
+   * are exported in order, after the measurements, as "CONTROL" metrics.
+   *
+   * @param event The event, e.g. "1500ms Target(ops/sec)".
+   * @param value The value of the event, e.g. the new target.
+   */
+  public void reportControlEvent(String event, long value) {
+    controlEvents.add(new AbstractMap.SimpleImmutableEntry<>(event, value));
   }
 
   /**
@@ -256,11 +698,27 @@ public class Measurements {
    * @throws IOException Thrown if the export failed.
    */
   public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
-    for (OneMeasurement measurement : opToMesurementMap.values()) {
-      measurement.exportMeasurements(exporter);
+    for (int slot : EXPORT_ORDER) {
+      for (MeasurementHandle handle : handles.values()) {
+        final OneMeasurement measurement = handle.get(slot);
+        if (measurement != null) {
+          measurement.exportMeasurements(exporter);
+        }
+      }
+    }
+    final long overheadOps = clientOverheadOps.sum();
+    if (overheadOps > 0) {
+      exporter.write(CLIENT_OVERHEAD, "AverageOverhead(ns)", (double) clientOverheadNs.sum() / overheadOps);
+      final long allocationOps = clientAllocationOps.sum();
+      if (allocationOps > 0) {
+        exporter.write(CLIENT_OVERHEAD, "AllocatedBytesPerOp", (double) clientAllocatedBytes.sum() / allocationOps);
+      }
     }
-    for (OneMeasurement measurement : opToIntendedMesurementMap.values()) {
-      measurement.exportMeasurements(exporter);
+    if (hotKeys > 0) {
+      HotKeyTracker.export(hotKeyTrackers, hotKeys, hotKeysWeight, getLatencyUnit(props), exporter);
+    }
+    for (Map.Entry<String, Long> event : controlEvents) {
+      exporter.write("CONTROL", event.getKey(), event.getValue());
     }
   }
 
@@ -269,11 +727,13 @@ public class Measurements {
    */
   public synchronized String getSummary() {
     String ret = "";
-    for (OneMeasurement m : opToMesurementMap.values()) {
-      ret += m.getSummary() + " ";
-    }
-    for (OneMeasurement m : opToIntendedMesurementMap.values()) {
-      ret += m.getSummary() + " ";
+    for (int slot : EXPORT_ORDER) {
+      for (MeasurementHandle handle : handles.values()) {
+        final OneMeasurement m = handle.get(slot);
+        if (m != null) {
+          ret += m.getSummary() + " ";
+        }
+      }
     }
     return ret;
   }
@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.Utils;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the in-flight measurements over HTTP, in the Prometheus text exposition format, so that
+ * they can be scraped while the benchmark is running:
+ * <ul>
+ * <li>the completed operations, by operation type and outcome;</li>
+ * <li>the payload bytes, by operation type, when payload accounting is enabled;</li>
+ * <li>the return codes, by measurement;</li>
+ * <li>the latency percentiles of the latest status interval, for the HdrHistogram measurement types;</li>
+ * <li>the JVM statistics also tracked by the status thread.</li>
+ * </ul>
+ * The metrics are read from counters and from the interval histograms published by the status
+ * thread, so that serving them never blocks the client threads.
+ */
+public final class MetricsServer {
+  /**
+   * The port of the metrics endpoint. The endpoint is disabled when not set.
+   */
+  public static final String METRICS_PORT_PROPERTY = "metrics.port";
+
+  /**
+   * The address the metrics endpoint listens on.
+   */
+  public static final String METRICS_HOST_PROPERTY = "metrics.host";
+  public static final String METRICS_HOST_PROPERTY_DEFAULT = "localhost";
+
+  /**
+   * The path of the metrics endpoint.
+   */
+  public static final String PATH = "/metrics";
+
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 0.9999};
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Measurements measurements;
+
+  private MetricsServer(HttpServer server, Measurements measurements) {
+    this.server = server;
+    this.measurements = measurements;
+    executor = Executors.newSingleThreadExecutor(MetricsServer::newThread);
+    server.createContext(PATH, this::handle);
+    server.setExecutor(executor);
+  }
+
+  private static Thread newThread(Runnable r) {
+    final Thread t = new Thread(r, "MetricsServer");
+    t.setDaemon(true);
+    return t;
+  }
+
+  /**
+   * Start the metrics endpoint if enabled by the properties.
+   *
+   * @return The started server, or null if the endpoint is not enabled.
+   * @throws IOException Thrown if the endpoint could not be bound.
+   */
+  public static MetricsServer start(Properties props, Measurements measurements) throws IOException {
+    final String port = props.getProperty(METRICS_PORT_PROPERTY);
+    if (port == null) {
+      return null;
+    }
+    final String host = props.getProperty(METRICS_HOST_PROPERTY, METRICS_HOST_PROPERTY_DEFAULT);
+    final HttpServer server = HttpServer.create(new InetSocketAddress(host, Integer.parseInt(port)), 0);
+    final MetricsServer metrics = new MetricsServer(server, measurements);
+    server.start();
+    return metrics;
+  }
+
+  /**
+   * @return The port the endpoint is bound to.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stop serving the metrics.
+   */
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      final byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * @return The current metrics, in the Prometheus text exposition format.
+   */
+  String scrape() {
+    final StringBuilder out = new StringBuilder();
+
+    header(out, "ycsb_operations_total", "counter", "Completed operations, by operation type and outcome.");
+    for (Map.Entry<String, OperationCounters.Counts> entry
+        : measurements.getOperationCounters().snapshot().entrySet()) {
+      sample(out, "ycsb_operations_total", "operation", entry.getKey(), "outcome", "ok", entry.getValue().getOk());
+      sample(out, "ycsb_operations_total", "operation", entry.getKey(), "outcome", "failed",
+          entry.getValue().getFailed());
+    }
+    if (measurements.isTrackingPayload()) {
+      header(out, "ycsb_payload_bytes_total", "counter", "Payload bytes, by operation type and direction.");
+      for (Map.Entry<String, OperationCounters.Counts> entry
+          : measurements.getOperationCounters().snapshot().entrySet()) {
+        sample(out, "ycsb_payload_bytes_total", "operation", entry.getKey(), "direction", "sent",
+            entry.getValue().getBytesSent());
+        sample(out, "ycsb_payload_bytes_total", "operation", entry.getKey(), "direction", "received",
+            entry.getValue().getBytesReceived());
+      }
+    }
+
+    final SortedMap<String, OneMeasurement> byName = new TreeMap<>();
+    for (MeasurementHandle handle : measurements.getHandles()) {
+      for (int slot = 0; slot < MeasurementHandle.SLOTS; slot++) {
+        final OneMeasurement m = handle.get(slot);
+        if (m != null) {
+          byName.put(m.getName(), m);
+        }
+      }
+    }
+
+    header(out, "ycsb_status_total", "counter", "Return codes, by measurement.");
+    for (OneMeasurement m : byName.values()) {
+      for (Map.Entry<Status, AtomicInteger> entry : m.getStatusCounts().entrySet()) {
+        sample(out, "ycsb_status_total", "measurement", m.getName(), "status", entry.getKey().getName(),
+            entry.getValue().get());
+      }
+    }
+
+    final double secondsPerUnit = measurements.getNanosPerUnit() / 1e9;
+    header(out, "ycsb_interval_latency_seconds", "gauge", "Latency percentiles of the latest status interval.");
+    for (OneMeasurement m : byName.values()) {
+      final Histogram interval = m.getLastIntervalHistogram();
+      if (interval != null && interval.getTotalCount() > 0) {
+        for (double quantile : QUANTILES) {
+          sample(out, "ycsb_interval_latency_seconds", "measurement", m.getName(), "quantile",
+              Double.toString(quantile), interval.getValueAtPercentile(quantile * 100) * secondsPerUnit);
+        }
+        sample(out, "ycsb_interval_latency_seconds", "measurement", m.getName(), "quantile", "1",
+            interval.getMaxValue() * secondsPerUnit);
+      }
+    }
+    header(out, "ycsb_interval_operations", "gauge", "Operations measured in the latest status interval.");
+    for (OneMeasurement m : byName.values()) {
+      final Histogram interval = m.getLastIntervalHistogram();
+      if (interval != null) {
+        sample(out, "ycsb_interval_operations", "measurement", m.getName(), null, null, interval.getTotalCount());
+      }
+    }
+
+    header(out, "ycsb_warmup", "gauge", "Whether the client is in its warm-up phase.");
+    sample(out, "ycsb_warmup", null, null, null, null, measurements.isWarmingUp() ? 1 : 0);
+
+    header(out, "ycsb_jvm_threads", "gauge", "Active threads.");
+    sample(out, "ycsb_jvm_threads", null, null, null, null, Utils.getActiveThreadCount());
+    header(out, "ycsb_jvm_used_memory_bytes", "gauge", "Used heap memory.");
+    sample(out, "ycsb_jvm_used_memory_bytes", null, null, null, null, Utils.getUsedMemoryBytes());
+    final double load = Utils.getSystemLoadAverage();
+    if (load >= 0) {
+      header(out, "ycsb_system_load_average", "gauge", "System load average over the last minute.");
+      sample(out, "ycsb_system_load_average", null, null, null, null, load);
+    }
+    header(out, "ycsb_jvm_gc_collections_total", "counter", "Garbage collections.");
+    sample(out, "ycsb_jvm_gc_collections_total", null, null, null, null, Utils.getGCTotalCollectionCount());
+    header(out, "ycsb_jvm_gc_time_seconds_total", "counter", "Time spent in garbage collections.");
+    sample(out, "ycsb_jvm_gc_time_seconds_total", null, null, null, null, Utils.getGCTotalTime() / 1000.0);
+    return out.toString();
+  }
+
+  private static void header(StringBuilder out, String name, String type, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(StringBuilder out, String name, String label1, String value1,
+                             String label2, String value2, double value) {
+    out.append(name);
+    if (label1 != null) {
+      out.append('{');
+      label(out, label1, value1);
+      if (label2 != null) {
+        out.append(',');
+        label(out, label2, value2);
+      }
+      out.append('}');
+    }
+    out.append(' ');
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      out.append((long) value);
+    } else {
+      out.append(value);
+    }
+    out.append('\n');
+  }
+
+  private static void label(StringBuilder out, String label, String value) {
+    out.append(label).append("=\"");
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '\\' || c == '"') {
+        out.append('\\').append(c);
+      } else if (c == '\n') {
+        out.append("\\n");
+      } else {
+        out.append(c);
+      }
+    }
+    out.append('"');
+  }
+}
@@ -20,7 +20,10 @@ package com.yahoo.ycsb.measurements;
 import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
+import org.HdrHistogram.Histogram;
+
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -45,7 +48,10 @@ public abstract class OneMeasurement {
     this.returncodes = new ConcurrentHashMap<>();
   }
 
-  public abstract void measure(int latency);
+  /**
+   * Record a latency, in the unit of the measurements.
+   */
+  public abstract void measure(long latency);
 
   public abstract String getSummary();
 
@@ -74,6 +80,28 @@ public abstract class OneMeasurement {
    */
   public abstract void exportMeasurements(MeasurementsExporter exporter) throws IOException;
 
+  /**
+   * @return The number of operations reported so far, by return code.
+   */
+  Map<Status, AtomicInteger> getStatusCounts() {
+    return Collections.unmodifiableMap(returncodes);
+  }
+
+  /**
+   * @return The histogram of the latest interval taken by {@link #getSummary()}, or null if not
+   * supported by the measurement type. The histogram must not be modified.
+   */
+  Histogram getLastIntervalHistogram() {
+    return null;
+  }
+
+  /**
+   * Release the resources held by this measurement, once it was exported or discarded by
+   * {@link Measurements#reset()}. Nothing is recorded afterwards.
+   */
+  void close() {
+  }
+
   protected final void exportStatusCounts(MeasurementsExporter exporter) throws IOException {
     for (Map.Entry<Status, AtomicInteger> entry : returncodes.entrySet()) {
       exporter.write(getName(), "Return=" + entry.getKey().getName(), entry.getValue().get());
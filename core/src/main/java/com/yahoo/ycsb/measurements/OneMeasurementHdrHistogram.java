@@ -44,6 +44,8 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
 
   private final Recorder histogram;
   private Histogram totalHistogram;
+  // The latest interval, published for readers of live metrics.
+  private volatile Histogram lastIntervalHistogram;
 
   /**
    * The name of the property for deciding what percentile values to output.
@@ -67,10 +69,14 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
   
   private final List<Double> percentiles;
 
+  // The unit of the latencies, "us" or "ns".
+  private final String unit;
+
   public OneMeasurementHdrHistogram(String name, Properties props) {
     super(name);
     percentiles = getPercentileValues(props.getProperty(PERCENTILES_PROPERTY, PERCENTILES_PROPERTY_DEFAULT));
     verbose = Boolean.valueOf(props.getProperty(VERBOSE_PROPERTY, String.valueOf(false)));
+    unit = Measurements.getLatencyUnit(props);
     boolean shouldLog = Boolean.parseBoolean(props.getProperty("hdrhistogram.fileoutput", "false"));
     if (!shouldLog) {
       log = null;
@@ -94,11 +100,10 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
   }
 
   /**
-   * It appears latency is reported in micros.
    * Using {@link Recorder} to support concurrent updates to histogram.
    */
-  public void measure(int latencyInMicros) {
-    histogram.recordValue(latencyInMicros);
+  public void measure(long latency) {
+    histogram.recordValue(latency);
   }
 
   /**
@@ -114,12 +119,12 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
       log.close();
     }
     exporter.write(getName(), "Operations", totalHistogram.getTotalCount());
-    exporter.write(getName(), "AverageLatency(us)", totalHistogram.getMean());
-    exporter.write(getName(), "MinLatency(us)", totalHistogram.getMinValue());
-    exporter.write(getName(), "MaxLatency(us)", totalHistogram.getMaxValue());
+    exporter.write(getName(), "AverageLatency(" + unit + ")", totalHistogram.getMean());
+    exporter.write(getName(), "MinLatency(" + unit + ")", totalHistogram.getMinValue());
+    exporter.write(getName(), "MaxLatency(" + unit + ")", totalHistogram.getMaxValue());
 
     for (Double percentile : percentiles) {
-      exporter.write(getName(), ordinal(percentile) + "PercentileLatency(us)",
+      exporter.write(getName(), ordinal(percentile) + "PercentileLatency(" + unit + ")",
           totalHistogram.getValueAtPercentile(percentile));
     }
 
@@ -128,14 +133,7 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
     // also export totalHistogram
     if (verbose) {
       for (HistogramIterationValue v : totalHistogram.recordedValues()) {
-        int value;
-        if (v.getValueIteratedTo() > (long)Integer.MAX_VALUE) {
-          value = Integer.MAX_VALUE;
-        } else {
-          value = (int)v.getValueIteratedTo();
-        }
-  
-        exporter.write(getName(), Integer.toString(value), (double)v.getCountAtValueIteratedTo());
+        exporter.write(getName(), Long.toString(v.getValueIteratedTo()), (double)v.getCountAtValueIteratedTo());
       }
     }
   }
@@ -168,13 +166,19 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
     Histogram intervalHistogram = histogram.getIntervalHistogram();
     // add this to the total time histogram.
     if (totalHistogram == null) {
-      totalHistogram = intervalHistogram;
+      totalHistogram = intervalHistogram.copy();
     } else {
       totalHistogram.add(intervalHistogram);
     }
+    lastIntervalHistogram = intervalHistogram;
     return intervalHistogram;
   }
 
+  @Override
+  Histogram getLastIntervalHistogram() {
+    return lastIntervalHistogram;
+  }
+
   /**
    * Helper method to parse the given percentile value string.
    *
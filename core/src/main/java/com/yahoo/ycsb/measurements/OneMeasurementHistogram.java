@@ -21,6 +21,7 @@ import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.Arrays;
 import java.util.Properties;
 
 /**
@@ -28,6 +29,45 @@ import java.util.Properties;
  *
  */
 public class OneMeasurementHistogram extends OneMeasurement {
+  /**
+   * The measurements recorded by one thread since they were last merged.
+   */
+  private static final class Interval {
+    private final long[] histogram;
+    private final long bucketwidth;
+    private long histogramoverflow;
+    private long operations;
+    private long totallatency;
+    private double totalsquaredlatency;
+    private long min = -1;
+    private long max = -1;
+
+    private Interval(int buckets, long bucketwidth) {
+      histogram = new long[buckets];
+      this.bucketwidth = bucketwidth;
+    }
+
+    private void record(long latency) {
+      //latency collected in bucket by ms.
+      if (latency / bucketwidth >= histogram.length) {
+        histogramoverflow++;
+      } else {
+        histogram[(int) (latency / bucketwidth)]++;
+      }
+      operations++;
+      totallatency += latency;
+      totalsquaredlatency += ((double) latency) * ((double) latency);
+
+      if ((min < 0) || (latency < min)) {
+        min = latency;
+      }
+
+      if ((max < 0) || (latency > max)) {
+        max = latency;
+      }
+    }
+  }
+
   public static final String BUCKETS = "histogram.buckets";
   public static final String BUCKETS_DEFAULT = "1000";
   public static final String VERBOSE_PROPERTY = "measurement.histogram.verbose";
@@ -74,13 +114,21 @@ public class OneMeasurementHistogram extends OneMeasurement {
   private long windowoperations;
   private long windowtotallatency;
 
-  private int min;
-  private int max;
+  private long min;
+  private long max;
+
+  // The unit of the latencies, "us" or "ns", and the width of a 1ms bucket in this unit.
+  private final String unit;
+  private final long bucketwidth;
+
+  private final ThreadLocalRecorder<Interval> recorder;
 
   public OneMeasurementHistogram(String name, Properties props) {
     super(name);
     buckets = Integer.parseInt(props.getProperty(BUCKETS, BUCKETS_DEFAULT));
     verbose = Boolean.valueOf(props.getProperty(VERBOSE_PROPERTY, String.valueOf(false)));
+    unit = Measurements.getLatencyUnit(props);
+    bucketwidth = "ns".equals(unit) ? 1000000 : 1000;
     histogram = new long[buckets];
     histogramoverflow = 0;
     operations = 0;
@@ -90,53 +138,70 @@ public class OneMeasurementHistogram extends OneMeasurement {
     windowtotallatency = 0;
     min = -1;
     max = -1;
+    recorder = new ThreadLocalRecorder<>(() -> new Interval(buckets, bucketwidth), Interval::record);
   }
 
   /* (non-Javadoc)
    * @see com.yahoo.ycsb.OneMeasurement#measure(int)
    */
-  public synchronized void measure(int latency) {
-    //latency reported in us and collected in bucket by ms.
-    if (latency / 1000 >= buckets) {
-      histogramoverflow++;
-    } else {
-      histogram[latency / 1000]++;
+  public void measure(long latency) {
+    recorder.record(latency);
+  }
+
+  /**
+   * Merge the measurements recorded by each thread since the previous call into the totals.
+   */
+  private void merge() {
+    recorder.drain(this::merge);
+  }
+
+  private void merge(Interval interval) {
+    for (int i = 0; i < buckets; i++) {
+      histogram[i] += interval.histogram[i];
     }
-    operations++;
-    totallatency += latency;
-    totalsquaredlatency += ((double) latency) * ((double) latency);
-    windowoperations++;
-    windowtotallatency += latency;
-
-    if ((min < 0) || (latency < min)) {
-      min = latency;
+    Arrays.fill(interval.histogram, 0);
+    histogramoverflow += interval.histogramoverflow;
+    operations += interval.operations;
+    totallatency += interval.totallatency;
+    totalsquaredlatency += interval.totalsquaredlatency;
+    windowoperations += interval.operations;
+    windowtotallatency += interval.totallatency;
+    if ((interval.min >= 0) && ((min < 0) || (interval.min < min))) {
+      min = interval.min;
     }
-
-    if ((max < 0) || (latency > max)) {
-      max = latency;
+    if (interval.max > max) {
+      max = interval.max;
     }
+
+    interval.histogramoverflow = 0;
+    interval.operations = 0;
+    interval.totallatency = 0;
+    interval.totalsquaredlatency = 0;
+    interval.min = -1;
+    interval.max = -1;
   }
 
   @Override
-  public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
+  public synchronized void exportMeasurements(MeasurementsExporter exporter) throws IOException {
+    merge();
     double mean = totallatency / ((double) operations);
     double variance = totalsquaredlatency / ((double) operations) - (mean * mean);
     exporter.write(getName(), "Operations", operations);
-    exporter.write(getName(), "AverageLatency(us)", mean);
-    exporter.write(getName(), "LatencyVariance(us)", variance);
-    exporter.write(getName(), "MinLatency(us)", min);
-    exporter.write(getName(), "MaxLatency(us)", max);
+    exporter.write(getName(), "AverageLatency(" + unit + ")", mean);
+    exporter.write(getName(), "LatencyVariance(" + unit + ")", variance);
+    exporter.write(getName(), "MinLatency(" + unit + ")", min);
+    exporter.write(getName(), "MaxLatency(" + unit + ")", max);
 
     long opcounter=0;
     boolean done95th = false;
     for (int i = 0; i < buckets; i++) {
       opcounter += histogram[i];
       if ((!done95th) && (((double) opcounter) / ((double) operations) >= 0.95)) {
-        exporter.write(getName(), "95thPercentileLatency(us)", i * 1000);
+        exporter.write(getName(), "95thPercentileLatency(" + unit + ")", i * bucketwidth);
         done95th = true;
       }
       if (((double) opcounter) / ((double) operations) >= 0.99) {
-        exporter.write(getName(), "99thPercentileLatency(us)", i * 1000);
+        exporter.write(getName(), "99thPercentileLatency(" + unit + ")", i * bucketwidth);
         break;
       }
     }
@@ -153,7 +218,8 @@ public class OneMeasurementHistogram extends OneMeasurement {
   }
 
   @Override
-  public String getSummary() {
+  public synchronized String getSummary() {
+    merge();
     if (windowoperations == 0) {
       return "";
     }
@@ -161,6 +227,6 @@ public class OneMeasurementHistogram extends OneMeasurement {
     double report = ((double) windowtotallatency) / ((double) windowoperations);
     windowtotallatency = 0;
     windowoperations = 0;
-    return "[" + getName() + " AverageLatency(us)=" + d.format(report) + "]";
+    return "[" + getName() + " AverageLatency(" + unit + ")=" + d.format(report) + "]";
   }
 }
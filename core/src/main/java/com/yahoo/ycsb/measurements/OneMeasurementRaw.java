@@ -19,56 +19,29 @@ package com.yahoo.ycsb.measurements;
 
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.PriorityQueue;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Record a series of measurements as raw data points without down sampling,
  * optionally write to an output file when configured.
- *
+ * <p>
+ * Each thread writes its data points to its own {@link RawSampleLog}, a memory-mapped file taking
+ * a few bytes per data point and no heap space. At export, the logs are merged by timestamp, and the
+ * exact percentiles are selected by radix, in a few passes over the logs, without sorting them. The logs
+ * are closed, and their files deleted, once exported or discarded.
  */
 public class OneMeasurementRaw extends OneMeasurement {
-  /**
-   * One raw data point, two fields: timestamp (ms) when the datapoint is
-   * inserted, and the value.
-   */
-  class RawDataPoint {
-    private final long timestamp;
-    private final int value;
-
-    public RawDataPoint(int value) {
-      this.timestamp = System.currentTimeMillis();
-      this.value = value;
-    }
-
-    public long timeStamp() {
-      return timestamp;
-    }
-
-    public int value() {
-      return value;
-    }
-  }
-
-  class RawDataPointComparator implements Comparator<RawDataPoint> {
-    @Override
-    public int compare(RawDataPoint p1, RawDataPoint p2) {
-      if (p1.value() < p2.value()) {
-        return -1;
-      } else if (p1.value() == p2.value()) {
-        return 0;
-      } else {
-        return 1;
-      }
-    }
-  }
-
   /**
    * Optionally, user can configure an output file to save the raw data points.
    * Default is none, raw results will be written to stdout.
@@ -88,18 +61,48 @@ public class OneMeasurementRaw extends OneMeasurement {
   public static final String NO_SUMMARY_STATS = "measurement.raw.no_summary";
   public static final String NO_SUMMARY_STATS_DEFAULT = "false";
 
+  /**
+   * The directory of the files the raw data points are spilled to while running. Defaults to the
+   * temporary directory of the JVM.
+   */
+  public static final String SPILL_DIR = "measurement.raw.spill_dir";
+
+  // The exported percentiles, and their names.
+  private static final double[] PERCENTILES = {0.01, 0.05, 0.5, 0.9, 0.95, 0.99, 0.999, 0.9999};
+  private static final String[] PERCENTILE_NAMES = {"p1", "p5", "p50", "p90", "p95", "p99", "p99.9", "p99.99"};
+
+  // The number of bits of the latency selected by each radix pass.
+  private static final int RADIX_BITS = 16;
+
   private final PrintStream outputStream;
 
+  // The unit of the latencies, "us" or "ns".
+  private final String unit;
+
   private boolean noSummaryStats = false;
 
-  private LinkedList<RawDataPoint> measurements;
-  private long totalLatency = 0;
+  private final File spillDir;
+  private final Queue<RawSampleLog> logs = new ConcurrentLinkedQueue<>();
+  // Set once the logs are closed; the data points measured afterwards are dropped.
+  private volatile boolean closed = false;
+  private final ThreadLocal<RawSampleLog> log = new ThreadLocal<RawSampleLog>() {
+    @Override
+    protected RawSampleLog initialValue() {
+      try {
+        final RawSampleLog l = new RawSampleLog(spillDir);
+        logs.add(l);
+        return l;
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to create raw data spill file", e);
+      }
+    }
+  };
 
   // A window of stats to print summary for at the next getSummary() call.
   // It's supposed to be a one line summary, so we will just print count and
   // average.
-  private int windowOperations = 0;
-  private long windowTotalLatency = 0;
+  private long windowStartOperations = 0;
+  private long windowStartLatency = 0;
 
   public OneMeasurementRaw(String name, Properties props) {
     super(name);
@@ -111,8 +114,8 @@ public class OneMeasurementRaw extends OneMeasurement {
 
       try {
         outputStream = new PrintStream(
-            new FileOutputStream(outputFilePath, true),
-            true);
+            new BufferedOutputStream(new FileOutputStream(outputFilePath, true)),
+            false);
       } catch (FileNotFoundException e) {
         throw new RuntimeException("Failed to open raw data output file", e);
       }
@@ -126,81 +129,169 @@ public class OneMeasurementRaw extends OneMeasurement {
     noSummaryStats = Boolean.parseBoolean(props.getProperty(NO_SUMMARY_STATS,
         NO_SUMMARY_STATS_DEFAULT));
 
-    measurements = new LinkedList<>();
+    unit = Measurements.getLatencyUnit(props);
+
+    final String spillDirPath = props.getProperty(SPILL_DIR);
+    spillDir = spillDirPath == null ? null : new File(spillDirPath);
   }
 
   @Override
-  public synchronized void measure(int latency) {
-    totalLatency += latency;
-    windowTotalLatency += latency;
-    windowOperations++;
-
-    measurements.add(new RawDataPoint(latency));
+  public void measure(long latency) {
+    if (closed) {
+      return;
+    }
+    try {
+      log.get().append(System.currentTimeMillis(), latency);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to write raw data point", e);
+    }
   }
 
   @Override
-  public void exportMeasurements(MeasurementsExporter exporter)
+  public synchronized void exportMeasurements(MeasurementsExporter exporter)
       throws IOException {
     // Output raw data points first then print out a summary of percentiles to
     // stdout.
 
     outputStream.println(getName() +
-        " latency raw data: op, timestamp(ms), latency(us)");
-    for (RawDataPoint point : measurements) {
-      outputStream.println(
-          String.format("%s,%d,%d", getName(), point.timeStamp(),
-              point.value()));
+        " latency raw data: op, timestamp(ms), latency(" + unit + ")");
+    final PriorityQueue<RawSampleLog.Reader> merge = new PriorityQueue<>(Math.max(logs.size(), 1),
+        Comparator.comparingLong(RawSampleLog.Reader::getTimestamp));
+    for (RawSampleLog l : logs) {
+      final RawSampleLog.Reader reader = l.reader();
+      if (reader.next()) {
+        merge.add(reader);
+      }
     }
+    long totalOps = 0;
+    long totalLatency = 0;
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    while (!merge.isEmpty()) {
+      final RawSampleLog.Reader reader = merge.poll();
+      final long latency = reader.getLatency();
+      outputStream.println(getName() + "," + reader.getTimestamp() + "," + latency);
+      totalOps++;
+      totalLatency += latency;
+      min = Math.min(min, latency);
+      max = Math.max(max, latency);
+      if (reader.next()) {
+        merge.add(reader);
+      }
+    }
+    outputStream.flush();
     if (outputStream != System.out) {
       outputStream.close();
     }
 
-    int totalOps = measurements.size();
     exporter.write(getName(), "Total Operations", totalOps);
     if (totalOps > 0 && !noSummaryStats) {
       exporter.write(getName(),
-          "Below is a summary of latency in microseconds:", -1);
+          "Below is a summary of latency in " + ("ns".equals(unit) ? "nanoseconds:" : "microseconds:"), -1);
       exporter.write(getName(), "Average",
           (double) totalLatency / (double) totalOps);
 
-      Collections.sort(measurements, new RawDataPointComparator());
-
-      exporter.write(getName(), "Min", measurements.get(0).value());
-      exporter.write(
-          getName(), "Max", measurements.get(totalOps - 1).value());
-      exporter.write(
-          getName(), "p1", measurements.get((int) (totalOps * 0.01)).value());
-      exporter.write(
-          getName(), "p5", measurements.get((int) (totalOps * 0.05)).value());
-      exporter.write(
-          getName(), "p50", measurements.get((int) (totalOps * 0.5)).value());
-      exporter.write(
-          getName(), "p90", measurements.get((int) (totalOps * 0.9)).value());
-      exporter.write(
-          getName(), "p95", measurements.get((int) (totalOps * 0.95)).value());
-      exporter.write(
-          getName(), "p99", measurements.get((int) (totalOps * 0.99)).value());
-      exporter.write(getName(), "p99.9",
-          measurements.get((int) (totalOps * 0.999)).value());
-      exporter.write(getName(), "p99.99",
-          measurements.get((int) (totalOps * 0.9999)).value());
+      final long[] ranks = new long[PERCENTILES.length];
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        ranks[i] = (long) (totalOps * PERCENTILES[i]);
+      }
+      final long[] values = select(ranks, min, max);
+
+      exporter.write(getName(), "Min", min);
+      exporter.write(getName(), "Max", max);
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        exporter.write(getName(), PERCENTILE_NAMES[i], values[i]);
+      }
     }
 
     exportStatusCounts(exporter);
+    close();
+  }
+
+  /**
+   * Close the logs of all the threads, and delete their files. Their counts remain available to
+   * {@link #getSummary()}.
+   */
+  @Override
+  synchronized void close() {
+    closed = true;
+    for (RawSampleLog l : logs) {
+      try {
+        l.close();
+      } catch (IOException e) {
+        System.err.println("Could not delete the raw data spill file " + l.getFile() + ": " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Select the latencies of the given ranks in the sorted data points, by radix: each pass over the
+   * logs counts the next digit of the latencies (relative to the minimum) whose previous digits
+   * match the ones already selected for a rank. The number of passes depends on the range of the
+   * latencies, e.g. two for a range of up to 2^32.
+   */
+  private long[] select(long[] ranks, long min, long max) throws IOException {
+    final int bits = Math.max(1, 64 - Long.numberOfLeadingZeros(max - min));
+    final int passes = (bits + RADIX_BITS - 1) / RADIX_BITS;
+    final long[] prefixes = new long[ranks.length];
+    final long[] remaining = ranks.clone();
+
+    for (int pass = 0; pass < passes; pass++) {
+      final int shift = (passes - 1 - pass) * RADIX_BITS;
+      final long[] distinct = Arrays.stream(prefixes).distinct().sorted().toArray();
+      final long[][] counts = new long[distinct.length][1 << RADIX_BITS];
+      for (RawSampleLog l : logs) {
+        final RawSampleLog.Reader reader = l.reader();
+        while (reader.next()) {
+          final long value = reader.getLatency() - min;
+          final long prefix = shift + RADIX_BITS >= 64 ? 0 : value >>> (shift + RADIX_BITS);
+          for (int i = 0; i < distinct.length; i++) {
+            if (distinct[i] == prefix) {
+              counts[i][(int) ((value >>> shift) & ((1 << RADIX_BITS) - 1))]++;
+              break;
+            }
+          }
+        }
+      }
+
+      for (int r = 0; r < ranks.length; r++) {
+        final long[] digits = counts[Arrays.binarySearch(distinct, prefixes[r])];
+        int digit = 0;
+        while (remaining[r] >= digits[digit]) {
+          remaining[r] -= digits[digit];
+          digit++;
+        }
+        prefixes[r] = (prefixes[r] << RADIX_BITS) | digit;
+      }
+    }
+
+    final long[] values = new long[ranks.length];
+    for (int r = 0; r < ranks.length; r++) {
+      values[r] = prefixes[r] + min;
+    }
+    return values;
   }
 
   @Override
   public synchronized String getSummary() {
+    long operations = 0;
+    long latency = 0;
+    for (RawSampleLog l : logs) {
+      latency += l.getSum();
+      operations += l.getCount();
+    }
+    final long windowOperations = operations - windowStartOperations;
+    final long windowTotalLatency = latency - windowStartLatency;
     if (windowOperations == 0) {
       return "";
     }
 
-    String toReturn = String.format("%s count: %d, average latency(us): %.2f",
-        getName(), windowOperations,
+    String toReturn = String.format("%s count: %d, average latency(%s): %.2f",
+        getName(), windowOperations, unit,
         (double) windowTotalLatency / (double) windowOperations);
 
-    windowTotalLatency = 0;
-    windowOperations = 0;
+    windowStartOperations = operations;
+    windowStartLatency = latency;
 
     return toReturn;
   }
@@ -21,8 +21,13 @@ import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
-import java.util.Vector;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 class SeriesUnit {
   /**
@@ -42,6 +47,49 @@ class SeriesUnit {
  * A time series measurement of a metric, such as READ LATENCY.
  */
 public class OneMeasurementTimeSeries extends OneMeasurement {
+  /**
+   * The measurements recorded by one thread since they were last merged.
+   */
+  private final class Interval {
+    // The completed units, as {unit, count, sum} triples.
+    private final List<long[]> units = new ArrayList<>();
+    private long currentunit = -1;
+    private long count = 0;
+    private long sum = 0;
+    private long operations = 0;
+    private long totallatency = 0;
+    private long min = -1;
+    private long max = -1;
+
+    private void record(long latency) {
+      final long unit = currentUnit();
+      if (unit != currentunit) {
+        endUnit();
+        currentunit = unit;
+      }
+
+      count++;
+      sum += latency;
+      totallatency += latency;
+      operations++;
+
+      if (latency > max) {
+        max = latency;
+      }
+
+      if ((latency < min) || (min < 0)) {
+        min = latency;
+      }
+    }
+
+    private void endUnit() {
+      if (count > 0) {
+        units.add(new long[]{currentunit, count, sum});
+      }
+      count = 0;
+      sum = 0;
+    }
+  }
 
   /**
    * Granularity for time series; measurements will be averaged in chunks of this granularity. Units are milliseconds.
@@ -50,89 +98,107 @@ public class OneMeasurementTimeSeries extends OneMeasurement {
   public static final String GRANULARITY_DEFAULT = "1000";
 
   private final int granularity;
-  private final Vector<SeriesUnit> measurements;
 
-  private long start = -1;
-  private long currentunit = -1;
-  private long count = 0;
-  private long sum = 0;
+  // The time of the first measurement, from which the units are counted.
+  private final AtomicLong start = new AtomicLong(-1);
+
+  private final ThreadLocalRecorder<Interval> recorder;
+
+  // The merged {count, sum} of each unit.
+  private final SortedMap<Long, long[]> units = new TreeMap<>();
   private long operations = 0;
   private long totallatency = 0;
 
   //keep a windowed version of these stats for printing status
-  private int windowoperations = 0;
+  private long windowoperations = 0;
   private long windowtotallatency = 0;
 
-  private int min = -1;
-  private int max = -1;
+  private long min = -1;
+  private long max = -1;
+
+  // The unit of the latencies, "us" or "ns".
+  private final String latencyunit;
 
   public OneMeasurementTimeSeries(String name, Properties props) {
     super(name);
     granularity = Integer.parseInt(props.getProperty(GRANULARITY, GRANULARITY_DEFAULT));
-    measurements = new Vector<>();
+    latencyunit = Measurements.getLatencyUnit(props);
+    recorder = new ThreadLocalRecorder<>(Interval::new, Interval::record);
   }
 
-  private synchronized void checkEndOfUnit(boolean forceend) {
-    long now = System.currentTimeMillis();
-
-    if (start < 0) {
-      currentunit = 0;
-      start = now;
+  private long currentUnit() {
+    final long now = System.currentTimeMillis();
+    long startms = start.get();
+    if (startms < 0) {
+      start.compareAndSet(-1, now);
+      startms = start.get();
     }
+    return ((now - startms) / granularity) * granularity;
+  }
 
-    long unit = ((now - start) / granularity) * granularity;
-
-    if ((unit > currentunit) || (forceend)) {
-      double avg = ((double) sum) / ((double) count);
-      measurements.add(new SeriesUnit(currentunit, avg));
-
-      currentunit = unit;
+  @Override
+  public void measure(long latency) {
+    recorder.record(latency);
+  }
 
-      count = 0;
-      sum = 0;
-    }
+  /**
+   * Merge the measurements recorded by each thread since the previous call.
+   */
+  private void merge() {
+    recorder.drain(this::merge);
   }
 
-  @Override
-  public void measure(int latency) {
-    checkEndOfUnit(false);
-
-    count++;
-    sum += latency;
-    totallatency += latency;
-    operations++;
-    windowoperations++;
-    windowtotallatency += latency;
-
-    if (latency > max) {
-      max = latency;
+  private void merge(Interval interval) {
+    interval.endUnit();
+    for (long[] unit : interval.units) {
+      final long[] merged = units.get(unit[0]);
+      if (merged == null) {
+        units.put(unit[0], new long[]{unit[1], unit[2]});
+      } else {
+        merged[0] += unit[1];
+        merged[1] += unit[2];
+      }
     }
-
-    if ((latency < min) || (min < 0)) {
-      min = latency;
+    interval.units.clear();
+
+    operations += interval.operations;
+    totallatency += interval.totallatency;
+    windowoperations += interval.operations;
+    windowtotallatency += interval.totallatency;
+    if (interval.max > max) {
+      max = interval.max;
+    }
+    if ((interval.min >= 0) && ((interval.min < min) || (min < 0))) {
+      min = interval.min;
     }
-  }
 
+    interval.operations = 0;
+    interval.totallatency = 0;
+    interval.min = -1;
+    interval.max = -1;
+  }
 
   @Override
-  public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
-    checkEndOfUnit(true);
+  public synchronized void exportMeasurements(MeasurementsExporter exporter) throws IOException {
+    merge();
 
     exporter.write(getName(), "Operations", operations);
-    exporter.write(getName(), "AverageLatency(us)", (((double) totallatency) / ((double) operations)));
-    exporter.write(getName(), "MinLatency(us)", min);
-    exporter.write(getName(), "MaxLatency(us)", max);
+    exporter.write(getName(), "AverageLatency(" + latencyunit + ")", (((double) totallatency) / ((double) operations)));
+    exporter.write(getName(), "MinLatency(" + latencyunit + ")", min);
+    exporter.write(getName(), "MaxLatency(" + latencyunit + ")", max);
 
     // TODO: 95th and 99th percentile latency
 
     exportStatusCounts(exporter);
-    for (SeriesUnit unit : measurements) {
-      exporter.write(getName(), Long.toString(unit.time), unit.average);
+    for (Map.Entry<Long, long[]> unit : units.entrySet()) {
+      final SeriesUnit series = new SeriesUnit(unit.getKey(), ((double) unit.getValue()[1]) / unit.getValue()[0]);
+      exporter.write(getName(), Long.toString(series.time), series.average);
     }
   }
 
   @Override
-  public String getSummary() {
+  public synchronized String getSummary() {
+    merge();
     if (windowoperations == 0) {
       return "";
     }
@@ -140,7 +206,7 @@ public class OneMeasurementTimeSeries extends OneMeasurement {
     double report = ((double) windowtotallatency) / ((double) windowoperations);
     windowtotallatency = 0;
     windowoperations = 0;
-    return "[" + getName() + " AverageLatency(us)=" + d.format(report) + "]";
+    return "[" + getName() + " AverageLatency(" + latencyunit + ")=" + d.format(report) + "]";
   }
 
 }
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the completed operations per operation type (READ, UPDATE, ...) and outcome (OK or failed),
+ * and the payload bytes they sent and received when payload accounting is enabled. The counters are
+ * {@link LongAdder}s, so that client threads do not contend on them, and are read periodically to
+ * compute the throughput of each operation type.
+ */
+public class OperationCounters {
+  /**
+   * The counts of a single operation type.
+   */
+  public static final class Counts {
+    private final long ok;
+    private final long failed;
+    private final long bytesSent;
+    private final long bytesReceived;
+
+    Counts(long ok, long failed, long bytesSent, long bytesReceived) {
+      this.ok = ok;
+      this.failed = failed;
+      this.bytesSent = bytesSent;
+      this.bytesReceived = bytesReceived;
+    }
+
+    public long getOk() {
+      return ok;
+    }
+
+    public long getFailed() {
+      return failed;
+    }
+
+    public long getTotal() {
+      return ok + failed;
+    }
+
+    /**
+     * @return The payload bytes sent to the DB, e.g. the values inserted or updated.
+     */
+    public long getBytesSent() {
+      return bytesSent;
+    }
+
+    /**
+     * @return The payload bytes received from the DB, e.g. the values read or scanned.
+     */
+    public long getBytesReceived() {
+      return bytesReceived;
+    }
+
+    /**
+     * @return The counts since the given, earlier, counts.
+     */
+    public Counts minus(Counts earlier) {
+      return earlier == null ? this : new Counts(ok - earlier.ok, failed - earlier.failed,
+          bytesSent - earlier.bytesSent, bytesReceived - earlier.bytesReceived);
+    }
+  }
+
+  /**
+   * The counters of a single operation type.
+   */
+  static final class Counter {
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    void count(Status status) {
+      if (status.isOk()) {
+        ok.increment();
+      } else {
+        failed.increment();
+      }
+    }
+
+    void countBytes(long sent, long received) {
+      if (sent > 0) {
+        bytesSent.add(sent);
+      }
+      if (received > 0) {
+        bytesReceived.add(received);
+      }
+    }
+  }
+
+  private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+  // The counts at the end of the warm-up phase, excluded from the exported throughput.
+  private volatile SortedMap<String, Counts> baseline = new TreeMap<>();
+
+  /**
+   * Count a completed operation.
+   */
+  public void count(String operation, Status status) {
+    getCounter(operation).count(status);
+  }
+
+  /**
+   * @return The counter of an operation type, valid until the next {@link #reset()}.
+   */
+  Counter getCounter(String operation) {
+    Counter counter = counters.get(operation);
+    if (counter == null) {
+      counter = counters.computeIfAbsent(operation, k -> new Counter());
+    }
+    return counter;
+  }
+
+  /**
+   * @return The current counts, by operation type.
+   */
+  public SortedMap<String, Counts> snapshot() {
+    final SortedMap<String, Counts> snapshot = new TreeMap<>();
+    for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+      final Counter counter = entry.getValue();
+      snapshot.put(entry.getKey(), new Counts(counter.ok.sum(), counter.failed.sum(), counter.bytesSent.sum(),
+          counter.bytesReceived.sum()));
+    }
+    return snapshot;
+  }
+
+  /**
+   * Exclude the operations counted so far from the exported throughput, e.g. at the end of the
+   * warm-up phase.
+   */
+  public void setBaseline() {
+    baseline = snapshot();
+  }
+
+  /**
+   * Discard all the counts.
+   */
+  public void reset() {
+    counters.clear();
+    baseline = new TreeMap<>();
+  }
+
+  /**
+   * Export the count and the throughput of each operation type, since the baseline, and their payload
+   * throughput if payload bytes were counted.
+   *
+   * @param exporter  Exporter representing the type of format to write to.
+   * @param runtimeMs The time over which the operations, since the baseline, were executed.
+   * @throws IOException Thrown if the export failed.
+   */
+  public void exportMeasurements(MeasurementsExporter exporter, long runtimeMs) throws IOException {
+    final SortedMap<String, Counts> start = baseline;
+    for (Map.Entry<String, Counts> entry : snapshot().entrySet()) {
+      final Counts counts = entry.getValue().minus(start.get(entry.getKey()));
+      final String metric = "THROUGHPUT-" + entry.getKey();
+      exporter.write(metric, "Operations", counts.getTotal());
+      exporter.write(metric, "Failed", counts.getFailed());
+      exporter.write(metric, "Throughput(ops/sec)", 1000.0 * counts.getTotal() / runtimeMs);
+      if (counts.getBytesSent() > 0 || counts.getBytesReceived() > 0) {
+        exporter.write(metric, "BytesSent", counts.getBytesSent());
+        exporter.write(metric, "BytesReceived", counts.getBytesReceived());
+        exporter.write(metric, "Sent(MB/sec)", megabytesPerSecond(counts.getBytesSent(), runtimeMs));
+        exporter.write(metric, "Received(MB/sec)", megabytesPerSecond(counts.getBytesReceived(), runtimeMs));
+      }
+    }
+  }
+
+  /**
+   * @return The given number of bytes over the given time, in MB (2^20 bytes) per second.
+   */
+  public static double megabytesPerSecond(long bytes, long intervalMs) {
+    return 1000.0 * bytes / intervalMs / (1024 * 1024);
+  }
+}
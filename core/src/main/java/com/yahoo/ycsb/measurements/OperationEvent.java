@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A DB operation, as seen by the DBWrapper. The duration of the event is the latency of the operation.
+ */
+@Name("ycsb.Operation")
+@Label("YCSB Operation")
+@Category("YCSB")
+@Description("A DB operation slower than the jfr.threshold of the run")
+@StackTrace(false)
+final class OperationEvent extends Event {
+  @Label("Operation")
+  private String operation;
+
+  @Label("Table")
+  private String table;
+
+  @Label("Key")
+  private String key;
+
+  @Label("Status")
+  private String status;
+
+  @Label("Value Bytes")
+  @Description("The bytes of the values sent or received, if measurement.payload is enabled")
+  @DataAmount
+  private long bytes;
+
+  void set(String op, String tableName, String recordKey, String statusName, long valueBytes) {
+    operation = op;
+    table = tableName;
+    key = recordKey;
+    status = statusName;
+    bytes = valueBytes;
+  }
+}
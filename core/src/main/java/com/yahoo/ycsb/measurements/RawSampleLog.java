@@ -0,0 +1,275 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * The raw data points recorded by a single thread, written to a memory-mapped file so that they do
+ * not take any heap space.
+ * <p>
+ * Each data point is stored as two varints: the zigzag-encoded difference between its timestamp and
+ * the one of the previous data point, and the zigzag-encoded latency, so that a data point usually
+ * takes 3 to 4 bytes. The file is mapped in chunks; a data point never spans two chunks.
+ * <p>
+ * The log is written by its thread only, and can be read concurrently up to the data points
+ * published so far. Once exported or discarded, the log must be closed to unmap and delete its file.
+ */
+final class RawSampleLog {
+  private static final int CHUNK_SIZE_DEFAULT = 16 * 1024 * 1024;
+  // The largest encoded data point: two 64 bits varints.
+  private static final int MAX_RECORD_SIZE = 10 + 10;
+
+  private static final AtomicLongFieldUpdater<RawSampleLog> WRITTEN =
+      AtomicLongFieldUpdater.newUpdater(RawSampleLog.class, "written");
+  private static final AtomicLongFieldUpdater<RawSampleLog> COUNT =
+      AtomicLongFieldUpdater.newUpdater(RawSampleLog.class, "count");
+  private static final AtomicLongFieldUpdater<RawSampleLog> SUM =
+      AtomicLongFieldUpdater.newUpdater(RawSampleLog.class, "sum");
+
+  private final int chunkSize;
+  private final File file;
+  private final RandomAccessFile raf;
+  private final FileChannel channel;
+
+  // Only accessed by the writing thread, and by close() once it is done.
+  private MappedByteBuffer buffer;
+  private long chunkStart = 0;
+  private long lastTimestamp = 0;
+
+  // Published by the writing thread after each data point.
+  private volatile long written = 0;
+  private volatile long count = 0;
+  private volatile long sum = 0;
+
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a new log in a temporary file, deleted when the log is closed, or on exit at the latest.
+   *
+   * @param dir The directory of the file, or null for the default temporary directory.
+   */
+  RawSampleLog(File dir) throws IOException {
+    this(dir, CHUNK_SIZE_DEFAULT);
+  }
+
+  /**
+   * Creates a new log in a temporary file, mapped in chunks of the given size.
+   */
+  RawSampleLog(File dir, int chunkSize) throws IOException {
+    this.chunkSize = chunkSize;
+    file = File.createTempFile("ycsb-raw-", ".bin", dir);
+    file.deleteOnExit();
+    raf = new RandomAccessFile(file, "rw");
+    channel = raf.getChannel();
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, chunkSize);
+  }
+
+  /**
+   * Append a data point. Only called by the thread owning this log.
+   */
+  void append(long timestamp, long latency) throws IOException {
+    if (closed) {
+      throw new IOException("The raw data spill file " + file + " is closed");
+    }
+    if (chunkSize - buffer.position() < MAX_RECORD_SIZE) {
+      chunkStart += chunkSize;
+      unmap(buffer);
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, chunkSize);
+    }
+    putVarLong(buffer, zigzag(timestamp - lastTimestamp));
+    putVarLong(buffer, zigzag(latency));
+    lastTimestamp = timestamp;
+
+    COUNT.lazySet(this, count + 1);
+    SUM.lazySet(this, sum + latency);
+    WRITTEN.lazySet(this, chunkStart + buffer.position());
+  }
+
+  /**
+   * @return The number of data points published so far.
+   */
+  long getCount() {
+    return count;
+  }
+
+  /**
+   * @return The sum of the latencies published so far.
+   */
+  long getSum() {
+    return sum;
+  }
+
+  /**
+   * @return The file the data points are written to.
+   */
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * Unmap and delete the file of the log. The log must not be appended to, nor read, concurrently or
+   * afterwards.
+   */
+  synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    unmap(buffer);
+    buffer = null;
+    try {
+      channel.close();
+      raf.close();
+    } finally {
+      if (!file.delete() && file.exists()) {
+        throw new IOException("Failed to delete the raw data spill file " + file);
+      }
+    }
+  }
+
+  /**
+   * @return A reader of the data points published so far.
+   */
+  Reader reader() throws IOException {
+    return new Reader(written);
+  }
+
+  /**
+   * Reads the data points of a log in order.
+   */
+  final class Reader {
+    private final long end;
+    private MappedByteBuffer chunk;
+    private long readChunkStart = -chunkSize;
+    private long timestamp = 0;
+    private long latency;
+
+    private Reader(long end) {
+      this.end = end;
+    }
+
+    /**
+     * Move to the next data point.
+     *
+     * @return False if there are no more data points.
+     */
+    boolean next() throws IOException {
+      if (chunk == null || chunkSize - chunk.position() < MAX_RECORD_SIZE) {
+        release();
+        readChunkStart += chunkSize;
+        if (readChunkStart >= end) {
+          return false;
+        }
+        chunk = channel.map(FileChannel.MapMode.READ_ONLY, readChunkStart, Math.min(chunkSize, end - readChunkStart));
+      }
+      if (!chunk.hasRemaining()) {
+        release();
+        return false;
+      }
+      timestamp += unzigzag(getVarLong(chunk));
+      latency = unzigzag(getVarLong(chunk));
+      return true;
+    }
+
+    // Unmap the current chunk, which is not read anymore.
+    private void release() {
+      if (chunk != null) {
+        unmap(chunk);
+        chunk = null;
+      }
+    }
+
+    long getTimestamp() {
+      return timestamp;
+    }
+
+    long getLatency() {
+      return latency;
+    }
+  }
+
+  /**
+   * Unmap a buffer now rather than when it is garbage collected, so that its file can be deleted on all
+   * platforms, and its address space is released. The buffer must not be accessed afterwards. Best effort:
+   * buffers that cannot be unmapped are left to the garbage collector.
+   */
+  private static void unmap(MappedByteBuffer mapped) {
+    if (mapped == null) {
+      return;
+    }
+    try {
+      // Java 9 and later.
+      final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), mapped);
+    } catch (NoSuchMethodException e) {
+      // Java 8.
+      try {
+        final Method cleanerMethod = mapped.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        final Object cleaner = cleanerMethod.invoke(mapped);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+      } catch (ReflectiveOperationException | RuntimeException e8) {
+        // Left to the garbage collector.
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // Left to the garbage collector.
+    }
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static void putVarLong(MappedByteBuffer buf, long value) {
+    long v = value;
+    while ((v & ~0x7FL) != 0) {
+      buf.put((byte) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    buf.put((byte) v);
+  }
+
+  private static long getVarLong(MappedByteBuffer buf) {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buf.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import org.HdrHistogram.WriterReaderPhaser;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Records values into per-thread intervals, that a reader periodically swaps out and merges, in the
+ * way HdrHistogram's {@link org.HdrHistogram.Recorder} does for histograms.
+ * <p>
+ * Each recording thread only ever writes to its own active interval, guarded by its own
+ * {@link WriterReaderPhaser}, so recording is wait-free and threads do not contend with each other.
+ * The reader swaps the active and the inactive interval of each thread, waits for the writers to be
+ * done with the former, and hands it to the merging function, which must leave it empty.
+ *
+ * @param <T> The type of the per-thread intervals, only accessed by one thread at a time.
+ */
+final class ThreadLocalRecorder<T> {
+  /**
+   * The intervals of a recording thread.
+   */
+  private static final class Slot<T> {
+    private final WriterReaderPhaser phaser = new WriterReaderPhaser();
+    private volatile T active;
+    private T inactive;
+
+    private Slot(T active, T inactive) {
+      this.active = active;
+      this.inactive = inactive;
+    }
+  }
+
+  private final Supplier<T> factory;
+  private final ObjLongConsumer<T> recording;
+  private final Queue<Slot<T>> slots = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<Slot<T>> slot = new ThreadLocal<Slot<T>>() {
+    @Override
+    protected Slot<T> initialValue() {
+      final Slot<T> s = new Slot<>(factory.get(), factory.get());
+      slots.add(s);
+      return s;
+    }
+  };
+
+  /**
+   * @param factory   Creates an empty interval.
+   * @param recording Records a value into an interval.
+   */
+  ThreadLocalRecorder(Supplier<T> factory, ObjLongConsumer<T> recording) {
+    this.factory = factory;
+    this.recording = recording;
+  }
+
+  /**
+   * Record a value into the interval of the calling thread.
+   */
+  void record(long value) {
+    final Slot<T> s = slot.get();
+    final long criticalValue = s.phaser.writerCriticalSectionEnter();
+    try {
+      recording.accept(s.active, value);
+    } finally {
+      s.phaser.writerCriticalSectionExit(criticalValue);
+    }
+  }
+
+  /**
+   * Hand the values recorded by each thread since the previous call to the given function. Meant to
+   * be called by a single reader at a time.
+   *
+   * @param merge Merges an interval, and leaves it empty.
+   */
+  void drain(Consumer<T> merge) {
+    for (Slot<T> s : slots) {
+      s.phaser.readerLock();
+      try {
+        final T recorded = s.active;
+        s.active = s.inactive;
+        s.inactive = recorded;
+        s.phaser.flipPhase();
+      } finally {
+        s.phaser.readerUnlock();
+      }
+      merge.accept(s.inactive);
+    }
+  }
+}
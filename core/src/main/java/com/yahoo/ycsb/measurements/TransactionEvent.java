@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A transaction (or insert) of a client thread, i.e. a call to the workload, and the DB operations it
+ * made. The duration of the event is the one of the whole transaction.
+ */
+@Name("ycsb.Transaction")
+@Label("YCSB Transaction")
+@Category("YCSB")
+@Description("A workload transaction slower than the jfr.threshold of the run")
+@StackTrace(false)
+final class TransactionEvent extends Event {
+  @Label("Workload")
+  private String workload;
+
+  @Label("Trace Line")
+  @Description("The line of the trace file replayed by the transaction, for trace based workloads")
+  private String traceLine;
+
+  @Label("Generator Time")
+  @Description("The time spent in the workload, e.g. generating keys and values, outside of the DB")
+  @Timespan
+  private long generatorTime;
+
+  @Label("DB Time")
+  @Description("The time spent in the DB operations of the transaction")
+  @Timespan
+  private long dbTime;
+
+  void set(String workloadName, String line, long generatorNanos, long dbNanos) {
+    workload = workloadName;
+    traceLine = line;
+    generatorTime = generatorNanos;
+    dbTime = dbNanos;
+  }
+}
@@ -20,7 +20,11 @@ package com.yahoo.ycsb.measurements;
 import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
+import org.HdrHistogram.Histogram;
+
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * delegates to 2 measurement instances.
@@ -44,13 +48,22 @@ public class TwoInOneMeasurement extends OneMeasurement {
   }
 
   /**
-   * It appears latency is reported in micros.
-   * Using {@link org.HdrHistogram.Recorder} to support concurrent updates to histogram.
+   * Delegates the latency, in the unit of the measurements, to both measurements.
    */
   @Override
-  public void measure(int latencyInMicros) {
-    thing1.measure(latencyInMicros);
-    thing2.measure(latencyInMicros);
+  public void measure(long latency) {
+    thing1.measure(latency);
+    thing2.measure(latency);
+  }
+
+  @Override
+  Map<Status, AtomicInteger> getStatusCounts() {
+    return thing1.getStatusCounts();
+  }
+
+  @Override
+  Histogram getLastIntervalHistogram() {
+    return thing1.getLastIntervalHistogram();
   }
 
   /**
@@ -62,6 +75,12 @@ public class TwoInOneMeasurement extends OneMeasurement {
     thing2.exportMeasurements(exporter);
   }
 
+  @Override
+  void close() {
+    thing1.close();
+    thing2.close();
+  }
+
   /**
    * This is called periodically from the StatusThread. There's a single StatusThread per Client process.
    * We optionally serialize the interval to log on this opportunity.
@@ -44,7 +44,8 @@ import java.util.*;
  * <LI><b>readmodifywriteproportion</b>: what proportion of operations should be read a record,
  * modify it, write it back (default: 0)
  * <LI><b>requestdistribution</b>: what distribution should be used to select the records to operate
- * on - uniform, zipfian, hotspot, sequential, exponential or latest (default: uniform)
+ * on - uniform, zipfian, hotspot, movinghotspot, empirical, sequential, exponential or latest
+ * (default: uniform)
  * <LI><b>maxscanlength</b>: for scans, what is the maximum number of records to scan (default: 1000)
  * <LI><b>scanlengthdistribution</b>: for scans, what distribution should be used to choose the
  * number of records to scan, for each scan, between 1 and maxscanlength (default: uniform)
@@ -128,6 +129,54 @@ public class CoreWorkload extends Workload {
    */
   protected NumberGenerator fieldlengthgenerator;
 
+  /**
+   * The name of the property for how the random field values are generated: "random" generates every
+   * byte of every value, "pooled" slices values out of a pool of random bytes generated once, and
+   * "compressible" slices values out of a pool of data compressible by the target ratio.
+   */
+  public static final String FIELD_VALUE_GENERATOR_PROPERTY = "fieldvaluegenerator";
+
+  /**
+   * The default field value generator.
+   */
+  public static final String FIELD_VALUE_GENERATOR_PROPERTY_DEFAULT = "random";
+
+  /**
+   * The name of the property for the size in bytes of the pool of the "pooled" field value generator.
+   */
+  public static final String FIELD_VALUE_POOL_SIZE_PROPERTY = "fieldvaluegenerator.poolsize";
+
+  /**
+   * The default size of the pool of field values.
+   */
+  public static final String FIELD_VALUE_POOL_SIZE_PROPERTY_DEFAULT = "16777216";
+
+  /**
+   * The name of the property for the target compression ratio of the "compressible" field value generator.
+   */
+  public static final String FIELD_VALUE_COMPRESSION_RATIO_PROPERTY = "fieldvaluegenerator.compressionratio";
+
+  /**
+   * The default target compression ratio of field values.
+   */
+  public static final String FIELD_VALUE_COMPRESSION_RATIO_PROPERTY_DEFAULT = "2.0";
+
+  /**
+   * The name of the property for the entropy, in bits from 1 to 8, of the random bytes of the "compressible"
+   * field value generator. Random bytes are printable characters with 6 bits or less.
+   */
+  public static final String FIELD_VALUE_ENTROPY_PROPERTY = "fieldvaluegenerator.entropy";
+
+  /**
+   * The default entropy of the random bytes of field values.
+   */
+  public static final String FIELD_VALUE_ENTROPY_PROPERTY_DEFAULT = "8";
+
+  /**
+   * The pool that field values are sliced out of, or null to generate every byte of every value.
+   */
+  protected BytePool fieldvaluepool;
+
   /**
    * The name of the property for deciding whether to read one field (false) or all fields (true) of
    * a record.
@@ -232,6 +281,29 @@ public class CoreWorkload extends Workload {
    */
   public static final String REQUEST_DISTRIBUTION_PROPERTY_DEFAULT = "uniform";
 
+  /**
+   * The name of the property for the algorithm sampling the "zipfian" and "latest" request distributions:
+   * "gray" (Gray et al., which needs the zeta constant of the item count) or "rejectioninversion" (Hörmann
+   * and Derflinger, which needs no zeta constant and does not lock when the item count grows).
+   */
+  public static final String ZIPFIAN_SAMPLER_PROPERTY = "zipfian.sampler";
+
+  /**
+   * The default algorithm sampling zipfian request distributions.
+   */
+  public static final String ZIPFIAN_SAMPLER_PROPERTY_DEFAULT = "gray";
+
+  /**
+   * The name of the property for the zipfian constant of the "zipfian" and "latest" request distributions.
+   * Constants of 1 or more require the "rejectioninversion" sampler.
+   */
+  public static final String ZIPFIAN_CONSTANT_PROPERTY = "zipfian.constant";
+
+  /**
+   * The default zipfian constant of request distributions.
+   */
+  public static final String ZIPFIAN_CONSTANT_PROPERTY_DEFAULT = String.valueOf(ZipfianGenerator.ZIPFIAN_CONSTANT);
+
   /**
    * The name of the property for adding zero padding to record numbers in order to match
    * string sort order. Controls the number of 0s to left pad with.
@@ -295,6 +367,74 @@ public class CoreWorkload extends Workload {
    */
   public static final String HOTSPOT_OPN_FRACTION_DEFAULT = "0.8";
 
+  /**
+   * The fractions of data items covered by each hot spot of the "movinghotspot" request distribution,
+   * comma-separated.
+   */
+  public static final String MOVING_HOTSPOT_DATA_FRACTIONS = "movinghotspot.datafractions";
+
+  /**
+   * Default value of the fractions of data items covered by the moving hot spots.
+   */
+  public static final String MOVING_HOTSPOT_DATA_FRACTIONS_DEFAULT = "0.1";
+
+  /**
+   * The fractions of operations that access each hot spot of the "movinghotspot" request distribution,
+   * comma-separated, one per hot spot.
+   */
+  public static final String MOVING_HOTSPOT_OPN_FRACTIONS = "movinghotspot.opnfractions";
+
+  /**
+   * Default value of the fractions of operations accessing the moving hot spots.
+   */
+  public static final String MOVING_HOTSPOT_OPN_FRACTIONS_DEFAULT = "0.8";
+
+  /**
+   * How the hot spots of the "movinghotspot" request distribution move: "slide", "jump" or "periodic".
+   */
+  public static final String MOVING_HOTSPOT_MOVEMENT = "movinghotspot.movement";
+
+  /**
+   * Default movement of the moving hot spots.
+   */
+  public static final String MOVING_HOTSPOT_MOVEMENT_DEFAULT = "slide";
+
+  /**
+   * The period in seconds of the movement of the hot spots of the "movinghotspot" request distribution.
+   */
+  public static final String MOVING_HOTSPOT_PERIOD = "movinghotspot.period";
+
+  /**
+   * Default period of the movement of the moving hot spots.
+   */
+  public static final String MOVING_HOTSPOT_PERIOD_DEFAULT = "600";
+
+  /**
+   * The file of (rank, weight) pairs of the "empirical" request distribution.
+   */
+  public static final String EMPIRICAL_FILE = "empirical.file";
+
+  /**
+   * How ranks of the "empirical" request distribution are drawn: "alias" (constant time, 12 bytes per pair) or
+   * "binarysearch" (logarithmic time, 8 bytes per pair).
+   */
+  public static final String EMPIRICAL_SAMPLING = "empirical.sampling";
+
+  /**
+   * Default sampling of the empirical distribution.
+   */
+  public static final String EMPIRICAL_SAMPLING_DEFAULT = "alias";
+
+  /**
+   * Whether the ranks of the "empirical" request distribution are scattered over the keyspace.
+   */
+  public static final String EMPIRICAL_SCRAMBLE = "empirical.scramble";
+
+  /**
+   * Default value of the scattering of the ranks of the empirical distribution.
+   */
+  public static final String EMPIRICAL_SCRAMBLE_DEFAULT = "true";
+
   /**
    * How many times to retry when insertion of a single item to a DB fails.
    */
@@ -317,6 +457,7 @@ public class CoreWorkload extends Workload {
   protected long fieldcount;
   protected long recordcount;
   protected int zeropadding;
+  protected KeyNameEncoder keynameencoder;
   protected int insertionRetryLimit;
   protected int insertionRetryInterval;
 
@@ -350,6 +491,94 @@ public class CoreWorkload extends Workload {
     return fieldlengthgenerator;
   }
 
+  protected static MovingHotspotGenerator getMovingHotspotGenerator(Properties p, long lowerbound, long upperbound)
+      throws WorkloadException {
+    String movement = p.getProperty(MOVING_HOTSPOT_MOVEMENT, MOVING_HOTSPOT_MOVEMENT_DEFAULT);
+    try {
+      double[] hotsetfractions =
+          parseFractions(p.getProperty(MOVING_HOTSPOT_DATA_FRACTIONS, MOVING_HOTSPOT_DATA_FRACTIONS_DEFAULT));
+      double[] hotopnfractions =
+          parseFractions(p.getProperty(MOVING_HOTSPOT_OPN_FRACTIONS, MOVING_HOTSPOT_OPN_FRACTIONS_DEFAULT));
+      double period = Double.parseDouble(p.getProperty(MOVING_HOTSPOT_PERIOD, MOVING_HOTSPOT_PERIOD_DEFAULT));
+      return new MovingHotspotGenerator(lowerbound, upperbound, hotsetfractions, hotopnfractions,
+          MovingHotspotGenerator.Movement.valueOf(movement.toUpperCase(Locale.ROOT)), period);
+    } catch (IllegalArgumentException e) {
+      throw new WorkloadException("Invalid moving hot spots: " + e.getMessage(), e);
+    }
+  }
+
+  protected static EmpiricalDistributionGenerator getEmpiricalGenerator(Properties p, long lowerbound,
+                                                                      long upperbound) throws WorkloadException {
+    String file = p.getProperty(EMPIRICAL_FILE);
+    if (file == null) {
+      throw new WorkloadException("The empirical request distribution needs a file: " + EMPIRICAL_FILE);
+    }
+    String sampling = p.getProperty(EMPIRICAL_SAMPLING, EMPIRICAL_SAMPLING_DEFAULT);
+    EmpiricalDistributionGenerator.Sampling mode;
+    if (sampling.equals("alias")) {
+      mode = EmpiricalDistributionGenerator.Sampling.ALIAS;
+    } else if (sampling.equals("binarysearch")) {
+      mode = EmpiricalDistributionGenerator.Sampling.BINARY_SEARCH;
+    } else {
+      throw new WorkloadException("Unknown empirical sampling \"" + sampling + "\"");
+    }
+    boolean scramble = Boolean.parseBoolean(p.getProperty(EMPIRICAL_SCRAMBLE, EMPIRICAL_SCRAMBLE_DEFAULT));
+    try {
+      return new EmpiricalDistributionGenerator(lowerbound, upperbound, file, mode, scramble);
+    } catch (IOException e) {
+      throw new WorkloadException("Couldn't read empirical distribution file: " + file, e);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      throw new WorkloadException("Invalid empirical distribution " + file + ": " + e.getMessage(), e);
+    }
+  }
+
+  private static double[] parseFractions(String fractions) {
+    String[] parts = fractions.split(",");
+    double[] values = new double[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      values[i] = Double.parseDouble(parts[i].trim());
+    }
+    return values;
+  }
+
+  protected static BytePool getFieldValuePool(Properties p) throws WorkloadException {
+    String fieldvaluegenerator =
+        p.getProperty(FIELD_VALUE_GENERATOR_PROPERTY, FIELD_VALUE_GENERATOR_PROPERTY_DEFAULT);
+    if (fieldvaluegenerator.equals("random")) {
+      return null;
+    }
+    int poolsize = Integer.parseInt(
+        p.getProperty(FIELD_VALUE_POOL_SIZE_PROPERTY, FIELD_VALUE_POOL_SIZE_PROPERTY_DEFAULT));
+    if (poolsize <= 0) {
+      throw new WorkloadException("Invalid field value pool size " + poolsize);
+    }
+    if (fieldvaluegenerator.equals("pooled")) {
+      return new BytePool(poolsize);
+    } else if (fieldvaluegenerator.equals("compressible")) {
+      double ratio = Double.parseDouble(p.getProperty(
+          FIELD_VALUE_COMPRESSION_RATIO_PROPERTY, FIELD_VALUE_COMPRESSION_RATIO_PROPERTY_DEFAULT));
+      int entropy = Integer.parseInt(p.getProperty(FIELD_VALUE_ENTROPY_PROPERTY, FIELD_VALUE_ENTROPY_PROPERTY_DEFAULT));
+      BytePool pool;
+      try {
+        pool = BytePool.compressible(poolsize, ratio, entropy);
+      } catch (IllegalArgumentException e) {
+        throw new WorkloadException(e.getMessage(), e);
+      }
+      System.err.println(String.format("Field values compress %.2f:1 with deflate (target %.2f:1)",
+          pool.compressionRatio(), ratio));
+      return pool;
+    } else {
+      throw new WorkloadException("Unknown field value generator \"" + fieldvaluegenerator + "\"");
+    }
+  }
+
+  /**
+   * @return A random field value of the given length, from the pool of field values if any.
+   */
+  protected static ByteIterator newFieldValue(BytePool pool, long length) {
+    return pool != null ? pool.newValue(length) : new RandomByteIterator(length);
+  }
+
   /**
    * Initialize the scenario.
    * Called once, in the main client thread, before any operations are started.
@@ -365,6 +594,7 @@ public class CoreWorkload extends Workload {
       fieldnames.add("field" + i);
     }
     fieldlengthgenerator = CoreWorkload.getFieldLengthGenerator(p);
+    fieldvaluepool = getFieldValuePool(p);
 
     recordcount =
         Long.parseLong(p.getProperty(Client.RECORD_COUNT_PROPERTY, Client.DEFAULT_RECORD_COUNT));
@@ -381,7 +611,7 @@ public class CoreWorkload extends Workload {
     long insertstart =
         Long.parseLong(p.getProperty(INSERT_START_PROPERTY, INSERT_START_PROPERTY_DEFAULT));
     long insertcount=
-        Integer.parseInt(p.getProperty(INSERT_COUNT_PROPERTY, String.valueOf(recordcount - insertstart)));
+        Long.parseLong(p.getProperty(INSERT_COUNT_PROPERTY, String.valueOf(recordcount - insertstart)));
     // Confirm valid values for insertstart and insertcount in relation to recordcount
     if (recordcount < (insertstart + insertcount)) {
       System.err.println("Invalid combination of insertstart, insertcount and recordcount.");
@@ -390,6 +620,7 @@ public class CoreWorkload extends Workload {
     }
     zeropadding =
         Integer.parseInt(p.getProperty(ZERO_PADDING_PROPERTY, ZERO_PADDING_PROPERTY_DEFAULT));
+    keynameencoder = new KeyNameEncoder("user", zeropadding);
 
     readallfields = Boolean.parseBoolean(
         p.getProperty(READ_ALL_FIELDS_PROPERTY, READ_ALL_FIELDS_PROPERTY_DEFAULT));
@@ -425,6 +656,17 @@ public class CoreWorkload extends Workload {
     operationchooser = createOperationGenerator(p);
 
     transactioninsertkeysequence = new AcknowledgedCounterGenerator(recordcount);
+    final String zipfiansampler = p.getProperty(ZIPFIAN_SAMPLER_PROPERTY, ZIPFIAN_SAMPLER_PROPERTY_DEFAULT);
+    if (!zipfiansampler.equals("gray") && !zipfiansampler.equals("rejectioninversion")) {
+      throw new WorkloadException("Unknown zipfian sampler \"" + zipfiansampler + "\"");
+    }
+    final boolean rejectioninversion = zipfiansampler.equals("rejectioninversion");
+    final double zipfianconstant =
+        Double.parseDouble(p.getProperty(ZIPFIAN_CONSTANT_PROPERTY, ZIPFIAN_CONSTANT_PROPERTY_DEFAULT));
+    if (!(zipfianconstant > 0) || (!rejectioninversion && zipfianconstant >= 1)) {
+      throw new WorkloadException("Invalid zipfian constant " + zipfianconstant + " for the " + zipfiansampler
+          + " sampler");
+    }
     if (requestdistrib.compareTo("uniform") == 0) {
       keychooser = new UniformLongGenerator(insertstart, insertstart + insertcount - 1);
     } else if (requestdistrib.compareTo("sequential") == 0) {
@@ -441,12 +683,18 @@ public class CoreWorkload extends Workload {
       // the keyspace doesn't change from the perspective of the scrambled zipfian generator
       final double insertproportion = Double.parseDouble(
           p.getProperty(INSERT_PROPORTION_PROPERTY, INSERT_PROPORTION_PROPERTY_DEFAULT));
-      int opcount = Integer.parseInt(p.getProperty(Client.OPERATION_COUNT_PROPERTY));
-      int expectednewkeys = (int) ((opcount) * insertproportion * 2.0); // 2 is fudge factor
+      long opcount = Long.parseLong(p.getProperty(Client.OPERATION_COUNT_PROPERTY));
+      long expectednewkeys = (long) ((opcount) * insertproportion * 2.0); // 2 is fudge factor
 
-      keychooser = new ScrambledZipfianGenerator(insertstart, insertstart + insertcount + expectednewkeys);
+      if (rejectioninversion) {
+        keychooser = new ScrambledZipfianGenerator(insertstart, insertstart + insertcount + expectednewkeys,
+            new RejectionInversionZipfianGenerator(0, ScrambledZipfianGenerator.ITEM_COUNT, zipfianconstant));
+      } else {
+        keychooser = new ScrambledZipfianGenerator(insertstart, insertstart + insertcount + expectednewkeys,
+            zipfianconstant);
+      }
     } else if (requestdistrib.compareTo("latest") == 0) {
-      keychooser = new SkewedLatestGenerator(transactioninsertkeysequence);
+      keychooser = new SkewedLatestGenerator(transactioninsertkeysequence, zipfianconstant, rejectioninversion);
     } else if (requestdistrib.equals("hotspot")) {
       double hotsetfraction =
           Double.parseDouble(p.getProperty(HOTSPOT_DATA_FRACTION, HOTSPOT_DATA_FRACTION_DEFAULT));
@@ -454,6 +702,10 @@ public class CoreWorkload extends Workload {
           Double.parseDouble(p.getProperty(HOTSPOT_OPN_FRACTION, HOTSPOT_OPN_FRACTION_DEFAULT));
       keychooser = new HotspotIntegerGenerator(insertstart, insertstart + insertcount - 1,
           hotsetfraction, hotopnfraction);
+    } else if (requestdistrib.equals("movinghotspot")) {
+      keychooser = getMovingHotspotGenerator(p, insertstart, insertstart + insertcount - 1);
+    } else if (requestdistrib.equals("empirical")) {
+      keychooser = getEmpiricalGenerator(p, insertstart, insertstart + insertcount - 1);
     } else {
       throw new WorkloadException("Unknown request distribution \"" + requestdistrib + "\"");
     }
@@ -479,13 +731,7 @@ public class CoreWorkload extends Workload {
     if (!orderedinserts) {
       keynum = Utils.hash(keynum);
     }
-    String value = Long.toString(keynum);
-    int fill = zeropadding - value.length();
-    String prekey = "user";
-    for (int i = 0; i < fill; i++) {
-      prekey += '0';
-    }
-    return prekey + value;
+    return keynameencoder.encode(keynum);
   }
 
   /**
@@ -500,7 +746,7 @@ public class CoreWorkload extends Workload {
       data = new StringByteIterator(buildDeterministicValue(key, fieldkey));
     } else {
       // fill with random data
-      data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
+      data = newFieldValue(fieldvaluepool, fieldlengthgenerator.nextValue().longValue());
     }
     value.put(fieldkey, data);
 
@@ -519,7 +765,7 @@ public class CoreWorkload extends Workload {
         data = new StringByteIterator(buildDeterministicValue(key, fieldkey));
       } else {
         // fill with random data
-        data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
+        data = newFieldValue(fieldvaluepool, fieldlengthgenerator.nextValue().longValue());
       }
       values.put(fieldkey, data);
     }
@@ -570,7 +816,7 @@ public class CoreWorkload extends Workload {
         System.err.println("Retrying insertion, retry count: " + numOfRetries);
         try {
           // Sleep for a random number between [0.8, 1.2)*insertionRetryInterval.
-          int sleepTime = (int) (1000 * insertionRetryInterval * (0.8 + 0.4 * Math.random()));
+          int sleepTime = (int) (1000 * insertionRetryInterval * (0.8 + 0.4 * Utils.random().nextDouble()));
           Thread.sleep(sleepTime);
         } catch (InterruptedException e) {
           break;
@@ -642,7 +888,7 @@ public class CoreWorkload extends Workload {
       verifyStatus = Status.ERROR;
     }
     long endTime = System.nanoTime();
-    measurements.measure("VERIFY", (int) (endTime - startTime) / 1000);
+    measurements.measureNanos("VERIFY", endTime - startTime);
     measurements.reportStatus("VERIFY", verifyStatus);
   }
 
@@ -730,8 +976,8 @@ public class CoreWorkload extends Workload {
       verifyRow(keyname, cells);
     }
 
-    measurements.measure("READ-MODIFY-WRITE", (int) ((en - st) / 1000));
-    measurements.measureIntended("READ-MODIFY-WRITE", (int) ((en - ist) / 1000));
+    measurements.measureNanos("READ-MODIFY-WRITE", en - st);
+    measurements.measureIntendedNanos("READ-MODIFY-WRITE", en - ist);
   }
 
   public void doTransactionScan(DB db) {
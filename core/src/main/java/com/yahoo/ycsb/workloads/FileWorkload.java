@@ -20,6 +20,7 @@ package com.yahoo.ycsb.workloads;
 import com.yahoo.ycsb.*;
 import com.yahoo.ycsb.generator.*;
 import com.yahoo.ycsb.generator.UniformLongGenerator;
+import com.yahoo.ycsb.measurements.FlightRecorderEvents;
 import com.yahoo.ycsb.measurements.Measurements;
 
 import java.io.IOException;
@@ -122,6 +123,11 @@ public class FileWorkload extends Workload {
    */
   protected NumberGenerator fieldlengthgenerator;
 
+  /**
+   * The pool that field values are sliced out of, or null to generate every byte of every value.
+   */
+  protected BytePool fieldvaluepool;
+
   /**
    * The name of the property for deciding whether to read one field (false) or all fields (true) of
    * a record.
@@ -206,6 +212,7 @@ public class FileWorkload extends Workload {
   protected int insertionRetryInterval;
 
   private Measurements measurements = Measurements.getMeasurements();
+  private final FlightRecorderEvents events = measurements.getFlightRecorderEvents();
 
   protected static NumberGenerator getFieldLengthGenerator(Properties p) throws WorkloadException {
     NumberGenerator fieldlengthgenerator;
@@ -253,6 +260,7 @@ public class FileWorkload extends Workload {
       fieldnames.add("field" + i);
     }
     fieldlengthgenerator = CoreWorkload.getFieldLengthGenerator(p);
+    fieldvaluepool = CoreWorkload.getFieldValuePool(p);
 
     int maxscanlength =
         Integer.parseInt(p.getProperty(MAX_SCAN_LENGTH_PROPERTY, MAX_SCAN_LENGTH_PROPERTY_DEFAULT));
@@ -304,7 +312,7 @@ public class FileWorkload extends Workload {
       data = new StringByteIterator(buildDeterministicValue(key, fieldkey));
     } else {
       // fill with random data
-      data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
+      data = CoreWorkload.newFieldValue(fieldvaluepool, fieldlengthgenerator.nextValue().longValue());
     }
     value.put(fieldkey, data);
 
@@ -323,7 +331,7 @@ public class FileWorkload extends Workload {
         data = new StringByteIterator(buildDeterministicValue(key, fieldkey));
       } else {
         // fill with random data
-        data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
+        data = CoreWorkload.newFieldValue(fieldvaluepool, fieldlengthgenerator.nextValue().longValue());
       }
       values.put(fieldkey, data);
     }
@@ -370,6 +378,10 @@ public class FileWorkload extends Workload {
       return false;
     }
 
+    if (events != null) {
+      events.setTraceLine(nextLine);
+    }
+
     String[] fields = nextLine.split(",", 3);
     String operation = fields[0];
     String key = fields[1];
@@ -422,7 +434,7 @@ public class FileWorkload extends Workload {
       verifyStatus = Status.ERROR;
     }
     long endTime = System.nanoTime();
-    measurements.measure("VERIFY", (int) (endTime - startTime) / 1000);
+    measurements.measureNanos("VERIFY", endTime - startTime);
     measurements.reportStatus("VERIFY", verifyStatus);
   }
 
@@ -487,8 +499,8 @@ public class FileWorkload extends Workload {
       verifyRow(keyname, cells);
     }
 
-    measurements.measure("READ-MODIFY-WRITE", (int) ((en - st) / 1000));
-    measurements.measureIntended("READ-MODIFY-WRITE", (int) ((en - ist) / 1000));
+    measurements.measureNanos("READ-MODIFY-WRITE", en - st);
+    measurements.measureIntendedNanos("READ-MODIFY-WRITE", en - ist);
   }
 
   public void doTransactionScan(DB db, String startkeyname, Integer len) {
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes key numbers into key names, a prefix followed by the number left-padded with zeros to a minimum number of
+ * digits, e.g. "user00000005" for 5 with a padding of 8, as CoreWorkload always did.
+ * <p>
+ * The digits are written into a reusable buffer of the calling thread, so that encoding a key name only allocates the
+ * resulting String. Key names can also be written as ASCII bytes, into a buffer of the caller or a reusable ByteBuffer
+ * of the calling thread, without allocating at all; bindings that accept bytes can likewise turn the key names they
+ * are given into bytes with {@link #toBuffer(String)}.
+ */
+public final class KeyNameEncoder {
+  // The maximum length of a long in decimal: "-9223372036854775808".
+  private static final int MAX_DIGITS = 20;
+
+  // "00", "01", ... "99", in ASCII.
+  private static final byte[] DIGIT_PAIRS = new byte[200];
+
+  static {
+    for (int i = 0; i < 100; i++) {
+      DIGIT_PAIRS[2 * i] = (byte) ('0' + i / 10);
+      DIGIT_PAIRS[2 * i + 1] = (byte) ('0' + i % 10);
+    }
+  }
+
+  // The reusable buffers of toBuffer(String), grown as needed.
+  private static final ThreadLocal<ByteBuffer> KEY_BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocate(64));
+
+  private final byte[] prefix;
+  private final int zeropadding;
+  private final int maxLength;
+  private final ThreadLocal<byte[]> bytes;
+  private final ThreadLocal<ByteBuffer> buffers;
+
+  /**
+   * @param prefix      The prefix of the key names, in ASCII.
+   * @param zeropadding The minimum number of digits of the key numbers, including their sign.
+   */
+  public KeyNameEncoder(String prefix, int zeropadding) {
+    this.prefix = new byte[prefix.length()];
+    for (int i = 0; i < prefix.length(); i++) {
+      final char c = prefix.charAt(i);
+      if (c > 127) {
+        throw new IllegalArgumentException("The prefix of key names must be ASCII: " + prefix);
+      }
+      this.prefix[i] = (byte) c;
+    }
+    this.zeropadding = zeropadding;
+    this.maxLength = this.prefix.length + Math.max(zeropadding, MAX_DIGITS);
+    bytes = ThreadLocal.withInitial(this::newBytes);
+    buffers = ThreadLocal.withInitial(this::newBuffer);
+  }
+
+  private byte[] newBytes() {
+    return new byte[maxLength];
+  }
+
+  private ByteBuffer newBuffer() {
+    return ByteBuffer.wrap(new byte[maxLength]);
+  }
+
+  /**
+   * @return The maximum length of the key names.
+   */
+  public int getMaxLength() {
+    return maxLength;
+  }
+
+  /**
+   * @return The key name of a key number.
+   */
+  public String encode(long keynum) {
+    final byte[] buf = bytes.get();
+    final int start = encodeBackwards(keynum, buf);
+    // ASCII bytes are Latin-1, which Strings store as is.
+    return new String(buf, start, maxLength - start, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Write the key name of a key number into a ByteBuffer of the calling thread, valid until its next call.
+   *
+   * @return The ByteBuffer, from the start of the key name to its end.
+   */
+  public ByteBuffer encodeToBuffer(long keynum) {
+    final ByteBuffer buffer = buffers.get();
+    final int start = encodeBackwards(keynum, buffer.array());
+    buffer.limit(maxLength);
+    buffer.position(start);
+    return buffer;
+  }
+
+  /**
+   * Write the key name of a key number, in ASCII, into a buffer.
+   *
+   * @param keynum The key number.
+   * @param buf    The buffer, with at least {@link #getMaxLength()} bytes after the offset.
+   * @param off    The offset in the buffer.
+   * @return The length of the key name.
+   */
+  public int encode(long keynum, byte[] buf, int off) {
+    final byte[] scratch = bytes.get();
+    final int start = encodeBackwards(keynum, scratch);
+    System.arraycopy(scratch, start, buf, off, maxLength - start);
+    return maxLength - start;
+  }
+
+  /**
+   * Write the key name of a key number at the end of a buffer of {@link #getMaxLength()} bytes, in a single pass
+   * from its last digit to the start of its prefix.
+   *
+   * @return The offset of the key name in the buffer.
+   */
+  private int encodeBackwards(long keynum, byte[] buf) {
+    int pos = maxLength;
+    // Work on a negative value, so that Long.MIN_VALUE does not overflow.
+    long value = keynum < 0 ? keynum : -keynum;
+    // Two digits per division, as Long.toString does.
+    while (value <= -100) {
+      final long quotient = value / 100;
+      final int pair = (int) (quotient * 100 - value);
+      buf[--pos] = DIGIT_PAIRS[2 * pair + 1];
+      buf[--pos] = DIGIT_PAIRS[2 * pair];
+      value = quotient;
+    }
+    final int last = (int) -value;
+    buf[--pos] = DIGIT_PAIRS[2 * last + 1];
+    if (last >= 10) {
+      buf[--pos] = DIGIT_PAIRS[2 * last];
+    }
+    if (keynum < 0) {
+      buf[--pos] = '-';
+    }
+    final int paddingEnd = maxLength - zeropadding;
+    while (pos > paddingEnd) {
+      buf[--pos] = '0';
+    }
+    pos -= prefix.length;
+    System.arraycopy(prefix, 0, buf, pos, prefix.length);
+    return pos;
+  }
+
+  /**
+   * Write a key name into a ByteBuffer of the calling thread, valid until its next call, e.g. for bindings that write
+   * keys as bytes. Characters beyond ASCII are written as '?'.
+   *
+   * @return The ByteBuffer, from the start of the key name to its end.
+   */
+  public static ByteBuffer toBuffer(String key) {
+    ByteBuffer buffer = KEY_BUFFERS.get();
+    if (buffer.capacity() < key.length()) {
+      buffer = ByteBuffer.allocate(Math.max(key.length(), buffer.capacity() * 2));
+      KEY_BUFFERS.set(buffer);
+    }
+    final byte[] array = buffer.array();
+    for (int i = 0; i < key.length(); i++) {
+      final char c = key.charAt(i);
+      array[i] = c > 127 ? (byte) '?' : (byte) c;
+    }
+    buffer.clear();
+    buffer.limit(key.length());
+    return buffer;
+  }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+import com.yahoo.ycsb.workloads.CoreWorkload;
+import org.apache.htrace.core.HTraceConfiguration;
+import org.apache.htrace.core.Tracer;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Phaser;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestClientControl {
+
+  @Test
+  public void controlRunningClients() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(Client.DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
+    props.setProperty("basicdb.verbose", "false");
+    props.setProperty(Client.RECORD_COUNT_PROPERTY, "100");
+    props.setProperty(Client.OPERATION_COUNT_PROPERTY, "0");
+    Measurements.setProperties(props);
+    Measurements.getMeasurements().reset();
+
+    Workload workload = new CoreWorkload();
+    workload.init(props);
+    Tracer tracer = new Tracer.Builder("test").conf(HTraceConfiguration.fromMap(Collections.<String, String>emptyMap()))
+        .build();
+
+    Phaser completePhaser = new Phaser(2);
+    List<ClientThread> clients = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      ClientThread client = new ClientThread(DBFactory.newDB(Client.getDbName(props), props, tracer), true,
+          workload, props, 0, -1, completePhaser);
+      client.setThreadId(i);
+      client.setThreadCount(2);
+      clients.add(client);
+    }
+
+    ClientControl control = new ClientControl(props, workload, tracer, completePhaser, clients, 0);
+    control.start();
+    assertEquals(control.getThreadCount(), 2);
+
+    control.setTarget(200);
+    control.addThreads(1);
+    assertEquals(control.getThreadCount(), 3);
+    control.retireThreads(2);
+    control.getThreads().get(1).join(10000);
+    control.getThreads().get(2).join(10000);
+    assertEquals(control.getThreadCount(), 1);
+
+    control.pause();
+    Thread.sleep(100);
+    long paused = control.getOperations();
+    Thread.sleep(200);
+    assertEquals(control.getOperations(), paused);
+
+    control.resume();
+    long deadline = System.currentTimeMillis() + 10000;
+    while (control.getOperations() == paused && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(control.getOperations() > paused);
+
+    control.requestStop();
+    control.joinThreads();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    Measurements.getMeasurements().exportMeasurements(exporter);
+    exporter.close();
+    String output = out.toString("UTF-8");
+    assertTrue(output.contains("Target(ops/sec), 200"), output);
+    assertTrue(output.contains("Threads, 3"), output);
+    assertTrue(output.contains("Threads, 1"), output);
+    assertTrue(output.contains("Paused, 1"), output);
+    assertTrue(output.contains("Paused, 0"), output);
+    assertTrue(output.contains("StopRequested, 1"), output);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void cannotAddThreadsToBoundedRun() {
+    Properties props = new Properties();
+    props.setProperty(Client.OPERATION_COUNT_PROPERTY, "1000");
+    Measurements.setProperties(props);
+    new ClientControl(props, null, null, new Phaser(), Collections.<ClientThread>emptyList(), 0).addThreads(1);
+  }
+}
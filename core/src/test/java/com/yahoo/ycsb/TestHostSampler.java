@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the host resources sampler, over a fake /proc and /sys.
+ */
+public class TestHostSampler {
+
+  private static void write(File root, String path, String content) throws IOException {
+    File file = new File(root, path);
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void writeProc(File proc, long cpu0Idle, long rxBytes, long sectorsRead, long switches)
+      throws IOException {
+    write(proc, "stat", "cpu  " + (2000 - cpu0Idle) + " 0 0 " + (2000 + cpu0Idle) + " 0 0 100 0 0 0\n"
+        + "cpu0 " + (1000 - cpu0Idle) + " 0 0 " + cpu0Idle + " 0 0 50 0 0 0\n"
+        + "cpu1 1000 0 0 2000 0 0 50 0 0 0\n"
+        + "intr 12345\n");
+    write(proc, "net/dev", "Inter-|   Receive |  Transmit\n"
+        + " face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets\n"
+        + "    lo: 999999 10 0 0 0 0 0 0 999999 10 0 0 0 0 0 0\n"
+        + "  eth0: " + rxBytes + " " + rxBytes / 1000 + " 0 0 0 0 0 0 1024 1 0 0 0 0 0 0\n");
+    write(proc, "diskstats", "   8       0 sda 10 0 " + sectorsRead + " 0 5 0 16 0 0 0 0\n"
+        + "   8       1 sda1 10 0 " + sectorsRead + " 0 5 0 16 0 0 0 0\n");
+    write(proc, "self/task/1/status", "Name:\tjava\nvoluntary_ctxt_switches:\t" + switches
+        + "\nnonvoluntary_ctxt_switches:\t3\n");
+  }
+
+  @Test
+  public void recordsHostResources() throws IOException {
+    File root = Files.createTempDirectory("ycsb-host").toFile();
+    File proc = new File(root, "proc");
+    File sys = new File(root, "sys");
+    write(sys, "block/sda/size", "1000");
+    write(sys, "class/net/eth0/speed", "1");
+
+    Measurements measurements = new Measurements(new Properties());
+    HostSampler sampler = new HostSampler(proc, sys);
+    writeProc(proc, 1000, 0, 0, 100);
+    assertTrue(sampler.sample(measurements, 1000).isEmpty());
+
+    // cpu0 fully busy, and 120KB received in 1s on a 1Mb/s link.
+    writeProc(proc, 1000, 120 * 1024, 2048, 150);
+    List<String> saturated = sampler.sample(measurements, 1000);
+    assertEquals(saturated.size(), 1, saturated.toString());
+    assertTrue(saturated.get(0).startsWith("eth0 98%"), saturated.toString());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    measurements.exportMeasurements(exporter);
+    exporter.close();
+    String output = out.toString("UTF-8");
+    assertTrue(output.contains("[HOST_NET_RX_KB], MaxLatency(us), 120"), output);
+    assertTrue(output.contains("[HOST_NET_TX_KB], MaxLatency(us), 0"), output);
+    assertTrue(output.contains("[HOST_DISK_READ_KB], MaxLatency(us), 1024"), output);
+    assertTrue(output.contains("[HOST_CTXT_VOLUNTARY], MaxLatency(us), 50"), output);
+    assertTrue(output.contains("[HOST_CTXT_INVOLUNTARY], MaxLatency(us), 0"), output);
+  }
+
+  @Test
+  public void recordsWhateverTheMeasurementInterval() throws IOException {
+    File root = Files.createTempDirectory("ycsb-host").toFile();
+    File proc = new File(root, "proc");
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_INTERVAL, "intended");
+    Measurements measurements = new Measurements(props);
+    HostSampler sampler = new HostSampler(proc, new File(root, "sys"));
+    measurements.startWarmup();
+    writeProc(proc, 1000, 0, 0, 100);
+    sampler.sample(measurements, 1000);
+    writeProc(proc, 1000, 120 * 1024, 0, 150);
+    sampler.sample(measurements, 1000);
+    measurements.endWarmup();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    measurements.exportMeasurements(exporter);
+    exporter.close();
+    String output = out.toString("UTF-8");
+    assertTrue(output.contains("[HOST_NET_RX_KB], MaxLatency(us), 120"), output);
+    assertTrue(output.contains("[HOST_CTXT_VOLUNTARY], MaxLatency(us), 50"), output);
+  }
+
+  @Test
+  public void warnsOnSaturatedCore() throws IOException {
+    File root = Files.createTempDirectory("ycsb-host").toFile();
+    File proc = new File(root, "proc");
+    Measurements measurements = new Measurements(new Properties());
+    HostSampler sampler = new HostSampler(proc, new File(root, "sys"));
+    writeProc(proc, 1000, 0, 0, 0);
+    sampler.sample(measurements, 1000);
+    // cpu0 spends the whole interval busy while cpu1 idles.
+    write(proc, "stat", "cpu  3000 0 0 4000 0 0 100 0 0 0\n"
+        + "cpu0 2000 0 0 1000 0 0 50 0 0 0\n"
+        + "cpu1 1000 0 0 3000 0 0 50 0 0 0\n");
+    List<String> saturated = sampler.sample(measurements, 1000);
+    assertEquals(saturated.size(), 1, saturated.toString());
+    assertTrue(saturated.get(0).startsWith("cpu0 100%"), saturated.toString());
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPooledByteIterator {
+  @Test
+  public void valuesAreSlicesOfThePool() {
+    final BytePool pool = new BytePool(1000);
+    for (int i = 0; i < 100; i++) {
+      final ByteIterator value = pool.newValue(100);
+      assertEquals(value.bytesLeft(), 100);
+      final byte[] bytes = value.toArray();
+      assertEquals(bytes.length, 100);
+      assertFalse(value.hasNext());
+      assertEquals(value.bytesLeft(), 0);
+      for (byte b : bytes) {
+        assertTrue(b >= ' ' && b <= '~');
+      }
+      value.reset();
+      assertEquals(value.toArray(), bytes);
+    }
+  }
+
+  @Test
+  public void valuesLongerThanThePoolWrapAround() {
+    final BytePool pool = new BytePool(10);
+    final PooledByteIterator value = pool.newValue(35);
+    final byte[] bytes = value.toArray();
+    assertEquals(bytes.length, 35);
+    for (int i = 10; i < 35; i++) {
+      assertEquals(bytes[i], bytes[i - 10]);
+    }
+
+    // Consumed in small buffers, byte by byte, and as a ByteBuffer.
+    value.reset();
+    final byte[] chunks = new byte[35];
+    final byte[] buffer = new byte[7];
+    int off = 0;
+    while (value.hasNext()) {
+      final int end = value.nextBuf(buffer, 3);
+      System.arraycopy(buffer, 3, chunks, off, end - 3);
+      off += end - 3;
+    }
+    assertEquals(chunks, bytes);
+    value.reset();
+    assertEquals(value.nextByte(), bytes[0]);
+    assertEquals(value.nextByte(), bytes[1]);
+    final ByteBuffer rest = value.asByteBuffer();
+    assertFalse(value.hasNext());
+    final byte[] restBytes = new byte[rest.remaining()];
+    rest.get(restBytes);
+    assertEquals(restBytes, Arrays.copyOfRange(bytes, 2, 35));
+  }
+
+  @Test
+  public void byteBufferIsAReadOnlyView() {
+    final BytePool pool = new BytePool(1000);
+    final PooledByteIterator value = pool.newValue(100);
+    final byte[] bytes = value.toArray();
+    value.reset();
+    final ByteBuffer buffer = value.asByteBuffer();
+    assertTrue(buffer.isReadOnly());
+    assertEquals(buffer.position(), 0);
+    assertEquals(buffer.remaining(), 100);
+    final byte[] viewed = new byte[100];
+    buffer.get(viewed);
+    assertEquals(viewed, bytes);
+    assertEquals(value.bytesLeft(), 0);
+  }
+
+  @Test
+  public void compressibleValuesReachTheTargetRatio() {
+    for (double ratio : new double[] {1, 2, 4}) {
+      final BytePool pool = BytePool.compressible(1 << 20, ratio, 8);
+      assertEquals(pool.compressionRatio(), ratio, ratio * 0.1, "ratio " + ratio);
+    }
+    final BytePool printable = BytePool.compressible(1 << 16, 2, 6);
+    for (byte b : printable.newValue(1 << 16).toArray()) {
+      assertTrue(b >= ' ' && b < ' ' + 64);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void compressionRatioBelowOneIsRejected() {
+    BytePool.compressible(1000, 0.5, 8);
+  }
+}
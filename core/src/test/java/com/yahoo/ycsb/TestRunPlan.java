@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TestRunPlan {
+
+  private static Properties plan() {
+    Properties props = new Properties();
+    props.setProperty(RunPlan.RUN_PLAN_PROPERTY, "plan");
+    props.setProperty(RunPlan.PHASES_PROPERTY, "load, run");
+    props.setProperty(Client.WORKLOAD_PROPERTY, "com.yahoo.ycsb.workloads.CoreWorkload");
+    props.setProperty(Client.THREAD_COUNT_PROPERTY, "4");
+    props.setProperty("phase.load.dotransactions", "false");
+    props.setProperty("phase.run.threadcount", "8");
+    props.setProperty("phase.run.target", "100");
+    return props;
+  }
+
+  @Test
+  public void withoutRunPlan() throws IOException {
+    Properties props = new Properties();
+    List<RunPlan.Phase> phases = RunPlan.getPhases(props);
+    assertEquals(phases.size(), 1);
+    assertEquals(phases.get(0).getName(), "");
+    assertEquals(phases.get(0).getProperties(), props);
+  }
+
+  @Test
+  public void phaseProperties() throws IOException {
+    List<RunPlan.Phase> phases = RunPlan.getPhases(plan());
+    assertEquals(phases.size(), 2);
+
+    Properties load = phases.get(0).getProperties();
+    assertEquals(phases.get(0).getName(), "load");
+    assertEquals(load.getProperty("dotransactions"), "false");
+    assertEquals(load.getProperty(Client.THREAD_COUNT_PROPERTY), "4");
+    assertNull(load.getProperty(Client.TARGET_PROPERTY));
+    assertNull(load.getProperty("phase.run.target"));
+
+    Properties run = phases.get(1).getProperties();
+    assertEquals(phases.get(1).getName(), "run");
+    assertNull(run.getProperty("dotransactions"));
+    assertEquals(run.getProperty(Client.THREAD_COUNT_PROPERTY), "8");
+    assertEquals(run.getProperty(Client.TARGET_PROPERTY), "100");
+  }
+
+  @Test
+  public void phasePropertyFilesAreOverridden() throws IOException {
+    File file = File.createTempFile("phase", ".properties");
+    file.deleteOnExit();
+    Properties fileprops = new Properties();
+    fileprops.setProperty(Client.RECORD_COUNT_PROPERTY, "1000");
+    fileprops.setProperty(Client.OPERATION_COUNT_PROPERTY, "1000");
+    fileprops.setProperty(Client.TARGET_PROPERTY, "10");
+    fileprops.setProperty("readproportion", "0.5");
+    try (OutputStream out = new FileOutputStream(file)) {
+      fileprops.store(out, null);
+    }
+
+    Properties props = plan();
+    props.setProperty(Client.RECORD_COUNT_PROPERTY, "100000");
+    props.setProperty("phase.run.propertyfiles", file.getPath());
+    props.setProperty("phase.run.operationcount", "5000");
+    Properties run = RunPlan.getPhases(props).get(1).getProperties();
+    assertEquals(run.getProperty("readproportion"), "0.5");
+    assertEquals(run.getProperty(Client.RECORD_COUNT_PROPERTY), "100000");
+    assertEquals(run.getProperty(Client.OPERATION_COUNT_PROPERTY), "5000");
+    assertEquals(run.getProperty(Client.TARGET_PROPERTY), "100");
+  }
+
+  @Test
+  public void exportFilePerPhase() throws IOException {
+    Properties props = plan();
+    props.setProperty(Client.EXPORT_FILE_PROPERTY, "out");
+    props.setProperty("phase.run.exportfile", "run.txt");
+    List<RunPlan.Phase> phases = RunPlan.getPhases(props);
+    assertEquals(phases.get(0).getProperties().getProperty(Client.EXPORT_FILE_PROPERTY), "out.load");
+    assertEquals(phases.get(1).getProperties().getProperty(Client.EXPORT_FILE_PROPERTY), "run.txt");
+  }
+
+  @Test
+  public void reusedDbCount() throws IOException {
+    List<RunPlan.Phase> phases = RunPlan.getPhases(plan());
+    Properties load = phases.get(0).getProperties();
+    Properties run = phases.get(1).getProperties();
+    assertEquals(RunPlan.getReusedDbCount(load, run), 4);
+    assertEquals(RunPlan.getReusedDbCount(run, null), 0);
+
+    run.setProperty(Client.DB_PROPERTY, "com.yahoo.ycsb.GoodBadUglyDB");
+    assertEquals(RunPlan.getReusedDbCount(load, run), 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void missingWorkload() throws IOException {
+    Properties props = plan();
+    props.remove(Client.WORKLOAD_PROPERTY);
+    props.setProperty("phase.load.workload", "com.yahoo.ycsb.workloads.CoreWorkload");
+    RunPlan.getPhases(props);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void duplicatePhase() throws IOException {
+    Properties props = plan();
+    props.setProperty(RunPlan.PHASES_PROPERTY, "load,run,load");
+    RunPlan.getPhases(props);
+  }
+}
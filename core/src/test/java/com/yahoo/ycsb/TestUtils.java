@@ -18,10 +18,16 @@
 package com.yahoo.ycsb;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
+import com.yahoo.ycsb.generator.ZipfianGenerator;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
 public class TestUtils {
@@ -116,6 +122,68 @@ public class TestUtils {
     assertTrue(Utils.getGCStatst().size() >= 0);
   }
    
+  @AfterMethod
+  public void clearRandomSeed() {
+    Utils.clearRandomSeed();
+  }
+
+  @Test
+  public void unseededRandomIsThreadLocalRandom() {
+    assertSame(Utils.random(), ThreadLocalRandom.current());
+    assertSame(Utils.newRandomStream(), ThreadLocalRandom.current());
+  }
+
+  @Test
+  public void seededRandomIsReproducible() throws Exception {
+    Utils.setRandomSeed(42);
+    final long[] first = draw(Utils.random());
+    final long[] firstOtherThread = drawInThread(Utils.newRandomStream());
+
+    Utils.setRandomSeed(42);
+    assertEquals(draw(Utils.random()), first);
+    assertEquals(drawInThread(Utils.newRandomStream()), firstOtherThread);
+    assertNotEquals(firstOtherThread, first);
+
+    Utils.setRandomSeed(43);
+    assertNotEquals(draw(Utils.random()), first);
+  }
+
+  @Test
+  public void seededGeneratorsAreReproducible() {
+    final ZipfianGenerator zipfian = new ZipfianGenerator(1000);
+    Utils.setRandomSeed(7);
+    final long[] keys = new long[100];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = zipfian.nextValue();
+    }
+    final byte[] value = new RandomByteIterator(100).toArray();
+
+    Utils.setRandomSeed(7);
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals(zipfian.nextValue().longValue(), keys[i]);
+    }
+    assertArrayEquals(new RandomByteIterator(100).toArray(), value);
+  }
+
+  private static long[] draw(Random random) {
+    final long[] values = new long[16];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i % 2 == 0 ? random.nextLong() : random.nextInt(1000);
+    }
+    return values;
+  }
+
+  private static long[] drawInThread(Random stream) throws InterruptedException {
+    final long[][] values = new long[1][];
+    final Thread thread = new Thread(() -> {
+        Utils.setRandom(stream);
+        values[0] = draw(Utils.random());
+      });
+    thread.start();
+    thread.join();
+    return values[0];
+  }
+
   /**
    * Since this version of TestNG doesn't appear to have an assertArrayEquals,
    * this will compare the two to make sure they're the same. 
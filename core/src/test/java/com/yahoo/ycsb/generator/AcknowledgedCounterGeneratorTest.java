@@ -16,12 +16,20 @@
  */
 package com.yahoo.ycsb.generator;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
 /**
  * Tests for the AcknowledgedCounterGenerator class.
  */
@@ -58,4 +66,90 @@ public class AcknowledgedCounterGeneratorTest {
     }
 
   }
+
+  /**
+   * Test that the window grows to hold any number of pending ids.
+   */
+  @Test
+  public void testManyPendingIds() {
+    final long toTry = AcknowledgedCounterGenerator.WINDOW_SIZE * 3L;
+    AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(10);
+    for (long i = 0; i < toTry; ++i) {
+      generator.nextValue();
+    }
+
+    // Acknowledge all the ids but the first, in reverse order.
+    for (long value = 10 + toTry - 1; value > 10; --value) {
+      generator.acknowledge(value);
+    }
+    assertEquals(generator.lastValue().longValue(), 9L);
+
+    generator.acknowledge(10);
+    assertEquals(generator.lastValue().longValue(), 10 + toTry - 1);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testAcknowledgeTwice() {
+    AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(0);
+    generator.nextValue();
+    generator.nextValue();
+    generator.acknowledge(1);
+    generator.acknowledge(1);
+  }
+
+  /**
+   * Test that the limit follows the acknowledgments of 128 threads,
+   * acknowledging their ids out of order.
+   */
+  @Test
+  public void testConcurrentAcknowledgments() throws Exception {
+    final int threads = 128;
+    final int idsPerThread = 20000;
+    final AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(0);
+    final CyclicBarrier start = new CyclicBarrier(threads + 1);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      final Thread worker = new Thread(() -> acknowledgeIds(generator, idsPerThread, start, failure));
+      worker.start();
+      workers.add(worker);
+    }
+
+    // The limit only moves forward.
+    start.await();
+    long previous = generator.lastValue();
+    for (Thread worker : workers) {
+      while (worker.isAlive()) {
+        final long current = generator.lastValue();
+        assertTrue(current >= previous);
+        previous = current;
+      }
+      worker.join();
+    }
+
+    assertEquals(failure.get(), null);
+    assertEquals(generator.lastValue().longValue(), (long) threads * idsPerThread - 1);
+  }
+
+  private static void acknowledgeIds(AcknowledgedCounterGenerator generator, int ids, CyclicBarrier start,
+                                     AtomicReference<Throwable> failure) {
+    try {
+      start.await();
+      final List<Long> pending = new ArrayList<>();
+      for (int i = 0; i < ids; i++) {
+        pending.add(generator.nextValue());
+        if (pending.size() == 8 || i == ids - 1) {
+          while (!pending.isEmpty()) {
+            final long value = pending.remove(ThreadLocalRandom.current().nextInt(pending.size()));
+            if (generator.lastValue() >= value) {
+              throw new AssertionError("Id " + value + " is below the limit before its acknowledgment");
+            }
+            generator.acknowledge(value);
+          }
+        }
+      }
+    } catch (Throwable t) {
+      failure.compareAndSet(null, t);
+    }
+  }
 }
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TestDiscreteGenerator {
+  private static final int SAMPLES = 1000000;
+
+  private static Map<String, Integer> sample(DiscreteGenerator generator) {
+    final Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < SAMPLES; i++) {
+      counts.merge(generator.nextValue(), 1, Integer::sum);
+    }
+    return counts;
+  }
+
+  private static void assertFrequency(Map<String, Integer> counts, String value, double probability) {
+    final double expected = SAMPLES * probability;
+    final int count = counts.getOrDefault(value, 0);
+    assertEquals(count, expected, 5 * Math.sqrt(expected) + 1, value);
+  }
+
+  @Test
+  public void followsWeights() {
+    final DiscreteGenerator generator = new DiscreteGenerator();
+    generator.addValue(0.5, "READ");
+    generator.addValue(0.3, "UPDATE");
+    generator.addValue(0.0, "SCAN");
+    generator.addValue(0.15, "INSERT");
+    generator.addValue(0.05, "READMODIFYWRITE");
+    final Map<String, Integer> counts = sample(generator);
+    assertFrequency(counts, "READ", 0.5);
+    assertFrequency(counts, "UPDATE", 0.3);
+    assertFrequency(counts, "INSERT", 0.15);
+    assertFrequency(counts, "READMODIFYWRITE", 0.05);
+    assertNull(counts.get("SCAN"));
+  }
+
+  @Test
+  public void followsManyUnnormalizedWeights() {
+    final DiscreteGenerator generator = new DiscreteGenerator();
+    for (int i = 1; i <= 40; i++) {
+      generator.addValue(i, "table" + i);
+    }
+    final Map<String, Integer> counts = sample(generator);
+    for (int i = 1; i <= 40; i++) {
+      assertFrequency(counts, "table" + i, i / 820.0);
+    }
+  }
+
+  @Test
+  public void valuesAddedAfterSamplingAreChosen() {
+    final DiscreteGenerator generator = new DiscreteGenerator();
+    generator.addValue(1, "READ");
+    assertEquals(generator.nextValue(), "READ");
+    generator.addValue(3, "UPDATE");
+    final Map<String, Integer> counts = sample(generator);
+    assertFrequency(counts, "READ", 0.25);
+    assertFrequency(counts, "UPDATE", 0.75);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void rejectsZeroWeights() {
+    final DiscreteGenerator generator = new DiscreteGenerator();
+    generator.addValue(0, "READ");
+    generator.nextValue();
+  }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import com.yahoo.ycsb.Utils;
+import com.yahoo.ycsb.generator.EmpiricalDistributionGenerator.Sampling;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestEmpiricalDistributionGenerator {
+  private static final int SAMPLES = 1000000;
+
+  private static void checkFrequencies(EmpiricalDistributionGenerator generator, long[] items, double[] weights) {
+    final double total = Arrays.stream(weights).sum();
+    final long[] counts = new long[items.length];
+    for (int i = 0; i < SAMPLES; i++) {
+      final long value = generator.nextValue();
+      boolean found = false;
+      for (int j = 0; j < items.length; j++) {
+        if (items[j] == value) {
+          counts[j]++;
+          found = true;
+        }
+      }
+      assertTrue(found, "unexpected value " + value);
+    }
+    for (int j = 0; j < items.length; j++) {
+      final double expected = SAMPLES * weights[j] / total;
+      assertEquals(counts[j], expected, 5 * Math.sqrt(expected) + 1, "item " + items[j]);
+    }
+  }
+
+  @Test
+  public void drawsRanksByWeight() {
+    final double[] weights = {50, 0, 30, 15, 5};
+    for (Sampling sampling : Sampling.values()) {
+      final EmpiricalDistributionGenerator generator =
+          new EmpiricalDistributionGenerator(100, 199, null, weights, sampling, false);
+      checkFrequencies(generator, new long[] {100, 101, 102, 103, 104}, weights);
+    }
+  }
+
+  @Test
+  public void readsPairsFromAFile() throws IOException {
+    final File file = File.createTempFile("empirical", ".txt");
+    try {
+      Files.write(file.toPath(), Arrays.asList("# rank weight", "7 10", "", "3,30", "12\t60"),
+          StandardCharsets.UTF_8);
+      final double[] weights = {10, 30, 60};
+      checkFrequencies(new EmpiricalDistributionGenerator(0, 9, file.getPath(), Sampling.BINARY_SEARCH, false),
+          new long[] {7, 3, 2}, weights);
+      checkFrequencies(new EmpiricalDistributionGenerator(0, 999, file.getPath(), Sampling.ALIAS, true),
+          new long[] {Utils.fnvhash64(7) % 1000, Utils.fnvhash64(3) % 1000, Utils.fnvhash64(12) % 1000}, weights);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void rejectsMalformedFiles() throws IOException {
+    final File file = File.createTempFile("empirical", ".txt");
+    try {
+      Files.write(file.toPath(), Arrays.asList("1 10", "two 20"), StandardCharsets.UTF_8);
+      new EmpiricalDistributionGenerator(0, 9, file.getPath(), Sampling.ALIAS, false);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void computesTheMeanOfOrderedRanks() {
+    final EmpiricalDistributionGenerator generator =
+        new EmpiricalDistributionGenerator(10, 19, new long[] {0, 4}, new double[] {1, 3}, Sampling.ALIAS, false);
+    assertEquals(generator.mean(), 10 + 3.0, 1e-9);
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import com.yahoo.ycsb.generator.MovingHotspotGenerator.Movement;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestMovingHotspotGenerator {
+  private static final int SAMPLES = 100000;
+
+  private static MovingHotspotGenerator generator(Movement movement) {
+    return new MovingHotspotGenerator(1000, 10999, new double[] {0.01, 0.02}, new double[] {0.5, 0.3},
+        movement, 100);
+  }
+
+  /**
+   * @return The fraction of the values at the given time in the given range of offsets from the lower bound.
+   */
+  private static double fractionIn(MovingHotspotGenerator generator, double elapsedSeconds, long from, long length) {
+    int hits = 0;
+    for (int i = 0; i < SAMPLES; i++) {
+      final long value = generator.valueAt(elapsedSeconds);
+      assertTrue(value >= 1000 && value <= 10999, "value " + value);
+      if (Math.floorMod(value - 1000 - from, 10000) < length) {
+        hits++;
+      }
+    }
+    return (double) hits / SAMPLES;
+  }
+
+  @Test
+  public void hotspotsReceiveTheirOperations() {
+    final MovingHotspotGenerator generator = generator(Movement.SLIDE);
+    for (double t : new double[] {0, 37.5, 99}) {
+      // Each hot spot gets its fraction, plus its share of the uniform operations.
+      assertEquals(fractionIn(generator, t, generator.hotspotStart(0, t), 100), 0.5 + 0.2 * 0.01, 0.01);
+      assertEquals(fractionIn(generator, t, generator.hotspotStart(1, t), 200), 0.3 + 0.2 * 0.02, 0.01);
+    }
+  }
+
+  @Test
+  public void slidingHotspotsMoveWithTime() {
+    final MovingHotspotGenerator generator = generator(Movement.SLIDE);
+    assertEquals(generator.hotspotStart(0, 0), 0);
+    assertEquals(generator.hotspotStart(1, 0), 5000);
+    assertEquals(generator.hotspotStart(0, 25), 2500);
+    assertEquals(generator.hotspotStart(1, 75), 2500);
+    assertEquals(generator.hotspotStart(0, 100), 0);
+    // The old hot spot cools down.
+    assertTrue(fractionIn(generator, 25, 0, 100) < 0.01);
+  }
+
+  @Test
+  public void jumpingHotspotsStayWithinAPeriod() {
+    final MovingHotspotGenerator generator = generator(Movement.JUMP);
+    assertEquals(generator.hotspotStart(0, 110), generator.hotspotStart(0, 190));
+    assertNotEquals(generator.hotspotStart(0, 190), generator.hotspotStart(0, 210));
+    assertEquals(generator(Movement.JUMP).hotspotStart(1, 350), generator.hotspotStart(1, 350));
+  }
+
+  @Test
+  public void periodicHotspotsComeBack() {
+    final MovingHotspotGenerator generator = generator(Movement.PERIODIC);
+    assertEquals(generator.hotspotStart(0, 0), 0);
+    assertEquals(generator.hotspotStart(0, 50), 9999);
+    assertEquals(generator.hotspotStart(0, 25), generator.hotspotStart(0, 75));
+    assertEquals(generator.hotspotStart(0, 100), 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void rejectsTooManyHotOperations() {
+    new MovingHotspotGenerator(0, 99, new double[] {0.1, 0.1}, new double[] {0.6, 0.6}, Movement.SLIDE, 10);
+  }
+}
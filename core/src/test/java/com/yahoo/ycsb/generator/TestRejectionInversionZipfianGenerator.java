@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestRejectionInversionZipfianGenerator {
+  private static final int SAMPLES = 1000000;
+
+  /**
+   * Check that the frequencies of the items match the probabilities of the zipfian distribution.
+   */
+  private static void checkDistribution(double exponent, int items) {
+    final RejectionInversionZipfianGenerator generator = new RejectionInversionZipfianGenerator(10, 9 + items, exponent);
+    final long[] counts = new long[items];
+    for (int i = 0; i < SAMPLES; i++) {
+      final long value = generator.nextValue();
+      assertTrue(value >= 10 && value < 10 + items, "value " + value);
+      counts[(int) (value - 10)]++;
+    }
+    final double zeta = Zeta.sum(1, items, exponent);
+    for (int k = 1; k <= items; k++) {
+      final double expected = SAMPLES / Math.pow(k, exponent) / zeta;
+      // Within 5 standard deviations.
+      assertEquals(counts[k - 1], expected, 5 * Math.sqrt(expected) + 1, "exponent=" + exponent + " k=" + k);
+    }
+  }
+
+  @Test
+  public void matchesZipfianDistribution() {
+    checkDistribution(0.99, 50);
+    checkDistribution(0.5, 20);
+  }
+
+  @Test
+  public void supportsExponentsOfOneOrMore() {
+    checkDistribution(1.0, 50);
+    checkDistribution(2.5, 10);
+  }
+
+  @Test
+  public void supportsGrowingItemCounts() {
+    final RejectionInversionZipfianGenerator generator = new RejectionInversionZipfianGenerator(0, 9, 1.2);
+    for (long itemcount = 1; itemcount < 100000; itemcount = itemcount * 3 + 1) {
+      for (int i = 0; i < 1000; i++) {
+        final long value = generator.nextLong(itemcount);
+        assertTrue(value >= 0 && value < itemcount, "value " + value + " of " + itemcount);
+      }
+    }
+  }
+
+  @Test
+  public void scrambledAndLatestGeneratorsAcceptIt() {
+    final ScrambledZipfianGenerator scrambled = new ScrambledZipfianGenerator(100, 199,
+        new RejectionInversionZipfianGenerator(0, ScrambledZipfianGenerator.ITEM_COUNT, 1.1));
+    final CounterGenerator basis = new CounterGenerator(1000);
+    final SkewedLatestGenerator latest = new SkewedLatestGenerator(basis, 1.1, true);
+    for (int i = 0; i < 10000; i++) {
+      final long value = scrambled.nextValue();
+      assertTrue(value >= 100 && value <= 199);
+      basis.nextValue();
+      final long recent = latest.nextValue();
+      assertTrue(recent >= 0 && recent <= basis.lastValue());
+    }
+  }
+
+  @Test
+  public void mean() {
+    for (double exponent : new double[]{0.5, 0.99, 1, 1.5}) {
+      // Exact for few items.
+      double weights = 0;
+      double weighted = 0;
+      for (int k = 1; k <= 100; k++) {
+        weights += Math.pow(k, -exponent);
+        weighted += k * Math.pow(k, -exponent);
+      }
+      assertEquals(new RejectionInversionZipfianGenerator(10, 109, exponent).mean(), 9 + weighted / weights, 1e-9);
+
+      // Approximated for many items.
+      final long items = 1000000;
+      final double zeta = Zeta.sum(1, items, exponent);
+      final double expected = Zeta.sum(1, items, exponent - 1) / zeta - 1;
+      final RejectionInversionZipfianGenerator generator = new RejectionInversionZipfianGenerator(0, items - 1,
+          exponent);
+      assertEquals(generator.mean(), expected, expected * 1e-9, "exponent=" + exponent);
+
+      // The mean of the samples, within 5 standard errors.
+      final int samples = 200000;
+      final double variance = Zeta.sum(1, items, exponent - 2) / zeta - (expected + 1) * (expected + 1);
+      double sum = 0;
+      for (int i = 0; i < samples; i++) {
+        sum += generator.nextValue();
+      }
+      assertEquals(sum / samples, expected, 5 * Math.sqrt(variance / samples), "exponent=" + exponent);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void rejectsNonPositiveExponents() {
+    new RejectionInversionZipfianGenerator(0, 9, 0);
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestZeta {
+  @AfterMethod
+  public void resetConfiguration() {
+    Zeta.configure(new Properties());
+  }
+
+  private static double naiveSum(long first, long last, double theta) {
+    double sum = 0;
+    for (long i = first; i <= last; i++) {
+      sum += 1 / Math.pow(i, theta);
+    }
+    return sum;
+  }
+
+  @Test
+  public void parallelSumMatchesSequentialSum() {
+    final long n = 5000000;
+    assertEquals(Zeta.sum(1, n, 0.99), naiveSum(1, n, 0.99), 1e-9);
+    assertEquals(Zeta.sum(1, n, 1.2), naiveSum(1, n, 1.2), 1e-9);
+  }
+
+  @Test
+  public void approximateSumIsAccurate() {
+    for (double theta : new double[] {0.5, 0.99, 1.0, 1.5}) {
+      for (long n : new long[] {10, 1001, 100000, 3000000}) {
+        final double exact = Zeta.sum(1, n, theta);
+        assertEquals(Zeta.approximateSum(1, n, theta), exact, exact * 1e-12, "theta=" + theta + " n=" + n);
+      }
+      // Incremental sums, as computed when the item count grows.
+      final double exact = Zeta.sum(50001, 2000000, theta);
+      assertEquals(Zeta.approximateSum(50001, 2000000, theta), exact, exact * 1e-12);
+    }
+  }
+
+  @Test
+  public void approximateModeAppliesToZipfianGenerator() {
+    final double exact = ZipfianGenerator.zetastatic(1000000, 0.99);
+    final Properties props = new Properties();
+    props.setProperty(Zeta.ZETA_PROPERTY, "approximate");
+    Zeta.configure(props);
+    assertEquals(ZipfianGenerator.zetastatic(1000000, 0.99), exact, exact * 1e-12);
+    assertEquals(ZipfianGenerator.zetastatic(1000000, 2000000, 0.99, exact),
+        ZipfianGenerator.zetastatic(2000000, 0.99), exact * 1e-12);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void unknownModeIsRejected() {
+    final Properties props = new Properties();
+    props.setProperty(Zeta.ZETA_PROPERTY, "fast");
+    Zeta.configure(props);
+  }
+
+  @Test
+  public void exactValuesAreCached() throws Exception {
+    final File dir = Files.createTempDirectory("zeta").toFile();
+    final Properties props = new Properties();
+    props.setProperty(Zeta.ZETA_CACHE_DIR_PROPERTY, dir.getPath());
+    Zeta.configure(props);
+
+    final long items = 1 << 21;
+    final double zeta = ZipfianGenerator.zetastatic(items, 0.99);
+    final File file = new File(dir, "zeta-" + items + "-0.99");
+    assertTrue(file.exists());
+    assertEquals(ZipfianGenerator.zetastatic(items, 0.99), zeta, 0.0);
+
+    // The cached value is used as is.
+    Files.write(file.toPath(), Long.toHexString(Double.doubleToLongBits(42.0)).getBytes("UTF-8"));
+    assertEquals(ZipfianGenerator.zetastatic(items, 0.99), 42.0, 0.0);
+
+    // Small sums are computed inline, e.g. zeta(2, theta) by the constructor of ZipfianGenerator.
+    ZipfianGenerator.zetastatic(12345, 0.99);
+    new ZipfianGenerator(100);
+    assertEquals(dir.list().length, 1);
+
+    file.delete();
+    dir.delete();
+  }
+}
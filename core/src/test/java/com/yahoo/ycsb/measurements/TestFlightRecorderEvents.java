@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.Status;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests for the JFR events.
+ */
+public class TestFlightRecorderEvents {
+
+  @Test
+  public void disabledByDefault() {
+    assertNull(FlightRecorderEvents.create(new Properties()));
+  }
+
+  @Test
+  public void noEventWithoutRecording() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(FlightRecorderEvents.JFR_ENABLED_PROPERTY, "true");
+    FlightRecorderEvents events = FlightRecorderEvents.create(props);
+    assertNull(events.beginOperation());
+    assertNull(events.beginTransaction());
+
+    try (Recording recording = new Recording()) {
+      recording.enable("ycsb.Operation");
+      recording.start();
+      assertNotNull(events.beginOperation());
+      recording.stop();
+    }
+    assertNull(events.beginOperation());
+    assertNull(events.beginTransaction());
+  }
+
+  @Test
+  public void recordsSlowOperations() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(FlightRecorderEvents.JFR_ENABLED_PROPERTY, "true");
+    props.setProperty(FlightRecorderEvents.JFR_THRESHOLD_PROPERTY, "1000");
+    FlightRecorderEvents events = FlightRecorderEvents.create(props);
+
+    File file = File.createTempFile("ycsb-", ".jfr");
+    file.deleteOnExit();
+    try (Recording recording = new Recording()) {
+      recording.enable("ycsb.Operation");
+      recording.enable("ycsb.Transaction");
+      recording.start();
+
+      events.commitOperation(events.beginOperation(), "READ", "usertable", "user1", Status.OK, 10000, 100);
+      events.commitOperation(events.beginOperation(), "UPDATE", "usertable", "user2", Status.ERROR, 5000000, 200);
+      Object transaction = events.beginTransaction();
+      events.setTraceLine("READ,user3");
+      events.commitTransaction(transaction, "FileWorkload", 3000000, 2000000);
+
+      recording.stop();
+      recording.dump(file.toPath());
+    }
+
+    List<RecordedEvent> recorded = RecordingFile.readAllEvents(file.toPath());
+    assertEquals(recorded.size(), 2);
+    for (RecordedEvent event : recorded) {
+      if ("ycsb.Operation".equals(event.getEventType().getName())) {
+        assertEquals(event.getString("operation"), "UPDATE");
+        assertEquals(event.getString("key"), "user2");
+        assertEquals(event.getString("status"), Status.ERROR.getName());
+        assertEquals(event.getLong("bytes"), 200);
+      } else {
+        assertEquals(event.getString("traceLine"), "READ,user3");
+        assertEquals(event.getDuration("generatorTime").toNanos(), 1000000);
+      }
+    }
+  }
+}
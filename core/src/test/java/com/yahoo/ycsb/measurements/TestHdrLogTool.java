@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.SortedMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the interval histogram log tool.
+ */
+public class TestHdrLogTool {
+  private static final long T0 = 1500000000000L;
+
+  private static File writeLog(long start, long... latencies) throws Exception {
+    File file = File.createTempFile("ycsb-hdrlog-", ".hdr");
+    file.deleteOnExit();
+    PrintStream out = new PrintStream(file);
+    HistogramLogWriter writer = new HistogramLogWriter(out);
+    // As written by OneMeasurementHdrHistogram.
+    writer.outputLogFormatVersion();
+    writer.outputStartTime(start);
+    writer.setBaseTime(start);
+    writer.outputLegend();
+    // One interval histogram per second, holding a single latency each.
+    for (int i = 0; i < latencies.length; i++) {
+      Histogram interval = new Histogram(3);
+      interval.setStartTimeStamp(start + i * 1000L);
+      interval.setEndTimeStamp(start + (i + 1) * 1000L);
+      interval.recordValue(latencies[i]);
+      writer.outputIntervalHistogram(interval);
+    }
+    out.close();
+    return file;
+  }
+
+  @Test
+  public void mergesClientsByInterval() throws Exception {
+    File client1 = writeLog(T0, 100, 200, 300, 400);
+    File client2 = writeLog(T0 + 500, 1000, 2000, 3000, 4000);
+
+    SortedMap<Long, Histogram> windows = HdrLogTool.mergeByInterval(Arrays.asList(client1, client2), 2000);
+    assertEquals(windows.size(), 2);
+    assertEquals(windows.get(T0).getTotalCount(), 4);
+    assertEquals(windows.get(T0).getMaxValue(), 2000, 2000 / 1000);
+    assertEquals(windows.get(T0 + 2000).getTotalCount(), 4);
+    assertEquals(windows.get(T0 + 2000).getMinValue(), 300, 300 / 1000);
+
+    Histogram total = HdrLogTool.total(windows);
+    assertEquals(total.getTotalCount(), 8);
+    assertEquals(total.getMaxValue(), 4000, 4000 / 1000);
+    assertEquals(total.getValueAtPercentile(50), 400, 400 / 1000);
+  }
+
+  @Test
+  public void mannWhitney() {
+    double[] baseline = {10, 11, 12, 13, 14, 15, 16, 17, 18, 19};
+    double[] slower = {20, 21, 22, 23, 24, 25, 26, 27, 28, 29};
+    double[] same = {10.5, 11.5, 12.5, 13.5, 14.5, 15.5, 16.5, 17.5, 18.5, 19.5};
+
+    double[] test = HdrLogTool.mannWhitney(baseline, slower);
+    assertEquals(test[0], 0.0);
+    assertTrue(test[2] < 0.001);
+    assertEquals(HdrLogTool.verdict(test, 0.05), HdrLogTool.Verdict.REGRESSION);
+    assertEquals(HdrLogTool.verdict(HdrLogTool.mannWhitney(slower, baseline), 0.05), HdrLogTool.Verdict.IMPROVEMENT);
+    assertEquals(HdrLogTool.verdict(HdrLogTool.mannWhitney(baseline, same), 0.05), HdrLogTool.Verdict.NO_CHANGE);
+    assertEquals(HdrLogTool.verdict(HdrLogTool.mannWhitney(baseline, baseline), 0.05), HdrLogTool.Verdict.NO_CHANGE);
+  }
+}
@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the Measurements class.
+ */
+public class TestMeasurements {
+
+  private static String export(Measurements measurements) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    measurements.exportMeasurements(exporter);
+    exporter.close();
+    return out.toString("UTF-8");
+  }
+
+  @Test
+  public void warmupMeasurementsAreDiscarded() throws IOException {
+    Measurements measurements = new Measurements(new Properties());
+    measurements.startWarmup();
+    assertTrue(measurements.isWarmingUp());
+    measurements.measure("READ", 100000);
+    measurements.reportStatus("READ", Status.OK);
+    measurements.endWarmup();
+    measurements.measure("READ", 10);
+    measurements.reportStatus("READ", Status.OK);
+
+    String output = export(measurements);
+    assertTrue(output.contains("[READ], Operations, 1"), output);
+    assertTrue(output.contains("[READ], MaxLatency(us), 10"), output);
+    assertFalse(output.contains("WARMUP"), output);
+  }
+
+  @Test
+  public void warmupMeasurementsAreExportedSeparately() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Measurements.WARMUP_EXPORT_PROPERTY, "true");
+    Measurements measurements = new Measurements(props);
+    measurements.startWarmup();
+    measurements.measure("READ", 100000);
+    measurements.measure("READ", 200000);
+    measurements.endWarmup();
+    measurements.measure("READ", 10);
+
+    String output = export(measurements);
+    assertTrue(output.contains("[WARMUP-READ], Operations, 2"), output);
+    assertTrue(output.contains("[READ], Operations, 1"), output);
+  }
+
+  @Test
+  public void operationCounts() throws IOException {
+    Measurements measurements = new Measurements(new Properties());
+    measurements.startWarmup();
+    measurements.reportStatus("READ", Status.OK);
+    measurements.endWarmup();
+    measurements.reportStatus("READ", Status.OK);
+    measurements.reportStatus("READ", Status.ERROR);
+    measurements.reportStatus("UPDATE", Status.BATCHED_OK);
+
+    OperationCounters.Counts reads = measurements.getOperationCounters().snapshot().get("READ");
+    assertEquals(reads.getOk(), 2);
+    assertEquals(reads.getFailed(), 1);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    measurements.getOperationCounters().exportMeasurements(exporter, 1000);
+    exporter.close();
+    String output = out.toString("UTF-8");
+    assertTrue(output.contains("[THROUGHPUT-READ], Operations, 2"), output);
+    assertTrue(output.contains("[THROUGHPUT-READ], Failed, 1"), output);
+    assertTrue(output.contains("[THROUGHPUT-UPDATE], Throughput(ops/sec), 1.0"), output);
+  }
+
+  @Test
+  public void handlesSurviveReset() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_INTERVAL, "both");
+    Measurements measurements = new Measurements(props);
+    MeasurementHandle read = measurements.getHandle("READ");
+    assertTrue(read == measurements.getHandle("READ"));
+    measurements.measure(read, 100000);
+    measurements.reportStatus(read, Status.OK);
+    measurements.reset();
+
+    measurements.measure(read, 10);
+    measurements.measureIntended(read, 20);
+    measurements.reportStatus(read, Status.OK);
+    String output = export(measurements);
+    assertTrue(output.contains("[READ], Operations, 1"), output);
+    assertTrue(output.contains("[READ], MaxLatency(us), 10"), output);
+    assertTrue(output.contains("[Intended-READ], MaxLatency(us), 20"), output);
+    assertEquals(measurements.getOperationCounters().snapshot().get("READ").getOk(), 1);
+  }
+
+  @Test
+  public void threadLocalRecordingIsMerged() throws Exception {
+    File raw = File.createTempFile("raw", ".csv");
+    raw.deleteOnExit();
+    Properties props = new Properties();
+    props.setProperty(OneMeasurementRaw.OUTPUT_FILE_PATH, raw.getAbsolutePath());
+    final OneMeasurement[] measurements = {new OneMeasurementHistogram("HISTOGRAM", props),
+        new OneMeasurementTimeSeries("TIMESERIES", props), new OneMeasurementRaw("RAW", props)};
+
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 1; j <= 1000; j++) {
+          for (OneMeasurement measurement : measurements) {
+            measurement.measure(j);
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (OneMeasurement measurement : measurements) {
+      measurement.getSummary();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+
+    for (OneMeasurement measurement : measurements) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+      measurement.exportMeasurements(exporter);
+      exporter.close();
+      String output = out.toString("UTF-8");
+      assertTrue(output.contains("Operations, 8000"), output);
+      assertTrue(output.contains("MaxLatency(us), 1000") || output.contains("Max, 1000"), output);
+    }
+  }
+
+  @Test
+  public void nanosecondLatencies() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Measurements.LATENCY_UNIT_PROPERTY, "ns");
+    Measurements measurements = new Measurements(props);
+    measurements.measureNanos("READ", 250);
+    measurements.measureNanos("READ", 3000000000000L);
+    String output = export(measurements);
+    assertTrue(output.contains("[READ], MinLatency(ns), 250"), output);
+    assertTrue(output.contains("[READ], MaxLatency(ns), 300"), output);
+
+    measurements = new Measurements(new Properties());
+    measurements.measureNanos("READ", 250);
+    assertTrue(export(measurements).contains("[READ], MaxLatency(us), 0"));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void unknownLatencyUnit() {
+    Properties props = new Properties();
+    props.setProperty(Measurements.LATENCY_UNIT_PROPERTY, "ms");
+    new Measurements(props);
+  }
+
+  @Test
+  public void clientOverhead() throws IOException {
+    Measurements measurements = new Measurements(new Properties());
+    measurements.reportClientOverhead(10, 5000, 9, 900);
+    measurements.reportClientOverhead(10, 15000, 9, -1);
+
+    String output = export(measurements);
+    assertTrue(output.contains("[CLIENT_OVERHEAD], AverageOverhead(ns), 1000.0"), output);
+    assertTrue(output.contains("[CLIENT_OVERHEAD], AllocatedBytesPerOp, 100.0"), output);
+  }
+
+  @Test
+  public void clientOverheadIgnoresMeasurementInterval() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_INTERVAL, "intended");
+    Measurements measurements = new Measurements(props);
+    measurements.startWarmup();
+    measurements.measureClientOverheadNanos(1000000);
+    assertEquals(measurements.getWarmupIntervalLatency(), 0.0);
+    measurements.endWarmup();
+    measurements.measureClientOverheadNanos(2000);
+    measurements.measureClientOverheadNanos(4000);
+
+    String output = export(measurements);
+    assertTrue(output.contains("[CLIENT_OVERHEAD], Operations, 2"), output);
+    assertTrue(output.contains("[CLIENT_OVERHEAD], MaxLatency(us), 4"), output);
+  }
+
+  @Test
+  public void warmupIntervalLatency() {
+    Measurements measurements = new Measurements(new Properties());
+    measurements.startWarmup();
+    measurements.measureOperationNanos(measurements.getHandle("READ"), 10000);
+    measurements.measureOperationNanos(measurements.getHandle("UPDATE"), 30000);
+    assertEquals(measurements.getWarmupIntervalLatency(), 20.0);
+    assertEquals(measurements.getWarmupIntervalLatency(), 0.0);
+  }
+
+  @Test
+  public void warmupIntervalLatencyIgnoresOtherValues() {
+    for (String interval : new String[]{"op", "intended", "both"}) {
+      Properties props = new Properties();
+      props.setProperty(Measurements.MEASUREMENT_INTERVAL, interval);
+      Measurements measurements = new Measurements(props);
+      MeasurementHandle read = measurements.getHandle("READ");
+      measurements.startWarmup();
+      // Steady operations, along with JVM and host statistics and payload buckets that vary wildly, as
+      // recorded by the status thread, the host sampler and DBWrapper during the warm-up phase.
+      for (int i = 0; i < 5; i++) {
+        measurements.measureOperationNanos(read, 10000);
+        measurements.measureOperationIntendedNanos(read, 10000);
+        measurements.measureNanos("READ-UPTO-4KB", 10000);
+        measurements.measureGauge("GCS_TIME", i * 1000);
+        measurements.measureGauge("USED_MEM_MB", 4096);
+        measurements.measureGauge("HOST_NET_RX_KB", i % 2 == 0 ? 0 : 1 << 20);
+        assertEquals(measurements.getWarmupIntervalLatency(), 10.0, interval);
+      }
+    }
+  }
+
+  @Test
+  public void hotKeysByOps() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_HOT_KEYS_PROPERTY, "2");
+    props.setProperty(Measurements.MEASUREMENT_HOT_KEYS_CAPACITY_PROPERTY, "16");
+    Measurements measurements = new Measurements(props);
+    HotKeyTracker thread1 = measurements.newHotKeyTracker();
+    HotKeyTracker thread2 = measurements.newHotKeyTracker();
+    for (int i = 0; i < 100; i++) {
+      measurements.measureKey(thread1, "hot", 1000, Status.OK);
+    }
+    for (int i = 0; i < 1000; i++) {
+      measurements.measureKey(thread1, "cold" + i, 1000, Status.OK);
+    }
+    for (int i = 0; i < 50; i++) {
+      measurements.measureKey(thread2, "hot", 1000, i < 10 ? Status.ERROR : Status.OK);
+    }
+    measurements.startWarmup();
+    measurements.measureKey(thread2, "hot", 1000, Status.OK);
+
+    String output = export(measurements);
+    assertTrue(output.contains("[HOTKEY-hot], EstimatedOperations, 150"), output);
+    assertTrue(output.contains("[HOTKEY-hot], MaxOverestimation, 0"), output);
+    assertTrue(output.contains("[HOTKEY-hot], Operations, 150"), output);
+    assertTrue(output.contains("[HOTKEY-hot], Errors, 10"), output);
+    assertEquals(output.split("EstimatedOperations").length - 1, 2, output);
+  }
+
+  @Test
+  public void hotKeysByLatency() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_HOT_KEYS_PROPERTY, "1");
+    props.setProperty(Measurements.MEASUREMENT_HOT_KEYS_WEIGHT_PROPERTY, "latency");
+    Measurements measurements = new Measurements(props);
+    HotKeyTracker tracker = measurements.newHotKeyTracker();
+    for (int i = 0; i < 100; i++) {
+      measurements.measureKey(tracker, "fast", 1000, Status.OK);
+      if (i % 20 == 0) {
+        measurements.measureKey(tracker, "slow", 1000000, Status.OK);
+      }
+    }
+
+    String output = export(measurements);
+    assertTrue(output.contains("[HOTKEY-slow], EstimatedTotalLatency(us), 5000"), output);
+    assertTrue(output.contains("[HOTKEY-slow], Operations, 5"), output);
+    assertFalse(output.contains("HOTKEY-fast"), output);
+
+    measurements.reset();
+    assertFalse(export(measurements).contains("HOTKEY"));
+  }
+
+  @Test
+  public void payloadThroughput() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_PAYLOAD_PROPERTY, "true");
+    Measurements measurements = new Measurements(props);
+    assertTrue(measurements.isTrackingPayload());
+    measurements.startWarmup();
+    measurements.reportPayload(measurements.getHandle("READ"), 0, 1 << 20);
+    measurements.endWarmup();
+    measurements.reportPayload(measurements.getHandle("READ"), 0, 1 << 20);
+    measurements.reportPayload(measurements.getHandle("UPDATE"), 512 << 10, 0);
+
+    OperationCounters.Counts reads = measurements.getOperationCounters().snapshot().get("READ");
+    assertEquals(reads.getBytesReceived(), 2 << 20);
+    assertEquals(reads.getBytesSent(), 0);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    measurements.getOperationCounters().exportMeasurements(exporter, 2000);
+    exporter.close();
+    String output = out.toString("UTF-8");
+    assertTrue(output.contains("[THROUGHPUT-READ], BytesReceived, " + (1 << 20)), output);
+    assertTrue(output.contains("[THROUGHPUT-READ], Received(MB/sec), 0.5"), output);
+    assertTrue(output.contains("[THROUGHPUT-UPDATE], Sent(MB/sec), 0.25"), output);
+  }
+}
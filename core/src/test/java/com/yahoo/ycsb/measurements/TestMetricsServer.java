@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.Status;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for the live metrics endpoint.
+ */
+public class TestMetricsServer {
+
+  @Test
+  public void disabledByDefault() throws Exception {
+    assertNull(MetricsServer.start(new Properties(), new Measurements(new Properties())));
+  }
+
+  @Test
+  public void servesMetrics() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(MetricsServer.METRICS_PORT_PROPERTY, "0");
+    Measurements measurements = new Measurements(props);
+    measurements.measure("READ", 1500);
+    measurements.reportStatus("READ", Status.OK);
+    measurements.reportStatus("READ", Status.ERROR);
+    measurements.getSummary();
+
+    MetricsServer server = MetricsServer.start(props, measurements);
+    try {
+      HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort()
+          + MetricsServer.PATH).openConnection();
+      assertEquals(connection.getResponseCode(), 200);
+      assertTrue(connection.getContentType().startsWith("text/plain"));
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (InputStream in = connection.getInputStream()) {
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+          out.write(buffer, 0, read);
+        }
+      }
+      String metrics = out.toString("UTF-8");
+      assertTrue(metrics.contains("ycsb_operations_total{operation=\"READ\",outcome=\"ok\"} 1\n"), metrics);
+      assertTrue(metrics.contains("ycsb_operations_total{operation=\"READ\",outcome=\"failed\"} 1\n"), metrics);
+      assertTrue(metrics.contains("ycsb_status_total{measurement=\"READ\",status=\"ERROR\"} 1\n"), metrics);
+      assertTrue(metrics.contains("ycsb_interval_latency_seconds{measurement=\"READ\",quantile=\"0.99\"} 0.0015"),
+          metrics);
+      assertTrue(metrics.contains("ycsb_interval_operations{measurement=\"READ\"} 1\n"), metrics);
+      assertTrue(metrics.contains("# TYPE ycsb_jvm_threads gauge\n"), metrics);
+    } finally {
+      server.stop();
+    }
+  }
+}
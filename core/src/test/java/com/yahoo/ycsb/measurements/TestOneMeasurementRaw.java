@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for the raw measurement type and its spill files.
+ */
+public class TestOneMeasurementRaw {
+
+  @Test
+  public void logSpansChunks() throws Exception {
+    RawSampleLog log = new RawSampleLog(null, 64);
+    for (int i = 0; i < 1000; i++) {
+      log.append(1000000000000L + i * 7, i % 3 == 0 ? -i : i * 1000);
+    }
+    assertEquals(log.getCount(), 1000);
+
+    RawSampleLog.Reader reader = log.reader();
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(reader.next());
+      assertEquals(reader.getTimestamp(), 1000000000000L + i * 7);
+      assertEquals(reader.getLatency(), i % 3 == 0 ? -i : i * 1000);
+    }
+    assertFalse(reader.next());
+  }
+
+  @Test
+  public void closeDeletesSpillFile() throws Exception {
+    File dir = Files.createTempDirectory("raw").toFile();
+    dir.deleteOnExit();
+    RawSampleLog log = new RawSampleLog(dir, 64);
+    for (int i = 0; i < 100; i++) {
+      log.append(i, i);
+    }
+    RawSampleLog.Reader reader = log.reader();
+    while (reader.next()) {
+      assertTrue(reader.getLatency() >= 0);
+    }
+    assertTrue(log.getFile().exists());
+
+    log.close();
+    assertFalse(log.getFile().exists());
+    assertEquals(dir.list().length, 0);
+    log.close();
+    try {
+      log.append(100, 100);
+      fail("Appended to a closed log");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void exportDeletesSpillFiles() throws Exception {
+    File dir = Files.createTempDirectory("raw").toFile();
+    dir.deleteOnExit();
+    File output = File.createTempFile("raw", ".csv");
+    output.deleteOnExit();
+    Properties props = new Properties();
+    props.setProperty(OneMeasurementRaw.SPILL_DIR, dir.getAbsolutePath());
+    props.setProperty(OneMeasurementRaw.OUTPUT_FILE_PATH, output.getAbsolutePath());
+    OneMeasurementRaw measurement = new OneMeasurementRaw("READ", props);
+    Thread thread = new Thread(() -> measurement.measure(20));
+    thread.start();
+    thread.join();
+    measurement.measure(10);
+    assertEquals(dir.list().length, 2);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    measurement.exportMeasurements(exporter);
+    exporter.close();
+    assertTrue(out.toString("UTF-8").contains("[READ], Total Operations, 2"));
+    assertEquals(dir.list().length, 0);
+    measurement.measure(30);
+    assertEquals(dir.list().length, 0);
+  }
+
+  @Test
+  public void resetDeletesSpillFiles() throws Exception {
+    File dir = Files.createTempDirectory("raw").toFile();
+    dir.deleteOnExit();
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "raw");
+    props.setProperty(OneMeasurementRaw.SPILL_DIR, dir.getAbsolutePath());
+    Measurements measurements = new Measurements(props);
+    measurements.measure("READ", 10);
+    measurements.measure("UPDATE", 10);
+    assertEquals(dir.list().length, 2);
+
+    measurements.reset();
+    assertEquals(dir.list().length, 0);
+  }
+
+  @Test
+  public void exactPercentiles() throws Exception {
+    File output = File.createTempFile("raw", ".csv");
+    output.deleteOnExit();
+    Properties props = new Properties();
+    props.setProperty(OneMeasurementRaw.OUTPUT_FILE_PATH, output.getAbsolutePath());
+    final OneMeasurementRaw measurement = new OneMeasurementRaw("READ", props);
+
+    final int[] latencies = new int[40000];
+    Random random = new Random(42);
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = random.nextInt(1 << 20);
+    }
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final int first = t * latencies.length / threads.length;
+      threads[t] = new Thread(() -> {
+        for (int i = first; i < first + latencies.length / threads.length; i++) {
+          measurement.measure(latencies[i]);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    measurement.exportMeasurements(exporter);
+    exporter.close();
+    String summary = out.toString("UTF-8");
+
+    int[] sorted = latencies.clone();
+    Arrays.sort(sorted);
+    assertTrue(summary.contains("[READ], Total Operations, 40000"), summary);
+    assertTrue(summary.contains("[READ], Min, " + sorted[0] + "\n"), summary);
+    assertTrue(summary.contains("[READ], Max, " + sorted[sorted.length - 1] + "\n"), summary);
+    assertTrue(summary.contains("[READ], p50, " + sorted[(int) (sorted.length * 0.5)] + "\n"), summary);
+    assertTrue(summary.contains("[READ], p99.9, " + sorted[(int) (sorted.length * 0.999)] + "\n"), summary);
+
+    List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+    assertEquals(lines.size(), latencies.length + 1);
+    long previous = 0;
+    for (String line : lines.subList(1, lines.size())) {
+      long timestamp = Long.parseLong(line.split(",")[1]);
+      assertTrue(timestamp >= previous, line);
+      previous = timestamp;
+    }
+  }
+
+  @Test
+  public void exactPercentilesOverWideRange() throws Exception {
+    File output = File.createTempFile("raw", ".csv");
+    output.deleteOnExit();
+    Properties props = new Properties();
+    props.setProperty(OneMeasurementRaw.OUTPUT_FILE_PATH, output.getAbsolutePath());
+    props.setProperty(Measurements.LATENCY_UNIT_PROPERTY, "ns");
+    OneMeasurementRaw measurement = new OneMeasurementRaw("READ", props);
+
+    long[] latencies = new long[10000];
+    Random random = new Random(7);
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = 100 + (random.nextLong() >>> (random.nextInt(40) + 8));
+      measurement.measure(latencies[i]);
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    measurement.exportMeasurements(exporter);
+    exporter.close();
+    String summary = out.toString("UTF-8");
+
+    long[] sorted = latencies.clone();
+    Arrays.sort(sorted);
+    assertTrue(summary.contains("summary of latency in nanoseconds"), summary);
+    assertTrue(summary.contains("[READ], p1, " + sorted[(int) (sorted.length * 0.01)] + "\n"), summary);
+    assertTrue(summary.contains("[READ], p50, " + sorted[(int) (sorted.length * 0.5)] + "\n"), summary);
+    assertTrue(summary.contains("[READ], p99.99, " + sorted[(int) (sorted.length * 0.9999)] + "\n"), summary);
+    assertTrue(summary.contains("[READ], Max, " + sorted[sorted.length - 1] + "\n"), summary);
+  }
+
+  @Test
+  public void summaryInLatencyUnit() throws Exception {
+    File output = File.createTempFile("raw", ".csv");
+    output.deleteOnExit();
+    Properties props = new Properties();
+    props.setProperty(OneMeasurementRaw.OUTPUT_FILE_PATH, output.getAbsolutePath());
+    OneMeasurementRaw micros = new OneMeasurementRaw("READ", props);
+    micros.measure(10);
+    micros.measure(20);
+    assertEquals(micros.getSummary(), "READ count: 2, average latency(us): 15.00");
+    micros.close();
+
+    props.setProperty(Measurements.LATENCY_UNIT_PROPERTY, "ns");
+    OneMeasurementRaw nanos = new OneMeasurementRaw("READ", props);
+    nanos.measure(1000);
+    assertEquals(nanos.getSummary(), "READ count: 1, average latency(ns): 1000.00");
+    assertEquals(nanos.getSummary(), "");
+    nanos.close();
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2018 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.Utils;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestKeyNameEncoder {
+  /**
+   * The key names CoreWorkload built before the encoder.
+   */
+  private static String legacyKeyName(long keynum, int zeropadding) {
+    String value = Long.toString(keynum);
+    int fill = zeropadding - value.length();
+    String prekey = "user";
+    for (int i = 0; i < fill; i++) {
+      prekey += '0';
+    }
+    return prekey + value;
+  }
+
+  private static void check(KeyNameEncoder encoder, long keynum, int zeropadding) {
+    final String expected = legacyKeyName(keynum, zeropadding);
+    assertEquals(encoder.encode(keynum), expected);
+
+    final ByteBuffer buffer = encoder.encodeToBuffer(keynum);
+    assertEquals(StandardCharsets.US_ASCII.decode(buffer).toString(), expected);
+
+    final byte[] bytes = new byte[encoder.getMaxLength() + 3];
+    final int length = encoder.encode(keynum, bytes, 3);
+    assertEquals(new String(bytes, 3, length, StandardCharsets.US_ASCII), expected);
+  }
+
+  @Test
+  public void matchesLegacyKeyNames() {
+    for (int zeropadding : new int[] {0, 1, 8, 12, 25}) {
+      final KeyNameEncoder encoder = new KeyNameEncoder("user", zeropadding);
+      for (long keynum : new long[] {0, 5, 9, 10, 99, 12345, 1L << 40, -1, -42, Long.MAX_VALUE, Long.MIN_VALUE}) {
+        check(encoder, keynum, zeropadding);
+      }
+      for (long keynum = 0; keynum < 10000; keynum++) {
+        check(encoder, Utils.hash(keynum), zeropadding);
+      }
+    }
+  }
+
+  @Test
+  public void paddedKeyNamesSortLikeKeyNumbers() {
+    final KeyNameEncoder encoder = new KeyNameEncoder("user", 8);
+    for (long keynum = 0; keynum < 100000; keynum += 7) {
+      assertEquals(Integer.signum(encoder.encode(keynum).compareTo(encoder.encode(keynum + 7))), -1);
+    }
+  }
+
+  @Test
+  public void keyNamesAreConvertedToBytes() {
+    final ByteBuffer buffer = KeyNameEncoder.toBuffer("user12345");
+    assertEquals(StandardCharsets.US_ASCII.decode(buffer).toString(), "user12345");
+    final StringBuilder longKey = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      longKey.append(i);
+    }
+    assertEquals(StandardCharsets.US_ASCII.decode(KeyNameEncoder.toBuffer(longKey.toString())).toString(),
+        longKey.toString());
+  }
+}
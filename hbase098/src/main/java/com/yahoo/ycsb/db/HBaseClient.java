@@ -142,7 +142,7 @@ public class HBaseClient extends com.yahoo.ycsb.DB {
         }
       }
       long en = System.nanoTime();
-      measurements.measure("UPDATE", (int) ((en - st) / 1000));
+      measurements.measureNanos("UPDATE", en - st);
     } catch (IOException e) {
       throw new DBException(e);
     }